@@ -0,0 +1,95 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.internal.actors.ExecutorBasedActorFactory;
+import com.googlecode.acpj.internal.actors.ForkJoinActorFactory;
+import com.googlecode.acpj.internal.actors.ThreadBasedActorFactory;
+import com.googlecode.acpj.internal.actors.VirtualThreadActorFactory;
+
+/**
+ * <p>
+ * Measures the cost of creating an actor with each of the actor factory
+ * implementations, both the cost to the caller alone (<code>create</code>,
+ * the actor runs asynchronously) and the time until the actor has run
+ * (<code>createAndRun</code>).
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActorBenchmark {
+
+	private static final Runnable NOTHING = new Runnable() {
+		public void run() {
+		}
+	};
+
+	@Param({ "executor", "thread", "forkjoin", "virtual" })
+	public String factoryType;
+
+	private ActorFactory factory = null;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if ("executor".equals(this.factoryType)) {
+			this.factory = new ExecutorBasedActorFactory();
+		} else if ("thread".equals(this.factoryType)) {
+			this.factory = new ThreadBasedActorFactory();
+		} else if ("forkjoin".equals(this.factoryType)) {
+			this.factory = new ForkJoinActorFactory();
+		} else if (VirtualThreadActorFactory.isSupported()) {
+			this.factory = new VirtualThreadActorFactory();
+		} else {
+			throw new IllegalStateException("Virtual threads are not supported by this JVM.");
+		}
+	}
+
+	@Benchmark
+	public Actor create() {
+		return this.factory.createActor(NOTHING);
+	}
+
+	@Benchmark
+	public Actor createAndRun() throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(1);
+		final Actor actor = this.factory.createActor(new Runnable() {
+			public void run() {
+				done.countDown();
+			}
+		});
+		done.await();
+		return actor;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelRegistry;
+import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.services.BasicService;
+
+/**
+ * <p>
+ * Measures the number of requests a {@link com.googlecode.acpj.services.BasicService}
+ * handles per second. Each invocation writes a batch of requests to the
+ * service channel, found by name in the registry as a client would, and then
+ * waits for the service to have handled them; as the service channel is
+ * unlimited this is what stops the clients simply filling the heap.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BasicServiceBenchmark {
+
+	private static final int BATCH = 100;
+
+	private static final String CHANNEL_NAME = "com.googlecode.acpj.benchmarks.CountingService";
+
+	private static final Integer REQUEST = Integer.valueOf(42);
+
+	private final AtomicLong sent = new AtomicLong(0L);
+
+	private CountingService service = null;
+
+	public static class CountingService extends BasicService<Integer> {
+		final AtomicLong handled = new AtomicLong(0L);
+
+		CountingService() {
+			setChannelName(CHANNEL_NAME);
+		}
+
+		@Override
+		public boolean handleRequest(Integer request) {
+			this.handled.incrementAndGet();
+			return true;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		WritePort<Integer> port = null;
+
+		@Setup(Level.Trial)
+		public void setUp(BasicServiceBenchmark benchmark) {
+			final Channel<Integer> channel = ChannelRegistry.getInstance().lookup(CHANNEL_NAME);
+			this.port = channel.getWritePort(true);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.service = new CountingService();
+		this.service.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.service.stop();
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(BATCH)
+	public long requests(Client client) {
+		return send(client);
+	}
+
+	@Benchmark
+	@Threads(4)
+	@OperationsPerInvocation(BATCH)
+	public long requestsContended(Client client) {
+		return send(client);
+	}
+
+	private long send(Client client) {
+		for (int i = 0; i < BATCH; i++) {
+			client.port.write(REQUEST);
+		}
+		final long target = this.sent.addAndGet(BATCH);
+		long handled = 0L;
+		while ((handled = this.service.handled.get()) < target) {
+			Thread.yield();
+		}
+		return handled;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.infra.Control;
+
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.WritePort;
+
+/**
+ * <p>
+ * Channel operations shared by the benchmarks. At the end of an iteration
+ * JMH waits for every thread to return, but a thread blocked on a channel
+ * whose other side has already stopped would never do so; these operations
+ * use a short timeout and give up once the measurement has stopped.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+final class BenchmarkSupport {
+
+	private static final long TIMEOUT_MILLIS = 1L;
+
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * Write a value, re-trying until it is accepted or the measurement stops.
+	 * 
+	 * @param port the port to write to.
+	 * @param value the value to write.
+	 * @param control the JMH control of the running benchmark.
+	 * 
+	 * @return <code>true</code> if the value was written.
+	 */
+	static <T> boolean write(WritePort<T> port, T value, Control control) {
+		while (!control.stopMeasurement) {
+			if (port.write(value, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Read a value, re-trying until one arrives or the measurement stops.
+	 * 
+	 * @param port the port to read from.
+	 * @param control the JMH control of the running benchmark.
+	 * 
+	 * @return the value read, or <code>null</code> if the measurement stopped.
+	 */
+	static <T> T read(ReadPort<T> port, Control control) {
+		while (!control.stopMeasurement) {
+			final T value = port.read(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			if (value != null) {
+				return value;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Control;
+
+import com.googlecode.acpj.channels.BufferedChannel;
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelFactory;
+import com.googlecode.acpj.channels.PortArity;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.WritePort;
+
+/**
+ * <p>
+ * Measures the throughput, and the time taken by each read and write, of a
+ * channel created by the default {@link com.googlecode.acpj.channels.ChannelFactory}
+ * for each combination of capacity (unbuffered, a buffer of 16 and unlimited)
+ * and port arity. The groups are:
+ * </p>
+ * <ul>
+ *   <li><code>oneToOne</code> - one writer, one reader.</li>
+ *   <li><code>manyToOne</code> - four writers, one reader.</li>
+ *   <li><code>oneToMany</code> - one writer, four readers.</li>
+ *   <li><code>manyToMany</code> - four writers, four readers.</li>
+ * </ul>
+ * <p>
+ * Writers to an unlimited channel never block, so they back off while the
+ * readers are more than a fixed number of values behind; otherwise the
+ * backlog, and so the heap, grows for as long as the iteration runs. 
+ * Unbuffered channels are created without a capacity, as applications 
+ * usually do.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelBenchmark {
+
+	private static final Integer VALUE = Integer.valueOf(42);
+
+	private static final int MAX_BACKLOG = 1024;
+
+	@State(Scope.Group)
+	public static class ChannelState {
+
+		@Param({ "0", "16", "-1" })
+		public int capacity;
+
+		Channel<Integer> channel = null;
+		BufferedChannel<Integer> unlimited = null;
+
+		@Setup(Level.Trial)
+		public void setUp(BenchmarkParams params) {
+			final String group = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1);
+			final PortArity writeArity = group.startsWith("many") ? PortArity.ANY : PortArity.ONE;
+			final PortArity readArity = group.endsWith("ToMany") ? PortArity.ANY : PortArity.ONE;
+			if (this.capacity == 0) {
+				this.channel = ChannelFactory.getInstance().createChannel(
+						group, 
+						readArity, ChannelFactory.PORT_LIMIT_UNLIMITED, 
+						writeArity, ChannelFactory.PORT_LIMIT_UNLIMITED);
+			} else {
+				final BufferedChannel<Integer> buffered = ChannelFactory.getInstance().createChannel(
+						group, 
+						readArity, ChannelFactory.PORT_LIMIT_UNLIMITED, 
+						writeArity, ChannelFactory.PORT_LIMIT_UNLIMITED, 
+						this.capacity);
+				if (this.capacity == BufferedChannel.BUFFER_CAPACITY_UNLIMITED) {
+					this.unlimited = buffered;
+				}
+				this.channel = buffered;
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.channel.poison();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class WriterState {
+
+		WritePort<Integer> port = null;
+		BufferedChannel<Integer> unlimited = null;
+
+		@Setup(Level.Trial)
+		public void setUp(ChannelState state) {
+			this.unlimited = state.unlimited;
+			this.port = state.channel.getWritePort(true);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ReaderState {
+
+		ReadPort<Integer> port = null;
+
+		@Setup(Level.Trial)
+		public void setUp(ChannelState state) {
+			this.port = state.channel.getReadPort(true);
+		}
+	}
+
+	@Benchmark
+	@Group("oneToOne")
+	@GroupThreads(1)
+	public boolean oneToOneWrite(WriterState writer, Control control) {
+		return write(writer, control);
+	}
+
+	@Benchmark
+	@Group("oneToOne")
+	@GroupThreads(1)
+	public Integer oneToOneRead(ReaderState reader, Control control) {
+		return BenchmarkSupport.read(reader.port, control);
+	}
+
+	@Benchmark
+	@Group("manyToOne")
+	@GroupThreads(4)
+	public boolean manyToOneWrite(WriterState writer, Control control) {
+		return write(writer, control);
+	}
+
+	@Benchmark
+	@Group("manyToOne")
+	@GroupThreads(1)
+	public Integer manyToOneRead(ReaderState reader, Control control) {
+		return BenchmarkSupport.read(reader.port, control);
+	}
+
+	@Benchmark
+	@Group("oneToMany")
+	@GroupThreads(1)
+	public boolean oneToManyWrite(WriterState writer, Control control) {
+		return write(writer, control);
+	}
+
+	@Benchmark
+	@Group("oneToMany")
+	@GroupThreads(4)
+	public Integer oneToManyRead(ReaderState reader, Control control) {
+		return BenchmarkSupport.read(reader.port, control);
+	}
+
+	@Benchmark
+	@Group("manyToMany")
+	@GroupThreads(4)
+	public boolean manyToManyWrite(WriterState writer, Control control) {
+		return write(writer, control);
+	}
+
+	@Benchmark
+	@Group("manyToMany")
+	@GroupThreads(4)
+	public Integer manyToManyRead(ReaderState reader, Control control) {
+		return BenchmarkSupport.read(reader.port, control);
+	}
+
+	private boolean write(WriterState writer, Control control) {
+		if (writer.unlimited != null) {
+			while (writer.unlimited.size() > MAX_BACKLOG && !control.stopMeasurement) {
+				Thread.yield();
+			}
+		}
+		return BenchmarkSupport.write(writer.port, VALUE, control);
+	}
+}
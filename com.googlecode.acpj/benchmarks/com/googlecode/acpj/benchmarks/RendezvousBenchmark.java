@@ -0,0 +1,139 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.benchmarks;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import com.googlecode.acpj.internal.channels.RendezvousQueue;
+import com.googlecode.acpj.internal.channels.ZeroBlockingQueue;
+
+/**
+ * <p>
+ * Compares the zero capacity queues that may be used as the buffer of an
+ * unbuffered channel, measuring the number of values handed from writers to
+ * readers with one writer and one reader, many writers and one reader, and
+ * many writers and many readers.
+ * </p>
+ * <p>
+ * Writers and readers use the timed operations with a short timeout so that
+ * a thread left waiting at the end of an iteration (when the other side has
+ * already stopped) notices and returns.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RendezvousBenchmark {
+
+	private static final Integer VALUE = Integer.valueOf(42);
+
+	@Param({ "rendezvous-fair", "rendezvous-unfair", "zero", "synchronous-fair" })
+	public String queueType;
+
+	private BlockingQueue<Integer> queue = null;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		if ("rendezvous-fair".equals(this.queueType)) {
+			this.queue = new RendezvousQueue<Integer>(true);
+		} else if ("rendezvous-unfair".equals(this.queueType)) {
+			this.queue = new RendezvousQueue<Integer>(false);
+		} else if ("zero".equals(this.queueType)) {
+			this.queue = new ZeroBlockingQueue<Integer>();
+		} else {
+			this.queue = new SynchronousQueue<Integer>(true);
+		}
+	}
+
+	@Benchmark
+	@Group("oneToOne")
+	@GroupThreads(1)
+	public boolean oneToOneWrite(Control control) throws InterruptedException {
+		return write(control);
+	}
+
+	@Benchmark
+	@Group("oneToOne")
+	@GroupThreads(1)
+	public Integer oneToOneRead(Control control) throws InterruptedException {
+		return read(control);
+	}
+
+	@Benchmark
+	@Group("manyToOne")
+	@GroupThreads(4)
+	public boolean manyToOneWrite(Control control) throws InterruptedException {
+		return write(control);
+	}
+
+	@Benchmark
+	@Group("manyToOne")
+	@GroupThreads(1)
+	public Integer manyToOneRead(Control control) throws InterruptedException {
+		return read(control);
+	}
+
+	@Benchmark
+	@Group("manyToMany")
+	@GroupThreads(4)
+	public boolean manyToManyWrite(Control control) throws InterruptedException {
+		return write(control);
+	}
+
+	@Benchmark
+	@Group("manyToMany")
+	@GroupThreads(4)
+	public Integer manyToManyRead(Control control) throws InterruptedException {
+		return read(control);
+	}
+
+	private boolean write(Control control) throws InterruptedException {
+		while (!control.stopMeasurement) {
+			if (this.queue.offer(VALUE, 1L, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Integer read(Control control) throws InterruptedException {
+		while (!control.stopMeasurement) {
+			final Integer value = this.queue.poll(1L, TimeUnit.MILLISECONDS);
+			if (value != null) {
+				return value;
+			}
+		}
+		return null;
+	}
+}
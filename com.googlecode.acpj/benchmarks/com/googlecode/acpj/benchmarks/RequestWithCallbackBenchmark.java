@@ -0,0 +1,115 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelFactory;
+import com.googlecode.acpj.channels.ChannelPoisonedException;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.patterns.Request;
+import com.googlecode.acpj.patterns.RequestWithCallbackPattern;
+
+/**
+ * <p>
+ * Measures the round trip of the {@link com.googlecode.acpj.patterns.RequestWithCallbackPattern},
+ * including the creation of the callback channel for each request, against
+ * a server actor that replies immediately. The round trip is measured for a
+ * single client and for four clients sharing the server.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestWithCallbackBenchmark {
+
+	private static final Integer REPLY = Integer.valueOf(42);
+
+	private Channel<Request<Integer>> requests = null;
+
+	public static class Server implements Runnable {
+		private final Channel<Request<Integer>> requests;
+
+		Server(Channel<Request<Integer>> requests) {
+			this.requests = requests;
+		}
+
+		public void run() {
+			final ReadPort<Request<Integer>> port = this.requests.getReadPort(true);
+			try {
+				while (true) {
+					final WritePort<Integer> callback = port.read().getCallbackPort();
+					callback.claim();
+					callback.write(REPLY);
+				}
+			} catch (ChannelPoisonedException e) {
+				port.close();
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		WritePort<Request<Integer>> port = null;
+		final RequestWithCallbackPattern<Object, Integer> pattern = new RequestWithCallbackPattern<Object, Integer>();
+
+		@Setup(Level.Trial)
+		public void setUp(RequestWithCallbackBenchmark benchmark) {
+			this.port = benchmark.requests.getWritePort(true);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.requests = ChannelFactory.getInstance().createAnyToOneChannel("benchmark.requests");
+		ActorFactory.getInstance().createActor(new Server(this.requests), "benchmark.server");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.requests.poison();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Integer roundTrip(Client client) {
+		return client.pattern.requestWithCallback(client.port);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer roundTripContended(Client client) {
+		return client.pattern.requestWithCallback(client.port);
+	}
+}
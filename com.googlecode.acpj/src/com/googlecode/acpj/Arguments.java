@@ -46,7 +46,7 @@ public class Arguments {
 	 *   be used to create new {@link com.googlecode.acpj.actors.Actor} instances.
 	 * </p>
 	 * <p>
-	 *   Currently the following two values may be used:
+	 *   Currently the following values may be used:
 	 * </p>
 	 * <dl>
 	 *   <dt><code>com.googlecode.acpj.internal.actors.ExecutorBasedActorFactory</code></dt>
@@ -54,6 +54,12 @@ public class Arguments {
 	 *       within a pool of threads for better performance (the default value).</dd>
 	 *   <dt><code>com.googlecode.acpj.internal.actors.ThreadBasedActorFactory</code></dt>
 	 *   <dd>Creates each actor on it's own {@link java.lang.Thread} instance.</dd>
+	 *   <dt><code>com.googlecode.acpj.internal.actors.VirtualThreadActorFactory</code></dt>
+	 *   <dd>Creates each actor on it's own virtual thread, this requires a Java runtime
+	 *       that supports virtual threads.</dd>
+	 *   <dt><code>com.googlecode.acpj.internal.actors.ForkJoinActorFactory</code></dt>
+	 *   <dd>Uses a work-stealing {@link java.util.concurrent.ForkJoinPool} to manage each
+	 *       actor, actors created by other actors are queued on the creator's thread.</dd>
 	 * </dl>
 	 */
 	public static final String CFG_DEFAULT_ACTOR_FACTORY_CLASS = "com.googlecode.acpj.config.DefaultActorFactory";
@@ -68,12 +74,102 @@ public class Arguments {
 	 */
 	public static final String CFG_THREAD_POOL_SIZE = "com.googlecode.acpj.config.ThreadPoolSize";
 
+	/**
+	 * <p>
+	 *   This is a Boolean value that determines whether the thread pool used by the
+	 *   {@link java.util.concurrent.ThreadPoolExecutor} based actor factory is elastic.
+	 *   An elastic pool adds a compensating thread whenever one of its threads blocks
+	 *   in a channel operation, so that actors waiting in the queue can still be 
+	 *   started, and removes it again once the blocked thread continues. The default
+	 *   value is <code>true</code>, a value of <code>false</code> results in a fixed 
+	 *   size pool which may deadlock if all of its threads are blocked.
+	 * </p>
+	 */
+	public static final String CFG_THREAD_POOL_ELASTIC = "com.googlecode.acpj.config.ThreadPoolElastic";
+
+	/**
+	 * <p>
+	 *   This is an Integer value that limits the number of threads an elastic thread 
+	 *   pool (see {@link #CFG_THREAD_POOL_ELASTIC}) may grow to. The default value is 
+	 *   32767.
+	 * </p>
+	 */
+	public static final String CFG_THREAD_POOL_MAX_SIZE = "com.googlecode.acpj.config.ThreadPoolMaxSize";
+
 	/**
 	 * <p>
 	 *   This is a Boolean value that determines whether the {@link com.googlecode.acpj.channels.ChannelFactory}
-	 *   should attempt to monitor all channels.
+	 *   should attempt to monitor all channels. Monitored channels also record 
+	 *   throughput, blocking time and buffer occupancy statistics, see 
+	 *   {@link com.googlecode.acpj.channels.MonitoredChannel#hasStatistics()}.
 	 * </p>
 	 */
 	public static final String CFG_MONITOR_CHANNELS = "com.googlecode.acpj.config.MonitorChannels";
-}
 
+	/**
+	 * <p>
+	 *   This is the name of a {@link com.googlecode.acpj.channels.WaitStrategy} value 
+	 *   (for example <code>SPIN_PARK</code>) that determines how actors wait on 
+	 *   buffered channels that were created without an explicit strategy. The 
+	 *   default value is <code>PARK</code>.
+	 * </p>
+	 */
+	public static final String CFG_CHANNEL_WAIT_STRATEGY = "com.googlecode.acpj.config.ChannelWaitStrategy";
+
+	/**
+	 * <p>
+	 *   This is an Integer value that determines how many values are written to a 
+	 *   durable channel (see {@link com.googlecode.acpj.channels.ChannelFactory#createDurableChannel(String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int, java.io.File, com.googlecode.acpj.channels.ValueSerializer)})
+	 *   between each flush of its log to disk. Values written since the last flush
+	 *   survive the JVM exiting but may be lost if the operating system fails. The
+	 *   default value is 64, a value of 1 flushes on every write.
+	 * </p>
+	 */
+	public static final String CFG_DURABLE_SYNC_BATCH = "com.googlecode.acpj.config.DurableSyncBatch";
+
+	/**
+	 * <p>
+	 *   This is an Integer value that determines the size, in bytes, of each segment
+	 *   file in the log of a durable channel. Segments are deleted once all of their
+	 *   values have been read. The default value is 1048576 (1MB).
+	 * </p>
+	 */
+	public static final String CFG_DURABLE_SEGMENT_SIZE = "com.googlecode.acpj.config.DurableSegmentSize";
+
+	/**
+	 * <p>
+	 *   This is an Integer value that, if greater than zero, limits the number of
+	 *   values held in memory by channels created with a capacity of
+	 *   {@link com.googlecode.acpj.channels.BufferedChannel#BUFFER_CAPACITY_UNLIMITED}.
+	 *   Values written beyond this are serialized (using Java serialization) to a 
+	 *   temporary file and read back in order, so writers are never blocked and a
+	 *   slow reader cannot exhaust the heap. The default value is 0, all values are
+	 *   held in memory.
+	 * </p>
+	 */
+	public static final String CFG_CHANNEL_SPILL_WINDOW = "com.googlecode.acpj.config.ChannelSpillWindow";
+
+	/**
+	 * <p>
+	 *   This is a Boolean value that determines whether channels, services and the
+	 *   actor pools are registered as MXBeans with the platform MBean server, in 
+	 *   the domain <code>com.googlecode.acpj</code>. Channels are only registered
+	 *   if they are also monitored, see {@link #CFG_MONITOR_CHANNELS}. The default 
+	 *   value is <code>false</code>.
+	 * </p>
+	 */
+	public static final String CFG_JMX_ENABLED = "com.googlecode.acpj.config.JmxEnabled";
+
+	/**
+	 * <p>
+	 *   This is a Boolean value that determines whether monitored channels (see 
+	 *   {@link #CFG_MONITOR_CHANNELS}) also record histograms of writer blocked 
+	 *   time, reader wait time and, for channels that buffer values in memory,
+	 *   the time each value spends in the channel, see 
+	 *   {@link com.googlecode.acpj.channels.MonitoredChannel#hasHistograms()}.
+	 *   Recording residency wraps each value written with the time it was 
+	 *   written. The default value is <code>false</code>.
+	 * </p>
+	 */
+	public static final String CFG_CHANNEL_HISTOGRAMS = "com.googlecode.acpj.config.ChannelHistograms";
+}
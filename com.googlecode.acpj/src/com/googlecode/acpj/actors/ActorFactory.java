@@ -8,6 +8,9 @@
  */
 package com.googlecode.acpj.actors;
 
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ChannelPoisonedException;
+import com.googlecode.acpj.channels.ReadPort;
 import com.googlecode.acpj.internal.config.Configuration;
 
 /**
@@ -24,7 +27,11 @@ import com.googlecode.acpj.internal.config.Configuration;
  */
 public abstract class ActorFactory {
 	
-	private static ActorFactory instance = null;
+	/*
+	 * Volatile so that, once created, the instance is returned without taking
+	 * the class lock (double-checked locking).
+	 */
+	private static volatile ActorFactory instance = null;
 
 	/**
 	 * Retrieve the static (singleton) instance of the ActorFactory. Note that 
@@ -34,18 +41,25 @@ public abstract class ActorFactory {
 	 * 
 	 * @return the singleton ActorFactory instance.
 	 */
-	public static synchronized ActorFactory getInstance() {
-		if (instance == null) {
-			Class<? extends ActorFactory> factory = Configuration.getDefaultActorFactoryImpl();
-			try {
-				instance = factory.newInstance();
-			} catch (InstantiationException e) {
-				e.printStackTrace();
-			} catch (IllegalAccessException e) {
-				e.printStackTrace();
+	public static ActorFactory getInstance() {
+		ActorFactory current = instance;
+		if (current == null) {
+			synchronized (ActorFactory.class) {
+				current = instance;
+				if (current == null) {
+					Class<? extends ActorFactory> factory = Configuration.getDefaultActorFactoryImpl();
+					try {
+						current = factory.newInstance();
+						instance = current;
+					} catch (InstantiationException e) {
+						e.printStackTrace();
+					} catch (IllegalAccessException e) {
+						e.printStackTrace();
+					}
+				}
 			}
 		}
-		return instance;
+		return current;
 	}
 
 	/**
@@ -72,6 +86,113 @@ public abstract class ActorFactory {
 	 */
 	public abstract Actor createActor(Runnable runnable, String name);
 
+	/**
+	 * Create a new actor instance (note that actors are created in an already
+	 * running state), with a hint as to which other actors it should be scheduled
+	 * near. Actors created with the same affinity object, for example the channel
+	 * they communicate over, will tend to run on the same thread if the 
+	 * implementation supports it, otherwise the hint is ignored.
+	 * 
+	 * @param runnable an object implementing the {@link java.lang.Runnable} interface
+	 *        to be the new actor function.
+	 * @param name a name to assign to the new actor instance, or <code>null</code>.
+	 * @param affinity the affinity hint, or <code>null</code>.
+	 * @return a new actor instance, or <code>null</code> if the actor could not be
+	 *        created.
+	 */
+	public Actor createActor(Runnable runnable, String name, Object affinity) {
+		return name == null ? createActor(runnable) : createActor(runnable, name);
+	}
+
+	/**
+	 * Create a new event-driven actor instance, bound to the given read port. The
+	 * handler is called with each value read from the port, but no thread is held
+	 * by the actor while the channel is empty (see {@link MessageHandler}).
+	 * <p>
+	 * The port must either be unclaimed or owned by the caller, ownership is 
+	 * transferred to the new actor.
+	 * </p>
+	 * 
+	 * @param port the port the actor reads from.
+	 * @param handler the actor body, called once for each value read.
+	 * @return a new actor instance.
+	 * 
+	 * @throws IllegalArgumentException if the port is not supported by this factory.
+	 * @throws ChannelException if the port is owned by another actor.
+	 */
+	public <T> Actor createActor(ReadPort<T> port, MessageHandler<? super T> handler) throws IllegalArgumentException, ChannelException {
+		return createMessageDrivenActor(port, handler, null);
+	}
+
+	/**
+	 * Create a new event-driven actor instance, bound to the given read port. The
+	 * handler is called with each value read from the port, but no thread is held
+	 * by the actor while the channel is empty (see {@link MessageHandler}).
+	 * <p>
+	 * The port must either be unclaimed or owned by the caller, ownership is 
+	 * transferred to the new actor.
+	 * </p>
+	 * 
+	 * @param port the port the actor reads from.
+	 * @param handler the actor body, called once for each value read.
+	 * @param name a name to assign to the new actor instance, note that this name need
+	 *        not be unique, it is in general only used for debugging.
+	 * @return a new actor instance.
+	 * 
+	 * @throws IllegalArgumentException if the port is not supported by this factory.
+	 * @throws ChannelException if the port is owned by another actor.
+	 */
+	public <T> Actor createActor(ReadPort<T> port, MessageHandler<? super T> handler, String name) throws IllegalArgumentException, ChannelException {
+		if (name == null) {
+			throw new IllegalArgumentException("Actor name may not be null");
+		}
+		return createMessageDrivenActor(port, handler, name);
+	}
+
+	/**
+	 * Create the event-driven actor for the two methods above. The default 
+	 * implementation creates an ordinary actor, with {@link #createActor(Runnable, String)},
+	 * that reads from the port and calls the handler for each value; such an 
+	 * actor holds its thread while the channel is empty. Implementations that 
+	 * can schedule event-driven actors onto a shared thread override this method.
+	 * 
+	 * @param port the port the actor reads from.
+	 * @param handler the actor body, called once for each value read.
+	 * @param name the name of the new actor, or <code>null</code>.
+	 * @return a new actor instance.
+	 * 
+	 * @throws IllegalArgumentException if the port is not supported by this factory.
+	 * @throws ChannelException if the port is owned by another actor.
+	 */
+	protected <T> Actor createMessageDrivenActor(final ReadPort<T> port, final MessageHandler<? super T> handler, String name) throws IllegalArgumentException, ChannelException {
+		if (port == null || handler == null) {
+			throw new IllegalArgumentException("Port and handler may not be null");
+		}
+		if (port.getOwningActor() != null) {
+			port.release();
+		}
+		final Runnable reader = new Runnable() {
+			public void run() {
+				port.claim();
+				while (true) {
+					final T message;
+					try {
+						message = port.read();
+					} catch (ChannelPoisonedException e) {
+						break;
+					} catch (IllegalStateException e) {
+						/*
+						 * The port limit has been reached, or the port closed.
+						 */
+						break;
+					}
+					handler.onMessage(message);
+				}
+			}
+		};
+		return name == null ? createActor(reader) : createActor(reader, name);
+	}
+
 	/**
 	 * Retrieve the instance of the actor that represents the caller, note that in the
 	 * case of threads that are running but not created as actors a single, shared
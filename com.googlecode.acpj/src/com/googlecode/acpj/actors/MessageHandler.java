@@ -0,0 +1,41 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.actors;
+
+/**
+ * <p>
+ * The body of an event-driven actor, created by 
+ * {@link ActorFactory#createActor(com.googlecode.acpj.channels.ReadPort, MessageHandler)}.
+ * Rather than running a {@link java.lang.Runnable} that blocks reading from a
+ * port, the handler is called once for each value read from the port the actor
+ * is bound to, and it is only scheduled onto a thread when the channel has a 
+ * value ready. This allows large numbers of mostly idle actors to share a small
+ * number of threads.
+ * </p>
+ * <p>
+ * The handler is never called concurrently with itself, and it may use any ports
+ * it owns as usual. However, as the thread is shared with other actors, the handler
+ * should avoid blocking operations where possible. The actor finishes when the
+ * channel it is bound to is poisoned, when the port limit is reached or when the 
+ * handler throws an exception.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface MessageHandler<T> {
+
+	/**
+	 * Handle a single value read from the actor's port.
+	 * 
+	 * @param message the value read.
+	 */
+	public void onMessage(T message);
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Allows a single actor to wait on a number of read ports at once, selecting
+ * whichever port becomes ready to read first (the CSP <em>ALT</em> construct).
+ * An alternative is created over a fixed, ordered, set of ports by
+ * {@link ChannelFactory#createAlternative(Alternative.Policy, ReadPort...)}
+ * and the select operations return the index of the ready port in that set,
+ * the actor then reads from that port as usual.
+ * </p>
+ * <p>
+ * A port is ready when a read would not block, either because a value is
+ * buffered, because a writer is waiting on an unbuffered channel, or because
+ * the channel has been poisoned (in which case the read will throw a
+ * {@link ChannelPoisonedException}). Note that for channels with a read port
+ * arity of {@link PortArity#ANY} another reader may take the value between
+ * the select and the read, in which case the read will block as usual.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface Alternative {
+
+	/**
+	 * Denotes how a port is chosen when more than one is ready.
+	 */
+	public enum Policy {
+
+		/**
+		 * Always choose the ready port that comes first in the set of ports,
+		 * earlier ports therefore have priority over later ones.
+		 */
+		PRIORITY,
+
+		/**
+		 * Choose the first ready port after the one chosen by the previous
+		 * select, so that no ready port is starved by the others.
+		 */
+		FAIR
+	}
+
+	/**
+	 * Returned by the timed and non-blocking select operations when no
+	 * port was ready.
+	 */
+	public static final int NONE_SELECTED = -1;
+
+	/**
+	 * Block until one of the ports is ready to read.
+	 * 
+	 * @return the index of the selected port.
+	 * 
+	 * @throws IllegalStateException if any of the ports is closed.
+	 * @throws ChannelException if the actor is interrupted while waiting.
+	 */
+	public int select() throws IllegalStateException, ChannelException;
+
+	/**
+	 * Block until one of the ports is ready to read, but for no longer than
+	 * the given timeout.
+	 * 
+	 * @param timeout how long to wait for a port to become ready.
+	 * @param unit the unit of the <code>timeout</code> value.
+	 * 
+	 * @return the index of the selected port, or {@link #NONE_SELECTED} if the
+	 *         timeout expired.
+	 * 
+	 * @throws IllegalStateException if any of the ports is closed.
+	 * @throws ChannelException if the actor is interrupted while waiting.
+	 */
+	public int select(long timeout, TimeUnit unit) throws IllegalStateException, ChannelException;
+
+	/**
+	 * Select a port only if one is ready immediately, this never blocks.
+	 * 
+	 * @return the index of the selected port, or {@link #NONE_SELECTED} if no
+	 *         port was ready.
+	 * 
+	 * @throws IllegalStateException if any of the ports is closed.
+	 */
+	public int trySelect() throws IllegalStateException;
+
+	/**
+	 * Retrieve one of the ports this alternative selects between.
+	 * 
+	 * @param index the index of the port, as returned by a select operation.
+	 * 
+	 * @return the port at the given index.
+	 */
+	public ReadPort<?> getPort(int index);
+
+	/**
+	 * The number of ports this alternative selects between.
+	 * 
+	 * @return the number of ports.
+	 */
+	public int size();
+
+	/**
+	 * The policy used to choose between ready ports.
+	 * 
+	 * @return the policy for this alternative.
+	 */
+	public Policy getPolicy();
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A buffered channel for large byte payloads held outside of the Java heap. The
+ * buffer is a ring of fixed size slots in a single direct, or memory-mapped, 
+ * {@link java.nio.ByteBuffer} and payloads are handed between actors in place:
+ * </p>
+ * <ul>
+ *   <li>a writer reserves a slot with {@link ByteBufferWritePort#reserve()}, 
+ *       writes the payload into it and then publishes it with 
+ *       {@link ByteBufferWritePort#publish(ByteBuffer)}.</li>
+ *   <li>a reader takes a read-only view of the next slot with 
+ *       {@link ByteBufferReadPort#readView()} and, once it has finished with
+ *       the payload, gives the slot back with 
+ *       {@link ByteBufferReadPort#releaseView(ByteBuffer)}.</li>
+ * </ul>
+ * <p>
+ * The standard port operations are also supported, but these copy the payload
+ * into the slot on write and out into a new heap buffer on read. 
+ * </p>
+ * <p>
+ * Byte buffer channels are always bounded, see 
+ * {@link ChannelFactory#createByteBufferChannel(String, PortArity, int, PortArity, int, int, int, java.io.File)}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface ByteBufferChannel extends BufferedChannel<ByteBuffer> {
+
+	/**
+	 * The size, in bytes, of each slot in the channel buffer, and so the 
+	 * largest payload that may be written.
+	 * 
+	 * @return the slot size.
+	 */
+	public int getSlotSize();
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Channel#getReadPort(boolean)
+	 */
+	public ByteBufferReadPort getReadPort(boolean claimed) throws IllegalStateException, ChannelException;
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Channel#getWritePort(boolean)
+	 */
+	public ByteBufferWritePort getWritePort(boolean claimed) throws IllegalStateException, ChannelException;
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A read port on a {@link ByteBufferChannel} that can read payloads in place.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface ByteBufferReadPort extends ReadPort<ByteBuffer> {
+
+	/**
+	 * Take the next payload from the channel, blocking as described for 
+	 * {@link ReadPort#read()}. The view is only valid until it is given back
+	 * by {@link #releaseView(ByteBuffer)}, which must be called exactly once
+	 * for each view, and the writers are unable to re-use the slot until then.
+	 * 
+	 * @return a read-only view of the payload, from position zero to the 
+	 *         length of the payload.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the read request.
+	 */
+	public ByteBuffer readView() throws IllegalStateException, ChannelException;
+
+	/**
+	 * Give back a view returned by {@link #readView()}, freeing the slot for
+	 * writers.
+	 * 
+	 * @param view the view to release.
+	 * 
+	 * @throws IllegalArgumentException if the buffer is not a view of this channel.
+	 */
+	public void releaseView(ByteBuffer view) throws IllegalArgumentException;
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A write port on a {@link ByteBufferChannel} that can write payloads in place.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface ByteBufferWritePort extends WritePort<ByteBuffer> {
+
+	/**
+	 * Reserve the next free slot in the channel, blocking as described for 
+	 * {@link WritePort#write(Object)} if the channel is full. The slot is 
+	 * not visible to readers until it is passed to {@link #publish(ByteBuffer)},
+	 * which must be called exactly once for each reserved slot.
+	 * 
+	 * @return the slot buffer, position zero and limit the slot size.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the write request.
+	 */
+	public ByteBuffer reserve() throws IllegalStateException, ChannelException;
+
+	/**
+	 * Publish a slot returned by {@link #reserve()}, the payload is the bytes 
+	 * from zero up to the current position of the slot buffer.
+	 * 
+	 * @param slot the slot to publish.
+	 * 
+	 * @throws IllegalArgumentException if the buffer is not a slot of this channel.
+	 */
+	public void publish(ByteBuffer slot) throws IllegalArgumentException;
+
+}
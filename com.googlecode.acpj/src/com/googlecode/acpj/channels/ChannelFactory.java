@@ -8,6 +8,8 @@
  */
 package com.googlecode.acpj.channels;
 
+import java.io.File;
+
 import com.googlecode.acpj.internal.config.Configuration;
 
 /**
@@ -24,7 +26,11 @@ import com.googlecode.acpj.internal.config.Configuration;
  */
 public abstract class ChannelFactory {
 
-	private static ChannelFactory instance = null;
+	/*
+	 * Volatile so that, once created, the instance is returned without taking
+	 * the class lock (double-checked locking).
+	 */
+	private static volatile ChannelFactory instance = null;
 
 	/**
 	 * Retrieve the static (singleton) instance of the ChannelFactory. Note that 
@@ -34,18 +40,25 @@ public abstract class ChannelFactory {
 	 * 
 	 * @return the singleton ChannelFactory instance.
 	 */
-	public static synchronized ChannelFactory getInstance() {
-		if (instance == null) {
-			Class<? extends ChannelFactory> factory = Configuration.getDefaultChannelFactoryImpl();
-			try {
-				instance = factory.newInstance();
-			} catch (InstantiationException e) {
-				e.printStackTrace();
-			} catch (IllegalAccessException e) {
-				e.printStackTrace();
+	public static ChannelFactory getInstance() {
+		ChannelFactory current = instance;
+		if (current == null) {
+			synchronized (ChannelFactory.class) {
+				current = instance;
+				if (current == null) {
+					Class<? extends ChannelFactory> factory = Configuration.getDefaultChannelFactoryImpl();
+					try {
+						current = factory.newInstance();
+						instance = current;
+					} catch (InstantiationException e) {
+						e.printStackTrace();
+					} catch (IllegalAccessException e) {
+						e.printStackTrace();
+					}
+				}
 			}
 		}
-		return instance;
+		return current;
 	}
 	
 	public static final int PORT_LIMIT_UNLIMITED = -1;
@@ -103,6 +116,119 @@ public abstract class ChannelFactory {
 
 	public abstract <T> BufferedChannel<T> createChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException;
 
+	/**
+	 * Create a buffered channel as above, but specifying how actors wait on the 
+	 * channel rather than using the configured default, see 
+	 * {@link com.googlecode.acpj.Arguments#CFG_CHANNEL_WAIT_STRATEGY}.
+	 * 
+	 * Factories that do not support wait strategies need not override this method,
+	 * the default implementation ignores the strategy and creates the channel 
+	 * as above.
+	 * 
+	 * @param waitStrategy how actors wait when the buffer is empty (on read) or 
+	 *        full (on write).
+	 */
+	public <T> BufferedChannel<T> createChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, WaitStrategy waitStrategy) throws IllegalArgumentException {
+		return createChannel(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity);
+	}
+
+	/**
+	 * Create a buffered channel carrying <code>int</code> values held in a primitive
+	 * ring buffer, see {@link IntChannel}. 
+	 * 
+	 * @param capacity the buffer capacity, primitive channels must be bounded so 
+	 *        this must be greater than zero.
+	 */
+	public abstract IntChannel createIntChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException;
+
+	/**
+	 * Create a buffered channel carrying <code>long</code> values held in a primitive
+	 * ring buffer, see {@link LongChannel}. 
+	 * 
+	 * @param capacity the buffer capacity, primitive channels must be bounded so 
+	 *        this must be greater than zero.
+	 */
+	public abstract LongChannel createLongChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException;
+
+	/**
+	 * Create a buffered channel carrying <code>double</code> values held in a primitive
+	 * ring buffer, see {@link DoubleChannel}. 
+	 * 
+	 * @param capacity the buffer capacity, primitive channels must be bounded so 
+	 *        this must be greater than zero.
+	 */
+	public abstract DoubleChannel createDoubleChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException;
+
+	/**
+	 * Create a buffered channel for large byte payloads held outside of the Java
+	 * heap, see {@link ByteBufferChannel}.
+	 * 
+	 * @param capacity the number of slots in the channel buffer, this must be
+	 *        greater than zero.
+	 * @param slotSize the size, in bytes, of each slot and so the largest 
+	 *        payload that may be written.
+	 * @param file if not <code>null</code> the buffer is a memory-mapping of this
+	 *        file (which is created or resized as needed), otherwise the buffer 
+	 *        is a direct buffer.
+	 * 
+	 * @throws ChannelException if the file could not be mapped.
+	 */
+	public abstract ByteBufferChannel createByteBufferChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, int slotSize, File file) throws IllegalArgumentException, ChannelException;
+
+	/**
+	 * Create a buffered channel whose values are kept in a log on disk, so that 
+	 * values written but not yet read survive the JVM exiting and are read when 
+	 * a channel is next created over the same directory. The blocking, limit and 
+	 * poison behavior is the same as for any other buffered channel. Note that 
+	 * only one channel at a time may use a log directory.
+	 * 
+	 * @param capacity the buffer capacity, this must be greater than zero or 
+	 *        {@link BufferedChannel#BUFFER_CAPACITY_UNLIMITED}.
+	 * @param directory the directory holding the log, created if it does not
+	 *        exist.
+	 * @param serializer used to convert values to and from their stored form, 
+	 *        if <code>null</code> Java serialization is used. 
+	 * 
+	 * @throws ChannelException if the log could not be opened.
+	 */
+	public abstract <T> BufferedChannel<T> createDurableChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, File directory, ValueSerializer<T> serializer) throws IllegalArgumentException, ChannelException;
+
+	/**
+	 * Create a buffered channel of unlimited capacity that holds at most 
+	 * <code>window</code> values in memory, writing any more to a temporary file
+	 * and reading them back in order as the readers catch up. Writers are never
+	 * blocked by the channel. See also {@link com.googlecode.acpj.Arguments#CFG_CHANNEL_SPILL_WINDOW}.
+	 * 
+	 * Factories that cannot spill values to disk need not override this method,
+	 * the default implementation ignores the window and serializer and creates
+	 * a channel of unlimited capacity held in memory.
+	 * 
+	 * @param window the maximum number of values held in memory.
+	 * @param serializer used to convert values to and from their stored form, 
+	 *        if <code>null</code> Java serialization is used. 
+	 */
+	public <T> BufferedChannel<T> createSpillingChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int window, ValueSerializer<T> serializer) throws IllegalArgumentException {
+		return createChannel(name, readPortArity, readPortLimit, writePortArity, writePortLimit, BufferedChannel.BUFFER_CAPACITY_UNLIMITED);
+	}
+
+	/**
+	 * <p>
+	 * Create an alternative that allows the current actor to wait on all of the 
+	 * given read ports at once, see {@link Alternative}. The ports must have been 
+	 * created by channels from this factory.
+	 * </p>
+	 * 
+	 * @param policy how to choose between ports when more than one is ready.
+	 * @param ports the ports to select between, the index of each port in this 
+	 *        list is the value returned when it is selected.
+	 * 
+	 * @return a new alternative over the given ports.
+	 * 
+	 * @throws IllegalArgumentException if there are no ports, or a port is not 
+	 *         supported by this factory.
+	 */
+	public abstract Alternative createAlternative(Alternative.Policy policy, ReadPort<?>... ports) throws IllegalArgumentException;
+
 	/**
 	 * <p>
 	 * Return the channel monitor used by this channel factory that can be used
@@ -110,6 +110,7 @@ public class ChannelMonitorOutput {
 		if (monitor == null || os == null || format == null) {
 			return;
 		}
+		int histogramId = 1;
 		for (Iterator<MonitoredChannel> iterator = monitor.getChannels(); iterator.hasNext();) {
 			MonitoredChannel channel = iterator.next();
 			final String name = channel.getName();
@@ -120,13 +121,28 @@ public class ChannelMonitorOutput {
 				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#capacity> \"%d\" .\n", name, channel.getBufferCapacity()).getBytes(ENCODING));
 				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#size> \"%d\" .\n", name, channel.size()).getBytes(ENCODING));
 			}
+			if (channel.hasStatistics()) {
+				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#valuesWritten> \"%d\" .\n", name, channel.getValuesWritten()).getBytes(ENCODING));
+				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#valuesRead> \"%d\" .\n", name, channel.getValuesRead()).getBytes(ENCODING));
+				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#writerBlockedNanos> \"%d\" .\n", name, channel.getWriterBlockedNanos()).getBytes(ENCODING));
+				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#maxWriterBlockedNanos> \"%d\" .\n", name, channel.getMaxWriterBlockedNanos()).getBytes(ENCODING));
+				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#readerWaitNanos> \"%d\" .\n", name, channel.getReaderWaitNanos()).getBytes(ENCODING));
+				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#highWaterMark> \"%d\" .\n", name, channel.getHighWaterMark()).getBytes(ENCODING));
+			}
+			if (channel.hasHistograms()) {
+				writeHistogramRDF(os, name, "writerBlockedHistogram", histogramId++, channel.getWriterBlockedHistogram(false));
+				writeHistogramRDF(os, name, "readerWaitHistogram", histogramId++, channel.getReaderWaitHistogram(false));
+				writeHistogramRDF(os, name, "residencyHistogram", histogramId++, channel.getResidencyHistogram(false));
+			}
 			
 			os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#readPortArity> \"%s\" .\n", name, channel.getReadPortArity()).getBytes(ENCODING));
 			for (Iterator<MonitoredPort> iterator2 = channel.getReadPorts(); iterator2.hasNext();) {
 				MonitoredPort port = iterator2.next();
 				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#hasPort> _:P%02d .\n", name, portId).getBytes(ENCODING));
 				os.write(String.format("_:P%02d a <http://acpj.googlecode.com/vocab#ReadPort> .\n", portId).getBytes(ENCODING));
-				os.write(String.format("_:P%02d <http://acpj.googlecode.com/vocab#owningActor> <%s> .\n", portId, port.getOwningActor().getName()).getBytes(ENCODING));
+				if (port.getOwningActor() != null) {
+					os.write(String.format("_:P%02d <http://acpj.googlecode.com/vocab#owningActor> <%s> .\n", portId, port.getOwningActor().getName()).getBytes(ENCODING));
+				}
 				os.write(String.format("_:P%02d <http://acpj.googlecode.com/vocab#isClosed> \"%s\" .\n", portId, port.isClosed()).getBytes(ENCODING));
 				portId++;
 			}
@@ -136,12 +152,36 @@ public class ChannelMonitorOutput {
 				MonitoredPort port = iterator2.next();
 				os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#hasPort> _:P%02d .\n", name, portId).getBytes(ENCODING));
 				os.write(String.format("_:P%02d a <http://acpj.googlecode.com/vocab#WritePort> .\n", portId).getBytes(ENCODING));
-				os.write(String.format("_:P%02d <http://acpj.googlecode.com/vocab#owningActor> <%s> .\n", portId, port.getOwningActor().getName()).getBytes(ENCODING));
+				if (port.getOwningActor() != null) {
+					os.write(String.format("_:P%02d <http://acpj.googlecode.com/vocab#owningActor> <%s> .\n", portId, port.getOwningActor().getName()).getBytes(ENCODING));
+				}
 				os.write(String.format("_:P%02d <http://acpj.googlecode.com/vocab#isClosed> \"%s\" .\n", portId, port.isClosed()).getBytes(ENCODING));
 				portId++;
 			}			
 		}
 	}
+	
+	/*
+	 * Describe the histogram as a blank node with its summary values and one
+	 * blank node for each bucket with a non-zero count.
+	 */
+	private static void writeHistogramRDF(OutputStream os, String name, String predicate, int histogramId, LatencyHistogram histogram) throws IOException {
+		os.write(String.format("<%s> <http://acpj.googlecode.com/vocab#%s> _:H%02d .\n", name, predicate, histogramId).getBytes(ENCODING));
+		os.write(String.format("_:H%02d a <http://acpj.googlecode.com/vocab#Histogram> .\n", histogramId).getBytes(ENCODING));
+		os.write(String.format("_:H%02d <http://acpj.googlecode.com/vocab#count> \"%d\" .\n", histogramId, histogram.getCount()).getBytes(ENCODING));
+		os.write(String.format("_:H%02d <http://acpj.googlecode.com/vocab#meanNanos> \"%d\" .\n", histogramId, histogram.getMean()).getBytes(ENCODING));
+		os.write(String.format("_:H%02d <http://acpj.googlecode.com/vocab#p50Nanos> \"%d\" .\n", histogramId, histogram.getPercentile(50.0)).getBytes(ENCODING));
+		os.write(String.format("_:H%02d <http://acpj.googlecode.com/vocab#p99Nanos> \"%d\" .\n", histogramId, histogram.getPercentile(99.0)).getBytes(ENCODING));
+		os.write(String.format("_:H%02d <http://acpj.googlecode.com/vocab#p999Nanos> \"%d\" .\n", histogramId, histogram.getPercentile(99.9)).getBytes(ENCODING));
+		os.write(String.format("_:H%02d <http://acpj.googlecode.com/vocab#maxNanos> \"%d\" .\n", histogramId, histogram.getMax()).getBytes(ENCODING));
+		for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+			if (histogram.getCount(bucket) > 0L) {
+				os.write(String.format("_:H%02d <http://acpj.googlecode.com/vocab#hasBucket> _:H%02dB%d .\n", histogramId, histogramId, bucket).getBytes(ENCODING));
+				os.write(String.format("_:H%02dB%d <http://acpj.googlecode.com/vocab#lowerBoundNanos> \"%d\" .\n", histogramId, bucket, LatencyHistogram.getBucketLowerBound(bucket)).getBytes(ENCODING));
+				os.write(String.format("_:H%02dB%d <http://acpj.googlecode.com/vocab#count> \"%d\" .\n", histogramId, bucket, histogram.getCount(bucket)).getBytes(ENCODING));
+			}
+		}
+	}
 
 	/**
 	 * <p>
@@ -201,6 +241,12 @@ public class ChannelMonitorOutput {
 			os.write(String.format("  node [shape=\"box\" %s label=\"%s%s\"] channel_%d;\n", fill, channel.getName(), depth, channelId).getBytes(ENCODING));
 			for (Iterator<MonitoredPort> iterator2 = channel.getWritePorts(); iterator2.hasNext();) {
 				final MonitoredPort port = iterator2.next();
+				if (port.getOwningActor() == null) {
+					/*
+					 * Not yet claimed, as with read ports there is no actor to draw.
+					 */
+					continue;
+				}
 				final String actorsName = port.getOwningActor().getName();
 				final String style = port.isClosed() ? "[style=\"dashed\"]" : "[style=\"solid\"]";
 				if (actorMap.containsKey(actorsName)) {
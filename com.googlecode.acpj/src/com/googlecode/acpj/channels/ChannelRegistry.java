@@ -24,7 +24,11 @@ import com.googlecode.acpj.internal.config.Configuration;
  */
 public abstract class ChannelRegistry {
 
-	private static ChannelRegistry instance = null;
+	/*
+	 * Volatile so that, once created, the instance is returned without taking
+	 * the class lock (double-checked locking).
+	 */
+	private static volatile ChannelRegistry instance = null;
 
 	/**
 	 * Retrieve the static (singleton) instance of the ChannelRegistry. Note that 
@@ -34,18 +38,25 @@ public abstract class ChannelRegistry {
 	 * 
 	 * @return the singleton ChannelRegistry instance.
 	 */
-	public static synchronized ChannelRegistry getInstance() {
-		if (instance == null) {
-			Class<? extends ChannelRegistry> factory = Configuration.getDefaultChannelRegistryImpl();
-			try {
-				instance = factory.newInstance();
-			} catch (InstantiationException e) {
-				e.printStackTrace();
-			} catch (IllegalAccessException e) {
-				e.printStackTrace();
+	public static ChannelRegistry getInstance() {
+		ChannelRegistry current = instance;
+		if (current == null) {
+			synchronized (ChannelRegistry.class) {
+				current = instance;
+				if (current == null) {
+					Class<? extends ChannelRegistry> factory = Configuration.getDefaultChannelRegistryImpl();
+					try {
+						current = factory.newInstance();
+						instance = current;
+					} catch (InstantiationException e) {
+						e.printStackTrace();
+					} catch (IllegalAccessException e) {
+						e.printStackTrace();
+					}
+				}
 			}
 		}
-		return instance;
+		return current;
 	}
 	
 	/**
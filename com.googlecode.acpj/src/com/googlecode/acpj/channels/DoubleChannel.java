@@ -0,0 +1,41 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+/**
+ * <p>
+ * A buffered channel specialized to carry <code>double</code> values, the values are 
+ * held in a primitive ring buffer and the ports returned by this channel may
+ * read and write them without boxing. Values may still be read and written as
+ * {@link Double} objects through the standard port operations. 
+ * </p>
+ * <p>
+ * Primitive channels are always bounded, see 
+ * {@link ChannelFactory#createDoubleChannel(String, PortArity, int, PortArity, int, int)}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface DoubleChannel extends BufferedChannel<Double> {
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Channel#getReadPort(boolean)
+	 */
+	public DoubleReadPort getReadPort(boolean claimed) throws IllegalStateException, ChannelException;
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Channel#getWritePort(boolean)
+	 */
+	public DoubleWritePort getWritePort(boolean claimed) throws IllegalStateException, ChannelException;
+
+}
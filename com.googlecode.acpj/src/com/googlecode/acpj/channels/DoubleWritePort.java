@@ -0,0 +1,34 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+/**
+ * <p>
+ * A write port on a {@link DoubleChannel} that can write <code>double</code> values
+ * without boxing them.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface DoubleWritePort extends WritePort<Double> {
+
+	/**
+	 * Write a single value to the channel, blocking as described for 
+	 * {@link WritePort#write(Object)}.
+	 * 
+	 * @param value the value to write.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the write request.
+	 */
+	public void writeDouble(double value) throws IllegalStateException, ChannelException;
+
+}
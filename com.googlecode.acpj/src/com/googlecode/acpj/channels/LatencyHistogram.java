@@ -0,0 +1,205 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+/**
+ * <p>
+ * An immutable snapshot of a histogram of times, in nanoseconds, recorded by a
+ * monitored channel (see {@link MonitoredChannel#hasHistograms()}). Times are 
+ * counted in logarithmic buckets, in the style of an HDR histogram, each power
+ * of two is divided into {@link #SUB_BUCKETS} linear buckets and so any value 
+ * reported (such as a percentile) is within 1/{@link #SUB_BUCKETS} (6.25%) of 
+ * the time actually recorded. Times of less than {@link #SUB_BUCKETS} 
+ * nanoseconds are counted exactly, and times of more than 
+ * 2<sup>{@link #MAX_EXPONENT}+1</sup> nanoseconds (about 36 minutes) are all 
+ * counted in the last bucket.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of linear buckets each power of two is divided into.
+	 */
+	public static final int SUB_BUCKETS = 16;
+	
+	/**
+	 * The exponent of the largest power of two with its own buckets.
+	 */
+	public static final int MAX_EXPONENT = 40;
+	
+	private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+	
+	/**
+	 * The total number of buckets in a histogram.
+	 */
+	public static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	
+	private final long[] counts;
+	private final long count;
+	private final long total;
+	private final long max;
+	
+	/**
+	 * Create a new snapshot, this is used by the channel implementation.
+	 * 
+	 * @param counts the count for each bucket, the array is retained.
+	 * @param total the sum of all the times recorded.
+	 * @param max the largest time recorded.
+	 */
+	public LatencyHistogram(long[] counts, long total, long max) {
+		if (counts == null || counts.length != BUCKET_COUNT) {
+			throw new IllegalArgumentException("Bucket counts must have BUCKET_COUNT entries.");
+		}
+		long count = 0L;
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			count += counts[bucket];
+		}
+		this.counts = counts;
+		this.count = count;
+		this.total = total;
+		this.max = max;
+	}
+	
+	/**
+	 * Return the bucket a time is counted in.
+	 * 
+	 * @param nanos the time.
+	 * 
+	 * @return the index of the bucket.
+	 */
+	public static int getBucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return nanos < 0L ? 0 : (int)nanos;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		final int shift = exponent - SUB_BUCKET_BITS;
+		return SUB_BUCKETS + (shift * SUB_BUCKETS) + (int)((nanos >>> shift) & (SUB_BUCKETS - 1));
+	}
+	
+	/**
+	 * Return the smallest time counted in a bucket.
+	 * 
+	 * @param bucket the index of the bucket.
+	 * 
+	 * @return the smallest time, in nanoseconds.
+	 */
+	public static long getBucketLowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		return (long)(SUB_BUCKETS + (bucket % SUB_BUCKETS)) << shift;
+	}
+	
+	/**
+	 * Return the largest time counted in a bucket, other than the last.
+	 * 
+	 * @param bucket the index of the bucket.
+	 * 
+	 * @return the largest time, in nanoseconds.
+	 */
+	public static long getBucketUpperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		return getBucketLowerBound(bucket) + (1L << shift) - 1L;
+	}
+	
+	/**
+	 * The number of times counted in a bucket.
+	 * 
+	 * @param bucket the index of the bucket.
+	 * 
+	 * @return the count.
+	 */
+	public long getCount(int bucket) {
+		return this.counts[bucket];
+	}
+	
+	/**
+	 * The number of times recorded.
+	 * 
+	 * @return the count.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+	
+	/**
+	 * The sum of all the times recorded.
+	 * 
+	 * @return the total time, in nanoseconds.
+	 */
+	public long getTotal() {
+		return this.total;
+	}
+	
+	/**
+	 * The largest time recorded.
+	 * 
+	 * @return the maximum time, in nanoseconds.
+	 */
+	public long getMax() {
+		return this.max;
+	}
+	
+	/**
+	 * The mean of the times recorded.
+	 * 
+	 * @return the mean time, in nanoseconds, or zero if none were recorded.
+	 */
+	public long getMean() {
+		return this.count > 0L ? this.total / this.count : 0L;
+	}
+	
+	/**
+	 * The time below which the given percentage of the recorded times fall,
+	 * for example <code>getPercentile(99.9)</code>. 
+	 * 
+	 * @param percentile the percentage, between 0 and 100.
+	 * 
+	 * @return the upper bound of the bucket holding the percentile (but no more
+	 *         than the maximum time recorded), or zero if none were recorded.
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0.0 || percentile > 100.0) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+		}
+		if (this.count == 0L) {
+			return 0L;
+		}
+		final long rank = Math.max(1L, (long)Math.ceil(percentile / 100.0 * this.count));
+		long seen = 0L;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += this.counts[bucket];
+			if (seen >= rank) {
+				return Math.min(getBucketUpperBound(bucket), this.max);
+			}
+		}
+		return this.max;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("LatencyHistogram[count=%d, mean=%d, p50=%d, p99=%d, p99.9=%d, max=%d]", 
+				this.count, getMean(), getPercentile(50.0), getPercentile(99.0), getPercentile(99.9), this.max);
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+/**
+ * <p>
+ * A read port on a {@link LongChannel} that can read <code>long</code> values
+ * without boxing them.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface LongReadPort extends ReadPort<Long> {
+
+	/**
+	 * Read and return a single value from the channel, blocking as described
+	 * for {@link ReadPort#read()}.
+	 * 
+	 * @return the next available value from the channel.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the read request.
+	 */
+	public long readLong() throws IllegalStateException, ChannelException;
+
+}
@@ -91,4 +91,102 @@ public interface MonitoredChannel {
 	 * {@link com.googlecode.acpj.channels.Poisonable#isPoisoned()}
 	 */
 	public boolean isPoisoned();
+	
+	/**
+	 * Return whether the channel records the statistics below, channels do so
+	 * if they were created while channel monitoring was enabled, see 
+	 * {@link com.googlecode.acpj.Arguments#CFG_MONITOR_CHANNELS}. A channel
+	 * that does not record statistics returns zero for each of them.
+	 * 
+	 * @return <code>true</code> if statistics are recorded.
+	 */
+	public boolean hasStatistics();
+	
+	/**
+	 * The number of values written to the channel so far.
+	 * 
+	 * @return the count of values written.
+	 */
+	public long getValuesWritten();
+	
+	/**
+	 * The number of values read from the channel so far.
+	 * 
+	 * @return the count of values read.
+	 */
+	public long getValuesRead();
+	
+	/**
+	 * The total time writers have spent blocked on the channel, waiting for
+	 * space in the buffer or, if unbuffered, for a reader. A channel with a
+	 * high blocked time relative to its neighbours is usually the bottleneck.
+	 * 
+	 * @return the total time blocked, in nanoseconds.
+	 */
+	public long getWriterBlockedNanos();
+	
+	/**
+	 * The longest time any single write has spent blocked on the channel.
+	 * 
+	 * @return the maximum time blocked, in nanoseconds.
+	 */
+	public long getMaxWriterBlockedNanos();
+	
+	/**
+	 * The total time readers have spent waiting for a value on the channel.
+	 * 
+	 * @return the total time waited, in nanoseconds.
+	 */
+	public long getReaderWaitNanos();
+	
+	/**
+	 * The largest number of values the buffer has been seen to hold at once, 
+	 * always zero for an unbuffered channel. The occupancy is sampled, rather 
+	 * than checked on every write, but always includes the times the buffer
+	 * was full.
+	 * 
+	 * @return the buffer high-water mark.
+	 */
+	public int getHighWaterMark();
+	
+	/**
+	 * Return whether the channel records the histograms below, channels do so
+	 * if they were created while channel histograms were enabled, see
+	 * {@link com.googlecode.acpj.Arguments#CFG_CHANNEL_HISTOGRAMS}. A channel
+	 * that does not record histograms returns <code>null</code> for each of them.
+	 * 
+	 * @return <code>true</code> if histograms are recorded.
+	 */
+	public boolean hasHistograms();
+	
+	/**
+	 * A histogram of the time individual writes have spent blocked on the channel.
+	 * 
+	 * @param reset if <code>true</code> the channel starts a new histogram, so 
+	 *        that successive snapshots each cover the interval since the last.
+	 * 
+	 * @return a snapshot of the histogram, or <code>null</code>.
+	 */
+	public LatencyHistogram getWriterBlockedHistogram(boolean reset);
+	
+	/**
+	 * A histogram of the time individual reads have spent waiting for a value 
+	 * on the channel.
+	 * 
+	 * @param reset if <code>true</code> the channel starts a new histogram.
+	 * 
+	 * @return a snapshot of the histogram, or <code>null</code>.
+	 */
+	public LatencyHistogram getReaderWaitHistogram(boolean reset);
+	
+	/**
+	 * A histogram of the time values have spent in the channel, from being 
+	 * written to being read. This is only recorded for channels that buffer
+	 * values in memory, for other channels the histogram is always empty.
+	 * 
+	 * @param reset if <code>true</code> the channel starts a new histogram.
+	 * 
+	 * @return a snapshot of the histogram, or <code>null</code>.
+	 */
+	public LatencyHistogram getResidencyHistogram(boolean reset);
 }
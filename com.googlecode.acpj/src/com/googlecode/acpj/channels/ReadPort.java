@@ -8,6 +8,9 @@
  */
 package com.googlecode.acpj.channels;
 
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
 /**
  * <p>
  * A specific port that allows reading from a channel.
@@ -41,4 +44,60 @@ public interface ReadPort<T> extends Port<T> {
 	 * @throws ChannelException if the channel is unable to complete the read request.
 	 */
 	public T read() throws IllegalStateException, ChannelException;
+
+	/**
+	 * <p>
+	 * Read and return a single value from the channel, only if one is available 
+	 * immediately, this method never blocks. For an unbuffered channel a value is 
+	 * only available if a writer is already blocked writing to the channel.
+	 * </p>
+	 * 
+	 * @return the next available value from the channel, or <code>null</code> if
+	 *         no value is available.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the read request.
+	 */
+	public T tryRead() throws IllegalStateException, ChannelException;
+
+	/**
+	 * <p>
+	 * Read and return a single value from the channel, as for {@link #read()}, but 
+	 * blocking for no longer than the given timeout.
+	 * </p>
+	 * 
+	 * @param timeout how long to wait for a value before giving up.
+	 * @param unit the unit of the <code>timeout</code> value.
+	 * 
+	 * @return the next available value from the channel, or <code>null</code> if
+	 *         the timeout expired before a value was available.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the read request.
+	 */
+	public T read(long timeout, TimeUnit unit) throws IllegalStateException, ChannelException;
+
+	/**
+	 * <p>
+	 * Read a batch of values from the channel, adding them to the provided collection 
+	 * in the order they were read. The caller is blocked, as for {@link #read()}, until
+	 * the first value is available, then any further values already buffered are taken 
+	 * without blocking, up to the maximum given. This amortizes the cost of checking
+	 * the port and channel across all the values read.
+	 * </p>
+	 * <p>
+	 * If the port has a limit then no more values than the remaining limit are read, 
+	 * and the limit is reduced by the number of values actually read.
+	 * </p>
+	 * 
+	 * @param values the collection to add the values read to.
+	 * @param maxValues the maximum number of values to read, must be greater than zero.
+	 * 
+	 * @return the number of values read, this is always at least one.
+	 * 
+	 * @throws IllegalArgumentException if the collection is null or the maximum is less than one.
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the read request.
+	 */
+	public int readBatch(Collection<? super T> values, int maxValues) throws IllegalArgumentException, IllegalStateException, ChannelException;
 }
@@ -0,0 +1,48 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Converts channel values to and from bytes, for channel implementations that
+ * hold their values outside of memory. An implementation must be safe to use 
+ * from many actors at once.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface ValueSerializer<T> {
+
+	/**
+	 * Convert a value into bytes.
+	 * 
+	 * @param value the (non-null) value to convert.
+	 * 
+	 * @return the serialized form of the value.
+	 * 
+	 * @throws IOException if the value cannot be serialized.
+	 */
+	public byte[] serialize(T value) throws IOException;
+
+	/**
+	 * Convert bytes produced by {@link #serialize(Object)} back into a value.
+	 * 
+	 * @param data the serialized form of the value.
+	 * 
+	 * @return the value.
+	 * 
+	 * @throws IOException if the value cannot be read.
+	 */
+	public T deserialize(byte[] data) throws IOException;
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.channels;
+
+/**
+ * <p>
+ * Denotes how an actor waits on a buffered channel when a read finds the
+ * buffer empty, or a write finds the buffer full. Strategies that spin trade
+ * CPU time for a faster hand-off between actors as the waiting thread does
+ * not need to be unparked by the other side.
+ * </p>
+ * <p>
+ * The strategy is set when the channel is created, see
+ * {@link ChannelFactory#createChannel(String, PortArity, int, PortArity, int, int, WaitStrategy)},
+ * otherwise the default is taken from the system property described by
+ * {@link com.googlecode.acpj.Arguments#CFG_CHANNEL_WAIT_STRATEGY}. Note that
+ * the strategy is a hint, channel implementations that cannot support it
+ * will always park the waiting thread.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public enum WaitStrategy {
+
+	/**
+	 * Spin continuously re-trying the operation, the thread is never
+	 * descheduled. Only useful where each actor has its own CPU.
+	 */
+	BUSY_SPIN,
+
+	/**
+	 * Spin for a short while and then continue re-trying the operation,
+	 * yielding the CPU between each attempt.
+	 */
+	SPIN_YIELD,
+
+	/**
+	 * Spin for a short while, then yield for a short while, and then park
+	 * the thread until the other side wakes it.
+	 */
+	SPIN_PARK,
+
+	/**
+	 * Park the thread immediately until the other side wakes it (the
+	 * default).
+	 */
+	PARK
+}
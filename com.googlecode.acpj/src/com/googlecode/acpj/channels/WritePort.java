@@ -8,6 +8,9 @@
  */
 package com.googlecode.acpj.channels;
 
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
 /**
  * <p>
  * A specific port that allows writing to a channel.
@@ -40,4 +43,61 @@ public interface WritePort<T> extends Port<T> {
 	 * @throws ChannelException if the channel is unable to complete the read request.
 	 */
 	public void write(T value) throws IllegalStateException, ChannelException;
+
+	/**
+	 * <p>
+	 * Write a single value to the channel, only if it can be accepted immediately, 
+	 * this method never blocks. For an unbuffered channel the value is only accepted 
+	 * if a reader is already blocked reading from the channel, for a buffered channel
+	 * only if the buffer is not at capacity.
+	 * </p>
+	 * 
+	 * @param value the value to write to the channel.
+	 * 
+	 * @return <code>true</code> if the value was written, else <code>false</code>.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the write request.
+	 */
+	public boolean tryWrite(T value) throws IllegalStateException, ChannelException;
+
+	/**
+	 * <p>
+	 * Write a single value to the channel, as for {@link #write(Object)}, but 
+	 * blocking for no longer than the given timeout.
+	 * </p>
+	 * 
+	 * @param value the value to write to the channel.
+	 * @param timeout how long to wait for the value to be accepted before giving up.
+	 * @param unit the unit of the <code>timeout</code> value.
+	 * 
+	 * @return <code>true</code> if the value was written, <code>false</code> if the
+	 *         timeout expired before the value was accepted.
+	 * 
+	 * @throws IllegalStateException if this port is closed.
+	 * @throws ChannelException if the channel is unable to complete the write request.
+	 */
+	public boolean write(T value, long timeout, TimeUnit unit) throws IllegalStateException, ChannelException;
+
+	/**
+	 * <p>
+	 * Write all the values in the provided collection to the channel, in the order
+	 * returned by the collection's iterator. Each value is written with the same 
+	 * blocking behavior as {@link #write(Object)}, however the port is only 
+	 * checked once for the whole collection.
+	 * </p>
+	 * <p>
+	 * If the port has a limit then it must allow all the values to be written, 
+	 * otherwise no value is written and an exception is thrown. If a write fails 
+	 * the values before it have been written, the values from it on have not and
+	 * do not count against the port limit.
+	 * </p>
+	 * 
+	 * @param values the values to write to the channel, none of which may be null.
+	 * 
+	 * @throws IllegalArgumentException if the collection, or any value in it, is null.
+	 * @throws IllegalStateException if this port is closed, or the port limit would be exceeded.
+	 * @throws ChannelException if the channel is unable to complete the write request.
+	 */
+	public void writeAll(Collection<? extends T> values) throws IllegalArgumentException, IllegalStateException, ChannelException;
 }
@@ -9,10 +9,14 @@
 package com.googlecode.acpj.internal.actors;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.googlecode.acpj.actors.Actor;
 
@@ -23,6 +27,14 @@ import com.googlecode.acpj.actors.Actor;
  * Local Storage correctly to support a <code>getCurrentActor</code> call 
  * in the same way for Executor-started threads.
  * </p>
+ * <p>
+ * The pool may also be elastic, any code that is about to block a pool thread
+ * (such as a channel read or write) should do so by way of {@link #managedBlock(ForkJoinPool.ManagedBlocker)}
+ * and an elastic pool will then add a compensating thread if no spare thread
+ * remains, the surplus threads are retired once the pool has not needed to 
+ * grow for the keep-alive period. Without this a fixed size pool whose threads are all
+ * blocked on channels can never start the queued actors that would unblock them.
+ * </p>
  * 
  * @author Simon Johnston (simon@johnstonshome.org)
  * @since 0.1.0
@@ -31,14 +43,195 @@ import com.googlecode.acpj.actors.Actor;
 public class ActorPoolExecutor extends ThreadPoolExecutor {
 
 	private static AtomicLong serialNumberGenerator = new AtomicLong(0);
-    private static ThreadLocal<Actor> currentActor = new ThreadLocal<Actor>();
+    private static ThreadLocal<ActorPoolExecutor> currentPool = new ThreadLocal<ActorPoolExecutor>();
+    
+    /*
+     * The pool size when no thread is blocked, the core size is raised above 
+     * this by one each time a thread blocks while no spare thread remains, and
+     * lowered back at most once per keep-alive period.
+     */
+    private final int basePoolSize;
+    private final boolean elastic;
+    private final AtomicInteger running = new AtomicInteger(0);
+    private final AtomicInteger blocked = new AtomicInteger(0);
+    private final AtomicLong compensations = new AtomicLong(0);
+    private final Lock resizeLock = new ReentrantLock();
+    private volatile long lastResize = System.nanoTime();
+    
+    /**
+     * Create a fixed size pool and add it to those reported by the actor pool
+     * MXBean.
+     * 
+     * @param poolSize the number of threads in the pool.
+     * 
+     * @return the new pool.
+     */
+    public static ActorPoolExecutor createPool(int poolSize) {
+    	final ActorPoolExecutor pool = new ActorPoolExecutor(poolSize);
+    	ActorPoolManagement.register(pool);
+    	return pool;
+    }
+    
+    /**
+     * Create an elastic pool, as {@link #ActorPoolExecutor(int, int)}, and add 
+     * it to those reported by the actor pool MXBean.
+     * 
+     * @param poolSize the number of threads in the pool when none are blocked.
+     * @param maximumPoolSize the number of threads the pool may grow to while
+     *        compensating for blocked threads.
+     * 
+     * @return the new pool.
+     */
+    public static ActorPoolExecutor createPool(int poolSize, int maximumPoolSize) {
+    	final ActorPoolExecutor pool = new ActorPoolExecutor(poolSize, maximumPoolSize);
+    	ActorPoolManagement.register(pool);
+    	return pool;
+    }
     
+    /**
+     * Create a fixed size pool.
+     * 
+     * @param poolSize the number of threads in the pool.
+     */
     public ActorPoolExecutor(int poolSize) {
 		this(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
 	}
 
+    /**
+     * Create an elastic pool, if <code>maximumPoolSize</code> is greater than
+     * <code>poolSize</code>, otherwise a fixed size pool.
+     * 
+     * @param poolSize the number of threads in the pool when none are blocked.
+     * @param maximumPoolSize the number of threads the pool may grow to while
+     *        compensating for blocked threads.
+     */
+    public ActorPoolExecutor(int poolSize, int maximumPoolSize) {
+		this(poolSize, Math.max(poolSize, maximumPoolSize), 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+	}
+
 	protected ActorPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue) {
 		super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue);
+		this.basePoolSize = corePoolSize;
+		this.elastic = maximumPoolSize > corePoolSize;
+	}
+	
+	/**
+	 * Run a blocking operation on the current thread. If the thread belongs to an
+	 * elastic <code>ActorPoolExecutor</code> the pool will compensate for it while 
+	 * it is blocked, if the thread belongs to a {@link java.util.concurrent.ForkJoinPool}
+	 * that pool will compensate in the same way, otherwise the operation is simply
+	 * run.
+	 * 
+	 * @param blocker the blocking operation.
+	 * 
+	 * @throws InterruptedException if the thread was interrupted while blocked.
+	 */
+	public static void managedBlock(ForkJoinPool.ManagedBlocker blocker) throws InterruptedException {
+		final ActorPoolExecutor pool = currentPool.get();
+		if (pool == null) {
+			ForkJoinPool.managedBlock(blocker);
+		} else {
+			pool.block(blocker);
+		}
+	}
+	
+	private void block(ForkJoinPool.ManagedBlocker blocker) throws InterruptedException {
+		if (!this.elastic || blocker.isReleasable()) {
+			ForkJoinPool.managedBlock(blocker);
+			return;
+		}
+		this.blocked.incrementAndGet();
+		grow();
+		try {
+			ForkJoinPool.managedBlock(blocker);
+		} finally {
+			this.blocked.decrementAndGet();
+		}
+	}
+	
+	/*
+	 * The blocked thread still counts as running, so while fewer threads are 
+	 * running than the core size there is a spare thread (or one may be started) 
+	 * for queued actors and there is no need to grow. Raising the core size only 
+	 * starts a new thread if there are queued actors, or when the next is queued.
+	 */
+	private void grow() {
+		if (this.running.get() < getCorePoolSize()) {
+			return;
+		}
+		this.resizeLock.lock();
+		try {
+			final int current = getCorePoolSize();
+			if (this.running.get() >= current && current < getMaximumPoolSize()) {
+				this.compensations.incrementAndGet();
+				setCorePoolSize(current + 1);
+				this.lastResize = System.nanoTime();
+			}
+		} finally {
+			this.resizeLock.unlock();
+		}
+	}
+	
+	/*
+	 * Lowering the core size interrupts the idle threads so that the surplus 
+	 * ones exit, rather than do this as each blocked thread resumes the core 
+	 * size is only lowered once no resize has happened for the keep-alive period.
+	 */
+	private void shrink() {
+		if (getCorePoolSize() <= this.basePoolSize 
+				|| System.nanoTime() - this.lastResize < getKeepAliveTime(TimeUnit.NANOSECONDS)) {
+			return;
+		}
+		if (this.resizeLock.tryLock()) {
+			try {
+				final int current = getCorePoolSize();
+				final int target = Math.max(this.basePoolSize, this.running.get());
+				if (target < current) {
+					setCorePoolSize(target);
+				}
+				this.lastResize = System.nanoTime();
+			} finally {
+				this.resizeLock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Whether this pool compensates for blocked threads.
+	 * 
+	 * @return <code>true</code> if the pool is elastic.
+	 */
+	public boolean isElastic() {
+		return this.elastic;
+	}
+	
+	/**
+	 * The number of pool threads currently blocked in a managed blocking operation.
+	 * 
+	 * @return the number of blocked threads.
+	 */
+	public int getBlockedCount() {
+		return this.blocked.get();
+	}
+	
+	/**
+	 * The number of actors that have been submitted to the pool but have not yet
+	 * been started.
+	 * 
+	 * @return the number of queued actors.
+	 */
+	public int getQueuedCount() {
+		return getQueue().size();
+	}
+	
+	/**
+	 * The total number of times the pool has grown to compensate for a blocked
+	 * thread.
+	 * 
+	 * @return the number of compensations.
+	 */
+	public long getCompensationCount() {
+		return this.compensations.get();
 	}
 	
 	/*
@@ -48,12 +241,11 @@ public class ActorPoolExecutor extends ThreadPoolExecutor {
 	@Override
 	protected void beforeExecute(Thread t, Runnable r) {
 		super.beforeExecute(t, r);
-		try {
+		this.running.incrementAndGet();
+		currentPool.set(this);
+		if (r instanceof ExecutorBasedActor) {
 			ExecutorBasedActor actor = (ExecutorBasedActor)r;
 			actor.setLocalId(serialNumberGenerator.getAndIncrement());
-	    	currentActor.set(actor);
-		} catch (Throwable tx) {
-			tx.printStackTrace();
 		}
 	}
 	
@@ -64,15 +256,23 @@ public class ActorPoolExecutor extends ThreadPoolExecutor {
 	@Override
 	protected void afterExecute(Runnable r, Throwable t) {
 		super.afterExecute(r, t);
+		this.running.decrementAndGet();
 		try {
-			currentActor.remove();
+			currentPool.remove();
 		} catch (Throwable tx) {
 			tx.printStackTrace();
 		}
+		if (this.elastic) {
+			shrink();
+		}
 	}
 
     public static Actor getCurrentActor() {
-    	Actor current = currentActor.get();
-    	return current == null ? new ExecutorBasedActor() : current;
+    	Actor current = CurrentActor.get();
+    	if (current == null) {
+    		current = new ExecutorBasedActor();
+    		CurrentActor.set(current);
+    	}
+    	return current;
     }
 }
@@ -0,0 +1,170 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.actors;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.googlecode.acpj.internal.management.ActorPoolMXBean;
+import com.googlecode.acpj.internal.management.Management;
+import com.googlecode.acpj.internal.management.RateSampler;
+
+/**
+ * <p>
+ * Internal - the single MXBean that aggregates the metrics of all the actor
+ * pools. All pools created by {@link ActorPoolExecutor#createPool(int, int)} are tracked,
+ * weakly, and the MXBean is registered with the first pool created while JMX
+ * is enabled.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+class ActorPoolManagement implements ActorPoolMXBean {
+
+	private static final List<WeakReference<ActorPoolExecutor>> pools = new CopyOnWriteArrayList<WeakReference<ActorPoolExecutor>>();
+	private static boolean registered = false;
+	
+	private final RateSampler completedRate = new RateSampler();
+	
+	/**
+	 * Add the pool to those reported by the MXBean, registering the MXBean
+	 * if necessary.
+	 * 
+	 * @param pool a newly created, and fully constructed, pool.
+	 */
+	static void register(ActorPoolExecutor pool) {
+		pools.add(new WeakReference<ActorPoolExecutor>(pool));
+		synchronized (pools) {
+			if (!registered && Management.isEnabled()) {
+				Management.register(new ActorPoolManagement(), Management.createName(Management.TYPE_ACTOR_POOL, null));
+				registered = true;
+			}
+		}
+	}
+	
+	/*
+	 * Return the live pools, dropping any that have been collected.
+	 */
+	private static List<ActorPoolExecutor> getPools() {
+		final List<ActorPoolExecutor> live = new ArrayList<ActorPoolExecutor>(pools.size());
+		for (WeakReference<ActorPoolExecutor> reference : pools) {
+			final ActorPoolExecutor pool = reference.get();
+			if (pool == null) {
+				pools.remove(reference);
+			} else {
+				live.add(pool);
+			}
+		}
+		return live;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getPoolCount()
+	 */
+	public int getPoolCount() {
+		return getPools().size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getPoolSize()
+	 */
+	public int getPoolSize() {
+		int total = 0;
+		for (ActorPoolExecutor pool : getPools()) {
+			total += pool.getPoolSize();
+		}
+		return total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getLargestPoolSize()
+	 */
+	public int getLargestPoolSize() {
+		int total = 0;
+		for (ActorPoolExecutor pool : getPools()) {
+			total += pool.getLargestPoolSize();
+		}
+		return total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getActiveCount()
+	 */
+	public int getActiveCount() {
+		int total = 0;
+		for (ActorPoolExecutor pool : getPools()) {
+			total += pool.getActiveCount();
+		}
+		return total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getQueuedCount()
+	 */
+	public int getQueuedCount() {
+		int total = 0;
+		for (ActorPoolExecutor pool : getPools()) {
+			total += pool.getQueuedCount();
+		}
+		return total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getCompletedCount()
+	 */
+	public long getCompletedCount() {
+		long total = 0L;
+		for (ActorPoolExecutor pool : getPools()) {
+			total += pool.getCompletedTaskCount();
+		}
+		return total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getCompletedRate()
+	 */
+	public double getCompletedRate() {
+		return this.completedRate.sample(getCompletedCount());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getBlockedCount()
+	 */
+	public int getBlockedCount() {
+		int total = 0;
+		for (ActorPoolExecutor pool : getPools()) {
+			total += pool.getBlockedCount();
+		}
+		return total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ActorPoolMXBean#getCompensationCount()
+	 */
+	public long getCompensationCount() {
+		long total = 0L;
+		for (ActorPoolExecutor pool : getPools()) {
+			total += pool.getCompensationCount();
+		}
+		return total;
+	}
+}
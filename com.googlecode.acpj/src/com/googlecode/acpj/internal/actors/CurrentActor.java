@@ -0,0 +1,72 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.actors;
+
+import com.googlecode.acpj.actors.Actor;
+
+/**
+ * <p>
+ * Internal - the single per-thread slot that holds the actor currently running
+ * on a thread, shared by all the actor implementations. The actor is set when it
+ * starts running (by {@link WatchableActor} or, for message driven actors, by the
+ * dispatcher) and threads that are not running an actor cache the actor created
+ * to represent them the first time they ask. This means that the actor returned
+ * by {@link com.googlecode.acpj.actors.ActorFactory#getCurrentActor()} is always
+ * the same instance for the same actor, and can be compared by reference, and
+ * that no actor is allocated per call.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public final class CurrentActor {
+
+	private static final ThreadLocal<Actor> current = new ThreadLocal<Actor>();
+
+	private CurrentActor() {
+	}
+
+	/**
+	 * Retrieve the actor running on the current thread.
+	 * 
+	 * @return the current actor, or <code>null</code> if none has been set.
+	 */
+	public static Actor get() {
+		return current.get();
+	}
+
+	/**
+	 * Set the actor running on the current thread.
+	 * 
+	 * @param actor the actor now running.
+	 * 
+	 * @return the actor previously set, which should be passed to 
+	 *         {@link #restore(Actor)} once the actor stops running.
+	 */
+	public static Actor set(Actor actor) {
+		final Actor previous = current.get();
+		current.set(actor);
+		return previous;
+	}
+
+	/**
+	 * Restore the actor that was running on the current thread before a call 
+	 * to {@link #set(Actor)}.
+	 * 
+	 * @param previous the actor to restore, may be <code>null</code>.
+	 */
+	public static void restore(Actor previous) {
+		if (previous == null) {
+			current.remove();
+		} else {
+			current.set(previous);
+		}
+	}
+}
@@ -9,6 +9,7 @@
 package com.googlecode.acpj.internal.actors;
 
 import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.internal.config.Configuration;
 
 /**
  * <p>
@@ -25,8 +26,22 @@ public class ExecutorBasedActor implements Actor, Runnable {
 	private static ActorPoolExecutor threadExecutor;
 	
 	static {
-		int processors = Runtime.getRuntime().availableProcessors();
-		threadExecutor = new ActorPoolExecutor(processors * 8);
+		int poolSize = Configuration.getThreadPoolSize();
+		if (Configuration.getThreadPoolElastic()) {
+			threadExecutor = ActorPoolExecutor.createPool(poolSize, Configuration.getThreadPoolMaxSize());
+		} else {
+			threadExecutor = ActorPoolExecutor.createPool(poolSize);
+		}
+	}
+	
+	/**
+	 * Return the pool used to run all executor based actors, this is mainly of
+	 * use for its metrics.
+	 * 
+	 * @return the shared actor pool.
+	 */
+	public static ActorPoolExecutor getExecutor() {
+		return threadExecutor;
 	}
 	
 	private long id = -1;
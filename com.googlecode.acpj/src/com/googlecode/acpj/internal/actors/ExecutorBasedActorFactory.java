@@ -10,6 +10,9 @@ package com.googlecode.acpj.internal.actors;
 
 import com.googlecode.acpj.actors.Actor;
 import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.actors.MessageHandler;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ReadPort;
 
 /**
  * <p>
@@ -41,6 +44,15 @@ public class ExecutorBasedActorFactory extends ActorFactory {
 		return new ExecutorBasedActor(runnable, name);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createMessageDrivenActor(com.googlecode.acpj.channels.ReadPort, com.googlecode.acpj.actors.MessageHandler, java.lang.String)
+	 */
+	@Override
+	protected <T> Actor createMessageDrivenActor(ReadPort<T> port, MessageHandler<? super T> handler, String name) throws IllegalArgumentException, ChannelException {
+		return new MessageDrivenActor<T>(port, handler, name);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.actors.ActorFactory#getCurrentActor()
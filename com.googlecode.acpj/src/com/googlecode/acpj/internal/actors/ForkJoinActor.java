@@ -0,0 +1,92 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.actors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.googlecode.acpj.actors.Actor;
+
+/**
+ * <p>
+ * Internal - implementation of {@link com.googlecode.acpj.actors.Actor} for
+ * use with {@link ForkJoinActorFactory}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class ForkJoinActor implements Actor, Runnable {
+
+	private static AtomicLong serialNumberGenerator = new AtomicLong(0);
+
+	private long id = serialNumberGenerator.getAndIncrement();
+	private String name = null;
+	private volatile boolean running = true;
+	private Runnable actual = null;
+
+	ForkJoinActor(Runnable actual, String name) {
+		if (actual == null) {
+			throw new IllegalArgumentException("Runnable may not be null");
+		}
+		this.actual = actual;
+		this.name = name;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.Actor#getLocalId()
+	 */
+	public long getLocalId() {
+		return this.id;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.Actor#getName()
+	 */
+	public String getName() {
+		if (this.name == null) {
+			return String.format("actor:/%d", getLocalId());
+		} else {
+			return String.format("actor:/%s/%d", this.name, getLocalId());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.Actor#isRunning()
+	 */
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		try {
+			new WatchableActor(this, this.actual).run();
+		} catch (Throwable t) {
+			t.printStackTrace();
+		} finally {
+			this.running = false;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
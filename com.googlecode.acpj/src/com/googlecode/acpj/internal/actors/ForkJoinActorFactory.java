@@ -0,0 +1,201 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.actors;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.actors.MessageHandler;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.internal.config.Configuration;
+
+/**
+ * <p>
+ * Internal - implementation of {@link com.googlecode.acpj.actors.ActorFactory} that
+ * runs actors on a work-stealing {@link java.util.concurrent.ForkJoinPool}. Each
+ * pool thread has its own queue, an actor created by another actor is queued on
+ * the creating thread, and idle threads steal actors from the others rather than
+ * all contending on a single shared queue. Actors blocked on a channel are 
+ * compensated for by the pool (see {@link ActorPoolExecutor#managedBlock(ForkJoinPool.ManagedBlocker)}).
+ * </p>
+ * <p>
+ * Actors created with the same affinity hint (see
+ * {@link #createActor(Runnable, String, Object)}) before any of them has started
+ * are launched together, from a single pool thread, so that they start out in 
+ * the same queue and tend to run on the same thread.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class ForkJoinActorFactory extends ActorFactory {
+
+	/*
+	 * Launches a group of actors that share an affinity hint, all actors added 
+	 * before the launcher runs are forked from the thread that runs it.
+	 */
+	private final class Launcher implements Runnable {
+		private final Object affinity;
+		private final ConcurrentLinkedQueue<ForkJoinTask<?>> members = new ConcurrentLinkedQueue<ForkJoinTask<?>>();
+		private volatile boolean launched = false;
+
+		Launcher(Object affinity) {
+			this.affinity = affinity;
+		}
+
+		/*
+		 * Returns false if the group has already been launched, in which case
+		 * the task has not been added.
+		 */
+		boolean add(ForkJoinTask<?> task) {
+			this.members.add(task);
+			if (this.launched) {
+				return !this.members.remove(task);
+			}
+			return true;
+		}
+
+		public void run() {
+			ForkJoinActorFactory.this.groups.remove(this.affinity, this);
+			ForkJoinActorFactory.this.launches.incrementAndGet();
+			this.launched = true;
+			ForkJoinTask<?> task = null;
+			while ((task = this.members.poll()) != null) {
+				task.fork();
+			}
+		}
+	}
+
+	private final ForkJoinPool pool;
+
+	private final ConcurrentMap<Object, Launcher> groups = new ConcurrentHashMap<Object, Launcher>();
+	
+	private final AtomicLong launches = new AtomicLong(0);
+
+	public ForkJoinActorFactory() {
+		final int parallelism = Configuration.getThreadPoolSize();
+		this.pool = new ForkJoinPool(
+				parallelism,
+				ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+				null,
+				false,
+				0,
+				Math.max(parallelism, Configuration.getThreadPoolMaxSize()),
+				1,
+				null,
+				60L,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Return the pool used to run actors created by this factory, this is mainly
+	 * of use for its metrics.
+	 * 
+	 * @return the actor pool.
+	 */
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * The total number of affinity groups launched, actors created with the 
+	 * same affinity hint before their group is launched share a group.
+	 * 
+	 * @return the number of groups launched.
+	 */
+	public long getGroupCount() {
+		return this.launches.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createActor(java.lang.Runnable)
+	 */
+	@Override
+	public Actor createActor(Runnable runnable) {
+		final ForkJoinActor actor = new ForkJoinActor(runnable, null);
+		this.pool.execute(actor);
+		return actor;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createActor(java.lang.Runnable, java.lang.String)
+	 */
+	@Override
+	public Actor createActor(Runnable runnable, String name) {
+		if (name == null) {
+			throw new IllegalArgumentException("Runnable name may not be null");
+		}
+		final ForkJoinActor actor = new ForkJoinActor(runnable, name);
+		this.pool.execute(actor);
+		return actor;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createActor(java.lang.Runnable, java.lang.String, java.lang.Object)
+	 */
+	@Override
+	public Actor createActor(Runnable runnable, String name, Object affinity) {
+		if (affinity == null) {
+			return name == null ? createActor(runnable) : createActor(runnable, name);
+		}
+		final ForkJoinActor actor = new ForkJoinActor(runnable, name);
+		final ForkJoinTask<?> task = ForkJoinTask.adapt(actor);
+		while (true) {
+			Launcher launcher = this.groups.get(affinity);
+			if (launcher == null) {
+				launcher = new Launcher(affinity);
+				final Launcher existing = this.groups.putIfAbsent(affinity, launcher);
+				if (existing == null) {
+					launcher.add(task);
+					this.pool.execute(launcher);
+					break;
+				}
+				launcher = existing;
+			}
+			if (launcher.add(task)) {
+				break;
+			}
+			/*
+			 * The group was launched while we were adding to it, start a new one.
+			 */
+			this.groups.remove(affinity, launcher);
+		}
+		return actor;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createMessageDrivenActor(com.googlecode.acpj.channels.ReadPort, com.googlecode.acpj.actors.MessageHandler, java.lang.String)
+	 */
+	@Override
+	protected <T> Actor createMessageDrivenActor(ReadPort<T> port, MessageHandler<? super T> handler, String name) throws IllegalArgumentException, ChannelException {
+		return new MessageDrivenActor<T>(port, handler, name);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#getCurrentActor()
+	 */
+	@Override
+	public Actor getCurrentActor() {
+		return ThreadBasedActor.getCurrentActor();
+	}
+}
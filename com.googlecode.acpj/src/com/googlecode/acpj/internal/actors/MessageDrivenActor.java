@@ -0,0 +1,223 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.actors;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.actors.MessageHandler;
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ChannelPoisonedException;
+import com.googlecode.acpj.channels.ChannelRegistry;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.internal.channels.SimplePort;
+import com.googlecode.acpj.internal.channels.SimpleReadPort;
+import com.googlecode.acpj.internal.config.Configuration;
+import com.googlecode.acpj.services.ActorState;
+import com.googlecode.acpj.services.ActorStateMessage;
+import com.googlecode.acpj.services.WatchdogService;
+
+/**
+ * <p>
+ * Internal - implementation of an event-driven {@link com.googlecode.acpj.actors.Actor}
+ * whose body is a {@link com.googlecode.acpj.actors.MessageHandler}. The actor 
+ * listens on the channel of its read port and is only submitted to the shared
+ * dispatch pool when the channel has a value ready, it then reads and handles
+ * up to {@link #DISPATCH_BATCH} values before giving the thread up to the next
+ * actor. All message driven actors share a pool of one thread per processor,
+ * the pool is elastic so a handler that does block does not stall the others.
+ * </p>
+ * <p>
+ * While the handler runs this actor is the current actor for the dispatching 
+ * thread, see {@link CurrentActor}, so that it may use the ports it owns.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class MessageDrivenActor<T> implements Actor {
+
+	/**
+	 * The maximum number of values handled each time the actor is dispatched. 
+	 */
+	public static final int DISPATCH_BATCH = 64;
+
+	private static AtomicLong serialNumberGenerator = new AtomicLong(0);
+	private static ActorPoolExecutor dispatcher;
+
+	static {
+		final int processors = Runtime.getRuntime().availableProcessors();
+		dispatcher = ActorPoolExecutor.createPool(processors, Math.max(processors, Configuration.getThreadPoolMaxSize()));
+		dispatcher.setThreadFactory(new ThreadFactory() {
+			private final AtomicLong count = new AtomicLong(0);
+			public Thread newThread(Runnable runnable) {
+				final Thread thread = new Thread(runnable, String.format("dispatcher-%d", this.count.incrementAndGet()));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private long id = serialNumberGenerator.getAndIncrement();
+	private String name = null;
+	private volatile boolean running = true;
+
+	private SimpleReadPort<T> port = null;
+	private MessageHandler<? super T> handler = null;
+
+	/*
+	 * Set by the listener when the actor is submitted, and cleared by the 
+	 * dispatch once it has finished reading, so that the actor is never in 
+	 * the dispatch queue more than once nor run concurrently.
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	private final Runnable listener = new Runnable() {
+		public void run() {
+			schedule();
+		}
+	};
+
+	private final Runnable dispatch = new Runnable() {
+		public void run() {
+			dispatch();
+		}
+	};
+
+	public MessageDrivenActor(ReadPort<T> port, MessageHandler<? super T> handler, String name) {
+		if (!(port instanceof SimpleReadPort<?>)) {
+			throw new IllegalArgumentException("Port is not supported by this actor.");
+		}
+		if (handler == null) {
+			throw new IllegalArgumentException("Handler may not be null");
+		}
+		this.port = (SimpleReadPort<T>)port;
+		this.handler = handler;
+		this.name = name;
+		/*
+		 * Transfer ownership of the port from the caller to this actor.
+		 */
+		if (this.port.getOwningActor() != null) {
+			this.port.release();
+		}
+		final Actor previous = CurrentActor.set(this);
+		try {
+			this.port.claim();
+		} finally {
+			CurrentActor.restore(previous);
+		}
+		report(ActorState.STARTED, null);
+		this.port.addListener(this.listener);
+		/*
+		 * Values may have been written before the listener was added.
+		 */
+		if (this.port.isReady()) {
+			schedule();
+		}
+	}
+
+	private void schedule() {
+		if (this.running && this.scheduled.compareAndSet(false, true)) {
+			dispatcher.execute(this.dispatch);
+		}
+	}
+
+	private void dispatch() {
+		final Actor previous = CurrentActor.set(this);
+		try {
+			for (int i = 0; i < DISPATCH_BATCH; i++) {
+				if (this.port.getLimit() == SimplePort.PORT_LIMIT_EXCEEDED) {
+					finish(ActorState.FINISHED, null);
+					return;
+				}
+				final T value = this.port.tryRead();
+				if (value == null) {
+					break;
+				}
+				this.handler.onMessage(value);
+			}
+		} catch (ChannelPoisonedException e) {
+			finish(ActorState.FINISHED, null);
+			return;
+		} catch (Throwable t) {
+			finish(ActorState.DIED, t);
+			return;
+		} finally {
+			CurrentActor.restore(previous);
+		}
+		this.scheduled.set(false);
+		/*
+		 * A value may have arrived after the last read but before the flag was
+		 * cleared, in which case the listener will not have scheduled us.
+		 */
+		if (this.port.isReady()) {
+			schedule();
+		}
+	}
+
+	private void finish(ActorState state, Throwable t) {
+		this.running = false;
+		this.port.removeListener(this.listener);
+		report(state, t);
+	}
+
+	private void report(ActorState state, Throwable t) throws ChannelException {
+		final Channel<ActorStateMessage> watchdogChannel = ChannelRegistry.getInstance().lookupOrNull(WatchdogService.CHANNEL_NAME);
+		if (watchdogChannel != null) {
+			final WritePort<ActorStateMessage> watchdogPort = watchdogChannel.getWritePort(true);
+			if (t == null) {
+				watchdogPort.write(new ActorStateMessage(getName(), state));
+			} else {
+				watchdogPort.write(new ActorStateMessage(String.format("%s (%s)", getName(), t.toString()), state));
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.Actor#getLocalId()
+	 */
+	public long getLocalId() {
+		return this.id;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.Actor#getName()
+	 */
+	public String getName() {
+		if (this.name == null) {
+			return String.format("actor:/%d", getLocalId());
+		} else {
+			return String.format("actor:/%s/%d", this.name, getLocalId());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.Actor#isRunning()
+	 */
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
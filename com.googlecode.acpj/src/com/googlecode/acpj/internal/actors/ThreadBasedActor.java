@@ -8,6 +8,8 @@
  */
 package com.googlecode.acpj.internal.actors;
 
+import java.util.concurrent.ThreadFactory;
+
 import com.googlecode.acpj.actors.Actor;
 
 /**
@@ -49,10 +51,43 @@ public class ThreadBasedActor implements Actor {
 		Thread.yield();
 	}
 	
+	/*
+	 * Used by factories that create the actor's thread some other way, the 
+	 * name is optional.
+	 */
+	ThreadBasedActor(Runnable actual, String name, ThreadFactory threadFactory) {
+		if (actual == null) {
+			throw new IllegalArgumentException("Runnable may not be null");
+		}
+		this.thread = threadFactory.newThread(new WatchableActor(this, actual));
+		if (name == null) {
+			this.thread.setName(String.format("actor:/%d", this.thread.getId()));
+		} else {
+			this.thread.setName(String.format("actor:/%s/%d", name, this.thread.getId()));
+		}
+		this.thread.start();
+	}
+	
 	public ThreadBasedActor() {
 		this.thread = Thread.currentThread();
 	}
 	
+	/**
+	 * Retrieve the actor running on the current thread, if the thread is not
+	 * running an actor then an actor representing the thread is created once
+	 * and reused.
+	 * 
+	 * @return the current actor.
+	 */
+	static Actor getCurrentActor() {
+		Actor current = CurrentActor.get();
+		if (current == null) {
+			current = new ThreadBasedActor();
+			CurrentActor.set(current);
+		}
+		return current;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.actors.Actor#getLocalId()
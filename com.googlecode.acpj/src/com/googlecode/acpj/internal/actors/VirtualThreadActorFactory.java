@@ -0,0 +1,114 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.actors;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.actors.ActorException;
+import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.actors.MessageHandler;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ReadPort;
+
+/**
+ * <p>
+ * Internal - implementation of {@link com.googlecode.acpj.actors.ActorFactory} that
+ * runs each actor on its own virtual thread. Virtual threads are cheap to create and
+ * an actor blocked on a channel does not hold an operating system thread, so very
+ * large numbers of mostly idle actors can be supported.
+ * </p>
+ * <p>
+ * The library is built for older Java runtimes so the virtual thread factory is
+ * located reflectively, if the current runtime does not support virtual threads
+ * the factory cannot be created and an {@link com.googlecode.acpj.actors.ActorException}
+ * is thrown.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class VirtualThreadActorFactory extends ActorFactory {
+
+	private ThreadFactory threadFactory = null;
+
+	public VirtualThreadActorFactory() {
+		this.threadFactory = createVirtualThreadFactory();
+	}
+
+	/**
+	 * Determine whether the current Java runtime supports virtual threads, and
+	 * therefore whether this factory may be used.
+	 * 
+	 * @return <code>true</code> if virtual threads are supported.
+	 */
+	public static boolean isSupported() {
+		try {
+			createVirtualThreadFactory();
+			return true;
+		} catch (ActorException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createActor(java.lang.Runnable)
+	 */
+	@Override
+	public Actor createActor(Runnable runnable) {
+		return new ThreadBasedActor(runnable, null, this.threadFactory);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createActor(java.lang.Runnable, java.lang.String)
+	 */
+	@Override
+	public Actor createActor(Runnable runnable, String name) {
+		if (name == null) {
+			throw new IllegalArgumentException("Runnable name may not be null");
+		}
+		return new ThreadBasedActor(runnable, name, this.threadFactory);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#createMessageDrivenActor(com.googlecode.acpj.channels.ReadPort, com.googlecode.acpj.actors.MessageHandler, java.lang.String)
+	 */
+	@Override
+	protected <T> Actor createMessageDrivenActor(ReadPort<T> port, MessageHandler<? super T> handler, String name) throws IllegalArgumentException, ChannelException {
+		return new MessageDrivenActor<T>(port, handler, name);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.actors.ActorFactory#getCurrentActor()
+	 */
+	@Override
+	public Actor getCurrentActor() {
+		return ThreadBasedActor.getCurrentActor();
+	}
+
+	/*
+	 * Equivalent to Thread.ofVirtual().factory().
+	 */
+	private static ThreadFactory createVirtualThreadFactory() throws ActorException {
+		try {
+			final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			final Method factory = builderClass.getMethod("factory");
+			return (ThreadFactory)factory.invoke(ofVirtual.invoke(null));
+		} catch (Exception e) {
+			throw new ActorException("Virtual threads are not supported by this Java runtime.", e);
+		}
+	}
+}
@@ -41,6 +41,15 @@ public class WatchableActor implements Runnable {
 	 * @see java.lang.Runnable#run()
 	 */
 	public void run() {
+		final Actor previous = CurrentActor.set(this.actor);
+		try {
+			watch();
+		} finally {
+			CurrentActor.restore(previous);
+		}
+	}
+	
+	private void watch() {
 		Channel<ActorStateMessage> watchdogChannel = ChannelRegistry.getInstance().lookupOrNull(WatchdogService.CHANNEL_NAME);
 		WritePort<ActorStateMessage> watchdogPort = null;
 		if (watchdogChannel != null) {
@@ -0,0 +1,482 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.googlecode.acpj.channels.WaitStrategy;
+
+/**
+ * <p>
+ * Internal - common implementation of the standard Java interface
+ * {@link java.util.concurrent.BlockingQueue} for the lock-free queues used by
+ * {@link SimpleChannel} as channel buffers. Sub-classes provide only the
+ * non-blocking {@link #tryInsert(Object)} and {@link #tryExtract()} operations,
+ * this class then provides the blocking and timed operations by parking
+ * threads only when the queue is full (writers) or empty (readers). How long,
+ * if at all, a thread spins re-trying the operation before it is parked is
+ * determined by the {@link com.googlecode.acpj.channels.WaitStrategy} given
+ * when the queue is created.
+ * </p>
+ * <p>
+ * WARNING: as with {@link ZeroBlockingQueue} this is not a complete
+ * implementation of the Collection API, the iterator and the operations
+ * that depend on it raise {@link java.lang.UnsupportedOperationException}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public abstract class AbstractLockFreeBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>, PoisonableQueue<E> {
+
+	/*
+	 * The number of times an operation is re-tried by spinning, and then by
+	 * yielding, before a thread following SPIN_PARK is parked.
+	 */
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 10;
+
+	private final Waiters notEmpty = new Waiters();
+	private final Waiters notFull = new Waiters();
+
+	private final WaitStrategy waitStrategy;
+
+	private volatile E sentinel = null;
+
+	protected AbstractLockFreeBlockingQueue() {
+		this(WaitStrategy.PARK);
+	}
+
+	protected AbstractLockFreeBlockingQueue(WaitStrategy waitStrategy) {
+		if (waitStrategy == null) {
+			throw new NullPointerException();
+		}
+		this.waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * Attempt to insert the value without blocking.
+	 * 
+	 * @param value the (non-null) value to insert.
+	 * 
+	 * @return <code>true</code> if the value was inserted, <code>false</code>
+	 *         if the queue is full.
+	 */
+	protected abstract boolean tryInsert(E value);
+
+	/**
+	 * Attempt to remove the value at the head of the queue without blocking.
+	 * 
+	 * @return the value removed, or <code>null</code> if the queue is empty.
+	 */
+	protected abstract E tryExtract();
+
+	/**
+	 * The logical capacity of the queue, note that this may be smaller than
+	 * any underlying storage.
+	 * 
+	 * @return the maximum number of values the queue will hold.
+	 */
+	public abstract int capacity();
+
+	/**
+	 * Determine whether an insert would currently fail, used by 
+	 * {@link #awaitNotFull()} before parking. Subclasses where a slot may be
+	 * unavailable for longer than the size suggests override this.
+	 * 
+	 * @return <code>true</code> if the queue is full.
+	 */
+	protected boolean isFull() {
+		return size() >= capacity();
+	}
+
+	/**
+	 * The strategy followed by threads waiting for the queue to become not 
+	 * full (writers) or not empty (readers).
+	 * 
+	 * @return the wait strategy for this queue.
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return this.waitStrategy;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.PoisonableQueue#poison(java.lang.Object)
+	 */
+	public void poison(E sentinel) {
+		if (sentinel == null) {
+			throw new NullPointerException();
+		}
+		this.sentinel = sentinel;
+		this.notEmpty.signalAll();
+		this.notFull.signalAll();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#offer(java.lang.Object)
+	 */
+	public boolean offer(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		if (this.sentinel == null && tryInsert(value)) {
+			this.notEmpty.signal();
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object, long, java.util.concurrent.TimeUnit)
+	 */
+	public boolean offer(E value, long timeout, TimeUnit unit) throws InterruptedException {
+		if (offer(value)) {
+			return true;
+		}
+		return awaitInsert(value, true, unit.toNanos(timeout));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#put(java.lang.Object)
+	 */
+	public void put(E value) throws InterruptedException {
+		if (!offer(value)) {
+			awaitInsert(value, false, 0L);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#poll()
+	 */
+	public E poll() {
+		final E value = tryExtract();
+		if (value != null) {
+			this.notFull.signal();
+			return value;
+		}
+		return this.sentinel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#poll(long, java.util.concurrent.TimeUnit)
+	 */
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		final E value = poll();
+		if (value != null) {
+			return value;
+		}
+		return awaitExtract(true, unit.toNanos(timeout));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#take()
+	 */
+	public E take() throws InterruptedException {
+		final E value = poll();
+		if (value != null) {
+			return value;
+		}
+		return awaitExtract(false, 0L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#remainingCapacity()
+	 */
+	public int remainingCapacity() {
+		return capacity() - size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection)
+	 */
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection, int)
+	 */
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		if (c == null) {
+			throw new NullPointerException();
+		}
+		if (c == this) {
+			throw new IllegalArgumentException();
+		}
+		int count = 0;
+		E value = null;
+		while (count < maxElements && (value = tryExtract()) != null) {
+			c.add(value);
+			count++;
+		}
+		for (int i = 0; i < count && !this.notFull.isEmpty(); i++) {
+			this.notFull.signal();
+		}
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#peek()
+	 */
+	public E peek() {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Collection#iterator()
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s[%d/%d]", getClass().getSimpleName(), size(), capacity());
+	}
+
+	/*
+	 * Re-try the insert according to the wait strategy, returns false if the
+	 * thread should now park (the caller will re-check the poisoned and timed
+	 * out conditions).
+	 */
+	private boolean spinInsert(E value, boolean timed, long deadline) throws InterruptedException {
+		for (int tries = 0; keepSpinning(tries); tries++) {
+			if (this.sentinel != null || (timed && deadline - System.nanoTime() <= 0L)) {
+				return false;
+			}
+			if (tryInsert(value)) {
+				this.notEmpty.signal();
+				return true;
+			}
+			pause(tries);
+		}
+		return false;
+	}
+
+	/*
+	 * Re-try the extract according to the wait strategy, returns null if the
+	 * thread should now park (the caller will re-check the poisoned and timed
+	 * out conditions).
+	 */
+	private E spinExtract(boolean timed, long deadline) throws InterruptedException {
+		for (int tries = 0; keepSpinning(tries); tries++) {
+			if (this.sentinel != null || (timed && deadline - System.nanoTime() <= 0L)) {
+				return null;
+			}
+			final E value = tryExtract();
+			if (value != null) {
+				this.notFull.signal();
+				return value;
+			}
+			pause(tries);
+		}
+		return null;
+	}
+
+	/**
+	 * Determine whether the queue has been poisoned, subclasses providing
+	 * their own blocking operations use this to stop waiting.
+	 * 
+	 * @return <code>true</code> if {@link #poison(Object)} has been called.
+	 */
+	protected final boolean isPoisoned() {
+		return this.sentinel != null;
+	}
+
+	/**
+	 * Wake one thread waiting for the queue to become not empty, subclasses 
+	 * call this after inserting a value outside of {@link #offer(Object)}.
+	 */
+	protected final void signalNotEmpty() {
+		this.notEmpty.signal();
+	}
+
+	/**
+	 * Wake one thread waiting for the queue to become not full, subclasses 
+	 * call this after removing a value outside of {@link #poll()}.
+	 */
+	protected final void signalNotFull() {
+		this.notFull.signal();
+	}
+
+	/**
+	 * Park the current thread until the queue may have become not empty, or
+	 * has been poisoned. This does not retry the extract itself, so the 
+	 * caller loops, re-trying its own extract operation between calls.
+	 * 
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	protected final void awaitNotEmpty() throws InterruptedException {
+		final Thread current = Thread.currentThread();
+		this.notEmpty.add(current);
+		if (!isEmpty() || this.sentinel != null) {
+			this.notEmpty.cancel(current);
+			return;
+		}
+		if (Thread.interrupted()) {
+			this.notEmpty.cancel(current);
+			throw new InterruptedException();
+		}
+		LockSupport.park(this);
+		this.notEmpty.remove(current);
+	}
+
+	/**
+	 * Park the current thread until the queue may have become not full, or
+	 * has been poisoned. This does not retry the insert itself, so the 
+	 * caller loops, re-trying its own insert operation between calls.
+	 * 
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	protected final void awaitNotFull() throws InterruptedException {
+		final Thread current = Thread.currentThread();
+		this.notFull.add(current);
+		if (!isFull() || this.sentinel != null) {
+			this.notFull.cancel(current);
+			return;
+		}
+		if (Thread.interrupted()) {
+			this.notFull.cancel(current);
+			throw new InterruptedException();
+		}
+		LockSupport.park(this);
+		this.notFull.remove(current);
+	}
+
+	/**
+	 * Whether a waiting thread should re-try its operation again rather than
+	 * park, according to the wait strategy.
+	 * 
+	 * @param tries the number of times the operation has been re-tried.
+	 * 
+	 * @return <code>true</code> if the thread should re-try.
+	 */
+	protected final boolean keepSpinning(int tries) {
+		switch (this.waitStrategy) {
+		case BUSY_SPIN:
+		case SPIN_YIELD:
+			return true;
+		case SPIN_PARK:
+			return tries < SPIN_TRIES + YIELD_TRIES;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Pause between re-tries according to the wait strategy.
+	 * 
+	 * @param tries the number of times the operation has been re-tried.
+	 * 
+	 * @throws InterruptedException if the thread has been interrupted.
+	 */
+	protected final void pause(int tries) throws InterruptedException {
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		if (this.waitStrategy != WaitStrategy.BUSY_SPIN && tries >= SPIN_TRIES) {
+			Thread.yield();
+		}
+	}
+
+	private boolean awaitInsert(E value, boolean timed, long nanos) throws InterruptedException {
+		final long deadline = timed ? System.nanoTime() + nanos : 0L;
+		if (spinInsert(value, timed, deadline)) {
+			return true;
+		}
+		final Thread current = Thread.currentThread();
+		while (true) {
+			this.notFull.add(current);
+			if (this.sentinel != null) {
+				this.notFull.cancel(current);
+				return false;
+			}
+			if (tryInsert(value)) {
+				this.notFull.cancel(current);
+				this.notEmpty.signal();
+				return true;
+			}
+			if (Thread.interrupted()) {
+				this.notFull.cancel(current);
+				throw new InterruptedException();
+			}
+			if (timed) {
+				nanos = deadline - System.nanoTime();
+				if (nanos <= 0L) {
+					this.notFull.cancel(current);
+					return false;
+				}
+				LockSupport.parkNanos(this, nanos);
+			} else {
+				LockSupport.park(this);
+			}
+			this.notFull.remove(current);
+		}
+	}
+
+	private E awaitExtract(boolean timed, long nanos) throws InterruptedException {
+		final long deadline = timed ? System.nanoTime() + nanos : 0L;
+		final E spun = spinExtract(timed, deadline);
+		if (spun != null) {
+			return spun;
+		}
+		final Thread current = Thread.currentThread();
+		while (true) {
+			this.notEmpty.add(current);
+			final E value = tryExtract();
+			if (value != null) {
+				this.notEmpty.cancel(current);
+				this.notFull.signal();
+				return value;
+			}
+			if (this.sentinel != null) {
+				this.notEmpty.cancel(current);
+				return this.sentinel;
+			}
+			if (Thread.interrupted()) {
+				this.notEmpty.cancel(current);
+				throw new InterruptedException();
+			}
+			if (timed) {
+				nanos = deadline - System.nanoTime();
+				if (nanos <= 0L) {
+					this.notEmpty.cancel(current);
+					return null;
+				}
+				LockSupport.parkNanos(this, nanos);
+			} else {
+				LockSupport.park(this);
+			}
+			this.notEmpty.remove(current);
+		}
+	}
+}
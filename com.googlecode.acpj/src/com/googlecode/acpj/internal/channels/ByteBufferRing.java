@@ -0,0 +1,393 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.googlecode.acpj.channels.WaitStrategy;
+
+/**
+ * <p>
+ * Internal - a bounded, lock-free, multi-producer/multi-consumer ring of fixed
+ * size byte slots carved out of a single (direct or memory-mapped)
+ * {@link java.nio.ByteBuffer}. As with {@link PrimitiveRingBuffer} each slot
+ * carries a sequence number, but both insertion and extraction are split into
+ * two steps so that the payload is written and read in place:
+ * </p>
+ * <ul>
+ *   <li>a writer claims a free slot with {@link #claimInsert()}, fills the
+ *       buffer returned by {@link #writeView(long)} and then makes it visible
+ *       to readers with {@link #publish(long, int)}.</li>
+ *   <li>a reader claims a published slot with {@link #claimExtract()}, reads
+ *       the buffer returned by {@link #readView(long)} and then frees it for
+ *       writers with {@link #release(long)}.</li>
+ * </ul>
+ * <p>
+ * A slot is only re-used once it has been released, so a slow reader holding
+ * a view stalls the writers for that slot only when the ring wraps around to
+ * it. The standard queue operations copy each value in and out of the ring
+ * and so behave as for any other buffer.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class ByteBufferRing extends AbstractLockFreeBlockingQueue<Object> {
+
+	/**
+	 * Returned by the claim and take operations when no slot could be claimed.
+	 */
+	public static final long NONE = -1L;
+
+	private final ByteBuffer[] writeViews;
+	private final ByteBuffer[] readViews;
+	private final Map<ByteBuffer, Integer> writeIndex;
+	private final Map<ByteBuffer, Integer> readIndex;
+	private final int[] lengths;
+	private final long[] positions;
+	private final AtomicLongArray sequences;
+	private final int slotSize;
+	private final int mask;
+	private final int capacity;
+
+	private final MpmcArrayBlockingQueue.Sequence head = new MpmcArrayBlockingQueue.Sequence();
+	private final MpmcArrayBlockingQueue.Sequence tail = new MpmcArrayBlockingQueue.Sequence();
+
+	/**
+	 * Create a ring over the given storage.
+	 * 
+	 * @param storage the buffer holding the slots, at least
+	 *        <code>capacity * slotSize</code> bytes long.
+	 * @param capacity the number of slots.
+	 * @param slotSize the size, in bytes, of each slot.
+	 * @param waitStrategy how threads wait on a full or empty ring.
+	 */
+	public ByteBufferRing(ByteBuffer storage, int capacity, int slotSize, WaitStrategy waitStrategy) {
+		super(waitStrategy);
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be greater than zero.");
+		}
+		if (slotSize < 1) {
+			throw new IllegalArgumentException("Slot size must be greater than zero.");
+		}
+		if (storage == null || (long)storage.capacity() < (long)capacity * slotSize) {
+			throw new IllegalArgumentException("Storage is too small for the ring.");
+		}
+		this.writeViews = new ByteBuffer[capacity];
+		this.readViews = new ByteBuffer[capacity];
+		this.writeIndex = new IdentityHashMap<ByteBuffer, Integer>(capacity);
+		this.readIndex = new IdentityHashMap<ByteBuffer, Integer>(capacity);
+		for (int i = 0; i < capacity; i++) {
+			final ByteBuffer slice = storage.duplicate();
+			slice.limit((i + 1) * slotSize).position(i * slotSize);
+			this.writeViews[i] = slice.slice();
+			this.readViews[i] = this.writeViews[i].asReadOnlyBuffer();
+			this.writeIndex.put(this.writeViews[i], Integer.valueOf(i));
+			this.readIndex.put(this.readViews[i], Integer.valueOf(i));
+		}
+		this.lengths = new int[capacity];
+		this.positions = new long[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.sequences.set(i, i);
+		}
+		this.slotSize = slotSize;
+		this.mask = (capacity & (capacity - 1)) == 0 ? capacity - 1 : -1;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * The size, in bytes, of each slot, and so the largest value the ring
+	 * will hold.
+	 * 
+	 * @return the slot size.
+	 */
+	public int getSlotSize() {
+		return this.slotSize;
+	}
+
+	/**
+	 * Claim the free slot at the tail of the ring without blocking.
+	 * 
+	 * @return the position of the claimed slot, or {@link #NONE} if the ring
+	 *         is full or poisoned.
+	 */
+	public long claimInsert() {
+		if (isPoisoned()) {
+			return NONE;
+		}
+		long current = this.tail.get();
+		while (true) {
+			final int index = index(current);
+			final long difference = this.sequences.get(index) - current;
+			if (difference == 0L) {
+				if (this.tail.compareAndSet(current, current + 1)) {
+					return current;
+				}
+				current = this.tail.get();
+			} else if (difference < 0L) {
+				/* The slot has not been released from the previous lap. */
+				return NONE;
+			} else {
+				current = this.tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Claim the free slot at the tail of the ring, waiting according to the
+	 * wait strategy if the ring is full.
+	 * 
+	 * @return the position of the claimed slot, or {@link #NONE} if the ring
+	 *         has been poisoned.
+	 */
+	public long takeInsert() throws InterruptedException {
+		for (int tries = 0; keepSpinning(tries); tries++) {
+			final long position = claimInsert();
+			if (position != NONE || isPoisoned()) {
+				return position;
+			}
+			pause(tries);
+		}
+		while (true) {
+			final long position = claimInsert();
+			if (position != NONE || isPoisoned()) {
+				return position;
+			}
+			awaitNotFull();
+		}
+	}
+
+	/**
+	 * The buffer a writer fills for a claimed slot, this is cleared so that the
+	 * writer may use the relative put operations.
+	 * 
+	 * @param position the position of the claimed slot.
+	 * 
+	 * @return the slot buffer, position zero and limit the slot size.
+	 */
+	public ByteBuffer writeView(long position) {
+		final int index = index(position);
+		this.positions[index] = position;
+		final ByteBuffer view = this.writeViews[index];
+		view.clear();
+		return view;
+	}
+
+	/**
+	 * Find the position of the slot for a buffer returned by
+	 * {@link #writeView(long)}.
+	 * 
+	 * @param view the slot buffer.
+	 * 
+	 * @return the position of the slot.
+	 * 
+	 * @throws IllegalArgumentException if the buffer is not a slot of this ring.
+	 */
+	public long writePosition(ByteBuffer view) throws IllegalArgumentException {
+		final Integer index = this.writeIndex.get(view);
+		if (index == null) {
+			throw new IllegalArgumentException("Buffer is not a slot of this channel.");
+		}
+		return this.positions[index.intValue()];
+	}
+
+	/**
+	 * Make a claimed slot visible to readers.
+	 * 
+	 * @param position the position of the claimed slot.
+	 * @param length the number of bytes written to the slot.
+	 */
+	public void publish(long position, int length) {
+		final int index = index(position);
+		this.lengths[index] = length;
+		this.sequences.set(index, position + 1);
+		signalNotEmpty();
+	}
+
+	/**
+	 * Claim the published slot at the head of the ring without blocking.
+	 * 
+	 * @return the position of the claimed slot, or {@link #NONE} if the ring
+	 *         is empty.
+	 */
+	public long claimExtract() {
+		long current = this.head.get();
+		while (true) {
+			final int index = index(current);
+			final long difference = this.sequences.get(index) - (current + 1);
+			if (difference == 0L) {
+				if (this.head.compareAndSet(current, current + 1)) {
+					return current;
+				}
+				current = this.head.get();
+			} else if (difference < 0L) {
+				/* The slot has not been published for this lap yet. */
+				return NONE;
+			} else {
+				current = this.head.get();
+			}
+		}
+	}
+
+	/**
+	 * Claim the published slot at the head of the ring, waiting according to
+	 * the wait strategy if the ring is empty.
+	 * 
+	 * @return the position of the claimed slot, or {@link #NONE} if the ring
+	 *         is empty and has been poisoned.
+	 */
+	public long takeExtract() throws InterruptedException {
+		for (int tries = 0; keepSpinning(tries); tries++) {
+			final long position = claimExtract();
+			if (position != NONE || isPoisoned()) {
+				return position;
+			}
+			pause(tries);
+		}
+		while (true) {
+			final long position = claimExtract();
+			if (position != NONE || isPoisoned()) {
+				return position;
+			}
+			awaitNotEmpty();
+		}
+	}
+
+	/**
+	 * The read-only buffer a reader reads for a claimed slot.
+	 * 
+	 * @param position the position of the claimed slot.
+	 * 
+	 * @return the slot buffer, position zero and limit the length published.
+	 */
+	public ByteBuffer readView(long position) {
+		final int index = index(position);
+		this.positions[index] = position;
+		final ByteBuffer view = this.readViews[index];
+		view.limit(this.lengths[index]).position(0);
+		return view;
+	}
+
+	/**
+	 * Find the position of the slot for a buffer returned by
+	 * {@link #readView(long)}.
+	 * 
+	 * @param view the slot buffer.
+	 * 
+	 * @return the position of the slot.
+	 * 
+	 * @throws IllegalArgumentException if the buffer is not a slot of this ring.
+	 */
+	public long readPosition(ByteBuffer view) throws IllegalArgumentException {
+		final Integer index = this.readIndex.get(view);
+		if (index == null) {
+			throw new IllegalArgumentException("Buffer is not a slot of this channel.");
+		}
+		return this.positions[index.intValue()];
+	}
+
+	/**
+	 * Free a claimed slot for writers, the view of the slot must no longer
+	 * be used.
+	 * 
+	 * @param position the position of the claimed slot.
+	 */
+	public void release(long position) {
+		this.sequences.set(index(position), position + this.capacity);
+		signalNotFull();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryInsert(java.lang.Object)
+	 */
+	@Override
+	protected boolean tryInsert(Object value) {
+		final ByteBuffer source = ((ByteBuffer)value).duplicate();
+		if (source.remaining() > this.slotSize) {
+			throw new IllegalArgumentException("Value is larger than the channel slot size.");
+		}
+		final long position = claimInsert();
+		if (position == NONE) {
+			return false;
+		}
+		final int length = source.remaining();
+		writeView(position).put(source);
+		final int index = index(position);
+		this.lengths[index] = length;
+		this.sequences.set(index, position + 1);
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryExtract()
+	 */
+	@Override
+	protected Object tryExtract() {
+		final long position = claimExtract();
+		if (position == NONE) {
+			return null;
+		}
+		final ByteBuffer view = readView(position);
+		final ByteBuffer value = ByteBuffer.allocate(view.remaining());
+		value.put(view).flip();
+		this.sequences.set(index(position), position + this.capacity);
+		return value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#isFull()
+	 */
+	@Override
+	protected boolean isFull() {
+		final long current = this.tail.get();
+		return this.sequences.get(index(current)) < current;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		final long current = this.head.get();
+		return this.sequences.get(index(current)) < current + 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#capacity()
+	 */
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		final long first = this.head.get();
+		final long size = this.tail.get() - first;
+		return (int)Math.max(0L, Math.min(size, this.capacity));
+	}
+
+	private int index(long sequence) {
+		return this.mask >= 0 ? (int)sequence & this.mask : (int)(sequence % this.capacity);
+	}
+}
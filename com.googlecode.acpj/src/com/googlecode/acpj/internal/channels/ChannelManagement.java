@@ -0,0 +1,224 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+
+import javax.management.ObjectName;
+
+import com.googlecode.acpj.internal.management.ChannelMXBean;
+import com.googlecode.acpj.internal.management.Management;
+import com.googlecode.acpj.internal.management.RateSampler;
+
+/**
+ * <p>
+ * Internal - the MXBean for a single monitored channel. The MXBean only holds 
+ * a weak reference to the channel, so that registering it does not keep the 
+ * channel alive, and MXBeans for collected channels are unregistered as new 
+ * channels are registered.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+class ChannelManagement implements ChannelMXBean {
+
+	private static final ReferenceQueue<SimpleChannel<?>> collected = new ReferenceQueue<SimpleChannel<?>>();
+	
+	private static class ChannelReference extends WeakReference<SimpleChannel<?>> {
+		private final ObjectName objectName;
+		public ChannelReference(SimpleChannel<?> channel, ObjectName objectName) {
+			super(channel, collected);
+			this.objectName = objectName;
+		}
+	}
+	
+	private final ChannelReference reference;
+	private final String name;
+	private final RateSampler writeRate = new RateSampler();
+	private final RateSampler readRate = new RateSampler();
+	
+	private ChannelManagement(SimpleChannel<?> channel, ObjectName objectName) {
+		this.reference = new ChannelReference(channel, objectName);
+		this.name = channel.getName();
+	}
+	
+	/**
+	 * Register an MXBean for the channel.
+	 * 
+	 * @param channel a newly created, monitored, channel.
+	 */
+	static void register(SimpleChannel<?> channel) {
+		Reference<? extends SimpleChannel<?>> stale;
+		while ((stale = collected.poll()) != null) {
+			Management.unregister(((ChannelReference)stale).objectName);
+		}
+		final ObjectName objectName = Management.createName(Management.TYPE_CHANNEL, channel.getName());
+		Management.register(new ChannelManagement(channel, objectName), objectName);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getName()
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getReadPortArity()
+	 */
+	public String getReadPortArity() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel != null ? channel.getReadPortArity().toString() : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getWritePortArity()
+	 */
+	public String getWritePortArity() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel != null ? channel.getWritePortArity().toString() : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getReadPortCount()
+	 */
+	public int getReadPortCount() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel != null ? count(channel.getReadPorts()) : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getWritePortCount()
+	 */
+	public int getWritePortCount() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel != null ? count(channel.getWritePorts()) : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getBufferCapacity()
+	 */
+	public int getBufferCapacity() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel != null ? channel.getBufferCapacity() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getSize()
+	 */
+	public int getSize() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel != null ? channel.size() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#isPoisoned()
+	 */
+	public boolean isPoisoned() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel == null || channel.isPoisoned();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getValuesWritten()
+	 */
+	public long getValuesWritten() {
+		final ChannelStatistics statistics = getStatistics();
+		return statistics != null ? statistics.getWritten() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getValuesRead()
+	 */
+	public long getValuesRead() {
+		final ChannelStatistics statistics = getStatistics();
+		return statistics != null ? statistics.getRead() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getWriteRate()
+	 */
+	public double getWriteRate() {
+		return this.writeRate.sample(getValuesWritten());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getReadRate()
+	 */
+	public double getReadRate() {
+		return this.readRate.sample(getValuesRead());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getWriterBlockedNanos()
+	 */
+	public long getWriterBlockedNanos() {
+		final ChannelStatistics statistics = getStatistics();
+		return statistics != null ? statistics.getWriterBlockedNanos() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getMaxWriterBlockedNanos()
+	 */
+	public long getMaxWriterBlockedNanos() {
+		final ChannelStatistics statistics = getStatistics();
+		return statistics != null ? statistics.getMaxWriterBlockedNanos() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getReaderWaitNanos()
+	 */
+	public long getReaderWaitNanos() {
+		final ChannelStatistics statistics = getStatistics();
+		return statistics != null ? statistics.getReaderWaitNanos() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ChannelMXBean#getHighWaterMark()
+	 */
+	public int getHighWaterMark() {
+		final ChannelStatistics statistics = getStatistics();
+		return statistics != null ? statistics.getHighWaterMark() : 0;
+	}
+	
+	private ChannelStatistics getStatistics() {
+		final SimpleChannel<?> channel = this.reference.get();
+		return channel != null ? channel.getStatistics() : null;
+	}
+	
+	private static int count(Iterator<?> iterator) {
+		int count = 0;
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.googlecode.acpj.channels.LatencyHistogram;
+
+/**
+ * <p>
+ * Internal - the counters recorded by a {@link SimpleChannel} when channel 
+ * monitoring is enabled. The totals are striped {@link java.util.concurrent.atomic.LongAdder}s 
+ * so that recording them does not serialize the writers (or readers) of a busy
+ * channel; the maximum values are only written when they increase, which is
+ * rare once the channel has been running for a while. Histograms of the 
+ * blocked and waiting times, and of the time values spend in the channel, are
+ * only recorded if requested as they are considerably larger.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+class ChannelStatistics {
+
+	private final LongAdder written = new LongAdder();
+	private final LongAdder read = new LongAdder();
+	private final LongAdder writerBlockedNanos = new LongAdder();
+	private final AtomicLong maxWriterBlockedNanos = new AtomicLong(0L);
+	private final LongAdder readerWaitNanos = new LongAdder();
+	private final AtomicInteger highWaterMark = new AtomicInteger(0);
+	
+	private final HistogramRecorder writerBlockedHistogram;
+	private final HistogramRecorder readerWaitHistogram;
+	private final HistogramRecorder residencyHistogram;
+	
+	/**
+	 * Create a new set of statistics.
+	 * 
+	 * @param histograms if <code>true</code> histograms are also recorded.
+	 */
+	ChannelStatistics(boolean histograms) {
+		this.writerBlockedHistogram = histograms ? new HistogramRecorder() : null;
+		this.readerWaitHistogram = histograms ? new HistogramRecorder() : null;
+		this.residencyHistogram = histograms ? new HistogramRecorder() : null;
+	}
+
+	/**
+	 * Record a value written.
+	 */
+	void written() {
+		this.written.increment();
+	}
+
+	/**
+	 * Record a sample of the buffer occupancy.
+	 * 
+	 * @param occupancy the number of values buffered.
+	 */
+	void occupied(int occupancy) {
+		if (occupancy > this.highWaterMark.get()) {
+			updateMax(this.highWaterMark, occupancy);
+		}
+	}
+
+	/**
+	 * Record values read.
+	 * 
+	 * @param count the number of values read.
+	 */
+	void read(int count) {
+		this.read.add(count);
+	}
+
+	/**
+	 * Record the time a writer spent blocked, whether or not its value was 
+	 * then written.
+	 * 
+	 * @param nanos the time blocked.
+	 */
+	void writerBlocked(long nanos) {
+		this.writerBlockedNanos.add(nanos);
+		if (nanos > this.maxWriterBlockedNanos.get()) {
+			updateMax(this.maxWriterBlockedNanos, nanos);
+		}
+		if (this.writerBlockedHistogram != null) {
+			this.writerBlockedHistogram.record(nanos);
+		}
+	}
+
+	/**
+	 * Record the time a reader spent waiting, whether or not a value then 
+	 * arrived.
+	 * 
+	 * @param nanos the time waited.
+	 */
+	void readerWaited(long nanos) {
+		this.readerWaitNanos.add(nanos);
+		if (this.readerWaitHistogram != null) {
+			this.readerWaitHistogram.record(nanos);
+		}
+	}
+
+	/**
+	 * Record the time a value spent in the channel, from being written to 
+	 * being read.
+	 * 
+	 * @param nanos the time in the channel.
+	 */
+	void resided(long nanos) {
+		if (this.residencyHistogram != null) {
+			this.residencyHistogram.record(nanos);
+		}
+	}
+
+	long getWritten() {
+		return this.written.sum();
+	}
+
+	long getRead() {
+		return this.read.sum();
+	}
+
+	long getWriterBlockedNanos() {
+		return this.writerBlockedNanos.sum();
+	}
+
+	long getMaxWriterBlockedNanos() {
+		return this.maxWriterBlockedNanos.get();
+	}
+
+	long getReaderWaitNanos() {
+		return this.readerWaitNanos.sum();
+	}
+
+	int getHighWaterMark() {
+		return this.highWaterMark.get();
+	}
+
+	boolean hasHistograms() {
+		return this.residencyHistogram != null;
+	}
+
+	LatencyHistogram getWriterBlockedHistogram(boolean reset) {
+		return this.writerBlockedHistogram != null ? this.writerBlockedHistogram.snapshot(reset) : null;
+	}
+
+	LatencyHistogram getReaderWaitHistogram(boolean reset) {
+		return this.readerWaitHistogram != null ? this.readerWaitHistogram.snapshot(reset) : null;
+	}
+
+	LatencyHistogram getResidencyHistogram(boolean reset) {
+		return this.residencyHistogram != null ? this.residencyHistogram.snapshot(reset) : null;
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	private static void updateMax(AtomicInteger max, int value) {
+		int current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+}
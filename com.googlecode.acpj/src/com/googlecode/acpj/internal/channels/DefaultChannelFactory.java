@@ -8,18 +8,30 @@
  */
 package com.googlecode.acpj.internal.channels;
 
+import java.io.File;
 import java.lang.ref.WeakReference;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 
+import com.googlecode.acpj.channels.Alternative;
 import com.googlecode.acpj.channels.BufferedChannel;
+import com.googlecode.acpj.channels.ByteBufferChannel;
 import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelException;
 import com.googlecode.acpj.channels.ChannelFactory;
 import com.googlecode.acpj.channels.ChannelMonitor;
+import com.googlecode.acpj.channels.DoubleChannel;
+import com.googlecode.acpj.channels.IntChannel;
+import com.googlecode.acpj.channels.LongChannel;
 import com.googlecode.acpj.channels.MonitoredChannel;
 import com.googlecode.acpj.channels.PortArity;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.ValueSerializer;
+import com.googlecode.acpj.channels.WaitStrategy;
 import com.googlecode.acpj.internal.config.Configuration;
+import com.googlecode.acpj.internal.management.Management;
 
 /**
  * <p>
@@ -35,6 +47,10 @@ public class DefaultChannelFactory extends ChannelFactory {
 	
 	public static boolean monitorChannels = Configuration.getChannelMonitorStatus();
 	
+	public static WaitStrategy waitStrategy = Configuration.getChannelWaitStrategy();
+	
+	public static int spillWindow = Configuration.getChannelSpillWindow();
+	
 	public static Set<WeakReference<SimpleChannel<?>>> channels = new HashSet<WeakReference<SimpleChannel<?>>>();
 	
 	/*
@@ -265,9 +281,10 @@ public class DefaultChannelFactory extends ChannelFactory {
 	 */
 	@Override
 	public <T> Channel<T> createChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit) throws IllegalArgumentException {
-		SimpleChannel<T> channel = new SimpleChannel<T>(name, readPortArity, readPortLimit, writePortArity, writePortLimit, 0);
+		BlockingQueue<Object> buffer = createBuffer(readPortArity, writePortArity, 0, waitStrategy);
+		SimpleChannel<T> channel = new SimpleChannel<T>(name, readPortArity, readPortLimit, writePortArity, writePortLimit, 0, buffer);
 		if (monitorChannels) {
-			channels.add(new WeakReference<SimpleChannel<?>>(channel));
+			monitor(channel, true);
 		}
 		return channel;
 	}
@@ -278,13 +295,170 @@ public class DefaultChannelFactory extends ChannelFactory {
 	 */
 	@Override
 	public <T> BufferedChannel<T> createChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException {
-		SimpleChannel<T> channel = new SimpleChannel<T>(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity);
+		return createChannel(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, waitStrategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createChannel(java.lang.String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int, com.googlecode.acpj.channels.WaitStrategy)
+	 */
+	@Override
+	public <T> BufferedChannel<T> createChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, WaitStrategy waitStrategy) throws IllegalArgumentException {
+		if (waitStrategy == null) {
+			throw new IllegalArgumentException("Wait strategy may not be null.");
+		}
+		BlockingQueue<Object> buffer = null;
+		if (capacity == BufferedChannel.BUFFER_CAPACITY_UNLIMITED && spillWindow > 0) {
+			buffer = new SpillingBlockingQueue(spillWindow, new JavaValueSerializer<Object>());
+		} else {
+			buffer = createBuffer(readPortArity, writePortArity, capacity, waitStrategy);
+		}
+		SimpleChannel<T> channel = new SimpleChannel<T>(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, buffer);
+		if (monitorChannels) {
+			monitor(channel, !(buffer instanceof SpillingBlockingQueue));
+		}
+		return channel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createIntChannel(java.lang.String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int)
+	 */
+	@Override
+	public IntChannel createIntChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException {
+		SimpleIntChannel channel = new SimpleIntChannel(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, waitStrategy);
+		if (monitorChannels) {
+			monitor(channel, false);
+		}
+		return channel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createLongChannel(java.lang.String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int)
+	 */
+	@Override
+	public LongChannel createLongChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException {
+		SimpleLongChannel channel = new SimpleLongChannel(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, waitStrategy);
+		if (monitorChannels) {
+			monitor(channel, false);
+		}
+		return channel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createDoubleChannel(java.lang.String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int)
+	 */
+	@Override
+	public DoubleChannel createDoubleChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) throws IllegalArgumentException {
+		SimpleDoubleChannel channel = new SimpleDoubleChannel(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, waitStrategy);
+		if (monitorChannels) {
+			monitor(channel, false);
+		}
+		return channel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createByteBufferChannel(java.lang.String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int, int, java.io.File)
+	 */
+	@Override
+	public ByteBufferChannel createByteBufferChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, int slotSize, File file) throws IllegalArgumentException, ChannelException {
+		SimpleByteBufferChannel channel = new SimpleByteBufferChannel(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, slotSize, file, waitStrategy);
 		if (monitorChannels) {
-			channels.add(new WeakReference<SimpleChannel<?>>(channel));
+			monitor(channel, false);
 		}
 		return channel;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createDurableChannel(java.lang.String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int, java.io.File, com.googlecode.acpj.channels.ValueSerializer)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> BufferedChannel<T> createDurableChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, File directory, ValueSerializer<T> serializer) throws IllegalArgumentException, ChannelException {
+		BlockingQueue<Object> buffer = new DurableBlockingQueue(
+				directory, 
+				capacity, 
+				serializer == null ? new JavaValueSerializer<Object>() : (ValueSerializer<Object>)serializer, 
+				Configuration.getDurableSegmentSize(), 
+				Configuration.getDurableSyncBatch());
+		SimpleChannel<T> channel = new SimpleChannel<T>(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, buffer);
+		if (monitorChannels) {
+			monitor(channel, false);
+		}
+		return channel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createSpillingChannel(java.lang.String, com.googlecode.acpj.channels.PortArity, int, com.googlecode.acpj.channels.PortArity, int, int, com.googlecode.acpj.channels.ValueSerializer)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> BufferedChannel<T> createSpillingChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int window, ValueSerializer<T> serializer) throws IllegalArgumentException {
+		BlockingQueue<Object> buffer = new SpillingBlockingQueue(
+				window, 
+				serializer == null ? new JavaValueSerializer<Object>() : (ValueSerializer<Object>)serializer);
+		SimpleChannel<T> channel = new SimpleChannel<T>(name, readPortArity, readPortLimit, writePortArity, writePortLimit, BufferedChannel.BUFFER_CAPACITY_UNLIMITED, buffer);
+		if (monitorChannels) {
+			monitor(channel, false);
+		}
+		return channel;
+	}
+
+	/*
+	 * Make the channel visible to the channel monitor, and have it record its
+	 * throughput and occupancy, and if enabled, to JMX clients. Residency can
+	 * only be recorded for channels that buffer values in memory, values held
+	 * by other buffers cannot carry the time they were written.
+	 */
+	private static void monitor(SimpleChannel<?> channel, boolean inMemory) {
+		channel.enableStatistics(Configuration.getChannelHistograms(), inMemory);
+		channels.add(new WeakReference<SimpleChannel<?>>(channel));
+		if (Management.isEnabled()) {
+			ChannelManagement.register(channel);
+		}
+	}
+
+	/*
+	 * Select the buffer implementation best suited to the shape of the channel, 
+	 * where the port arity guarantees a single reader (and possibly a single 
+	 * writer) a lock-free queue can be used instead of the general purpose queue. 
+	 * Bounded channels with any number of readers use a lock-free array ring. 
+	 * The wait strategy is only supported by the lock-free queues. 
+	 */
+	private static <E> BlockingQueue<E> createBuffer(PortArity readPortArity, PortArity writePortArity, int capacity, WaitStrategy waitStrategy) {
+		if (readPortArity == PortArity.ONE) {
+			if (capacity > 0 && writePortArity == PortArity.ONE) {
+				return new SpscArrayBlockingQueue<E>(capacity, waitStrategy);
+			} else if (capacity > 0 || capacity == BufferedChannel.BUFFER_CAPACITY_UNLIMITED) {
+				return new MpscLinkedBlockingQueue<E>(capacity, waitStrategy);
+			}
+		} else if (capacity > 0) {
+			return new MpmcArrayBlockingQueue<E>(capacity, waitStrategy);
+		}
+		if (capacity == 0) {
+			/*
+			 * With a single reader and writer at most one thread is ever
+			 * waiting, so there is no order to preserve.
+			 */
+			return new RendezvousQueue<E>(readPortArity == PortArity.ANY || writePortArity == PortArity.ANY);
+		}
+		return SimpleChannel.createDefaultBuffer(capacity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ChannelFactory#createAlternative(com.googlecode.acpj.channels.Alternative.Policy, com.googlecode.acpj.channels.ReadPort<?>[])
+	 */
+	@Override
+	public Alternative createAlternative(Alternative.Policy policy, ReadPort<?>... ports) throws IllegalArgumentException {
+		return new SimpleAlternative(policy, ports);
+	}
+
 	private class SimpleChannelMonitor implements ChannelMonitor {
 		public Iterator<MonitoredChannel> getChannels() {
 			Set<MonitoredChannel> monitored = new HashSet<MonitoredChannel>();
@@ -0,0 +1,623 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.googlecode.acpj.channels.BufferedChannel;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ValueSerializer;
+
+/**
+ * <p>
+ * Internal - a {@link java.util.concurrent.BlockingQueue} that keeps its values
+ * in a log on disk so that they survive the JVM exiting, used to buffer durable
+ * channels. The log is a directory of memory-mapped segment files, each value
+ * is appended as a record holding its length, a checksum and the serialized
+ * value, and a separate mapped head file records the position of the next
+ * value to read.
+ * </p>
+ * <p>
+ * The segments and head are flushed to disk after every batch of writes and
+ * reads (see {@link com.googlecode.acpj.Arguments#CFG_DURABLE_SYNC_BATCH}) and
+ * when the queue is poisoned. When a queue is created over an existing directory any
+ * values not yet read are replayed, stopping at the first damaged record, and
+ * segments are deleted as soon as all of their values have been read. Delivery
+ * is therefore at-least-once, values read after the last flush may be read
+ * again after a failure of the operating system.
+ * </p>
+ * <p>
+ * WARNING: as with {@link ZeroBlockingQueue} this is not a complete
+ * implementation of the Collection API, the iterator and the operations
+ * that depend on it raise {@link java.lang.UnsupportedOperationException}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class DurableBlockingQueue extends AbstractQueue<Object> implements BlockingQueue<Object>, PoisonableQueue<Object> {
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String HEAD_FILE = "head";
+
+	/*
+	 * Each record is the value length, a checksum of the value and then the
+	 * value itself. A zero length marks the end of the records in a segment.
+	 */
+	private static final int RECORD_HEADER = 8;
+
+	/*
+	 * The head file holds the id of the segment and the offset within it of
+	 * the next record to read.
+	 */
+	private static final int HEAD_SIZE = 12;
+
+	private static final class Segment {
+		final long id;
+		final File file;
+		final MappedByteBuffer buffer;
+		int writeOffset = 0;
+		boolean dirty = false;
+
+		Segment(long id, File file, MappedByteBuffer buffer) {
+			this.id = id;
+			this.file = file;
+			this.buffer = buffer;
+		}
+	}
+
+	private final Lock lock = new ReentrantLock();
+	private final Condition notFull = this.lock.newCondition();
+	private final Condition notEmpty = this.lock.newCondition();
+
+	private final File directory;
+	private final ValueSerializer<Object> serializer;
+	private final int capacity;
+	private final int segmentSize;
+	private final int syncBatch;
+
+	private final LinkedList<Segment> segments = new LinkedList<Segment>();
+	private final MappedByteBuffer head;
+	private int readOffset = 0;
+	private int count = 0;
+	private int unsynced = 0;
+
+	private Object sentinel = null;
+
+	/**
+	 * Create a queue over the log in the given directory, replaying any values
+	 * not yet read.
+	 * 
+	 * @param directory the directory holding the log, created if necessary.
+	 * @param capacity the maximum number of values, or
+	 *        {@link BufferedChannel#BUFFER_CAPACITY_UNLIMITED}.
+	 * @param serializer used to convert values to and from their stored form.
+	 * @param segmentSize the default size of each segment file.
+	 * @param syncBatch the number of writes between each flush to disk.
+	 * 
+	 * @throws ChannelException if the log cannot be opened.
+	 */
+	public DurableBlockingQueue(File directory, int capacity, ValueSerializer<Object> serializer, int segmentSize, int syncBatch) throws IllegalArgumentException, ChannelException {
+		if (directory == null) {
+			throw new IllegalArgumentException("Log directory may not be null.");
+		}
+		if (capacity < 1 && capacity != BufferedChannel.BUFFER_CAPACITY_UNLIMITED) {
+			throw new IllegalArgumentException("Durable channels must have a capacity greater than zero, or unlimited.");
+		}
+		if (serializer == null) {
+			throw new IllegalArgumentException("Serializer may not be null.");
+		}
+		if (segmentSize <= RECORD_HEADER || syncBatch < 1) {
+			throw new IllegalArgumentException("Invalid segment size or sync batch.");
+		}
+		this.directory = directory;
+		this.capacity = capacity == BufferedChannel.BUFFER_CAPACITY_UNLIMITED ? Integer.MAX_VALUE : capacity;
+		this.serializer = serializer;
+		this.segmentSize = segmentSize;
+		this.syncBatch = syncBatch;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new ChannelException("Could not create log directory " + directory);
+		}
+		try {
+			this.head = map(new File(directory, HEAD_FILE), HEAD_SIZE);
+			replay();
+		} catch (IOException e) {
+			throw new ChannelException("Could not open log in " + directory, e);
+		}
+	}
+
+	/**
+	 * Flush all values written, and the position of the next value to read,
+	 * to disk.
+	 */
+	public void sync() {
+		this.lock.lock();
+		try {
+			flush();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.PoisonableQueue#poison(java.lang.Object)
+	 */
+	public void poison(Object sentinel) {
+		if (sentinel == null) {
+			throw new NullPointerException();
+		}
+		this.lock.lock();
+		try {
+			this.sentinel = sentinel;
+			flush();
+			this.notEmpty.signalAll();
+			this.notFull.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#offer(java.lang.Object)
+	 */
+	public boolean offer(Object value) {
+		final byte[] data = serialize(value);
+		this.lock.lock();
+		try {
+			if (this.sentinel != null || this.count >= this.capacity) {
+				return false;
+			}
+			append(data);
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object, long, java.util.concurrent.TimeUnit)
+	 */
+	public boolean offer(Object value, long timeout, TimeUnit unit) throws InterruptedException {
+		final byte[] data = serialize(value);
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			while (this.sentinel == null && this.count >= this.capacity) {
+				if (nanos <= 0L) {
+					return false;
+				}
+				nanos = this.notFull.awaitNanos(nanos);
+			}
+			if (this.sentinel != null) {
+				return false;
+			}
+			append(data);
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#put(java.lang.Object)
+	 */
+	public void put(Object value) throws InterruptedException {
+		final byte[] data = serialize(value);
+		this.lock.lockInterruptibly();
+		try {
+			while (this.sentinel == null && this.count >= this.capacity) {
+				this.notFull.await();
+			}
+			/*
+			 * Once poisoned the value is dropped, the channel will report the
+			 * poison to the writer.
+			 */
+			if (this.sentinel == null) {
+				append(data);
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#poll()
+	 */
+	public Object poll() {
+		byte[] data = null;
+		this.lock.lock();
+		try {
+			if (this.count == 0) {
+				return this.sentinel;
+			}
+			data = extract();
+		} finally {
+			this.lock.unlock();
+		}
+		return deserialize(data);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#poll(long, java.util.concurrent.TimeUnit)
+	 */
+	public Object poll(long timeout, TimeUnit unit) throws InterruptedException {
+		byte[] data = null;
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			while (this.count == 0 && this.sentinel == null) {
+				if (nanos <= 0L) {
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+			if (this.count == 0) {
+				return this.sentinel;
+			}
+			data = extract();
+		} finally {
+			this.lock.unlock();
+		}
+		return deserialize(data);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#take()
+	 */
+	public Object take() throws InterruptedException {
+		byte[] data = null;
+		this.lock.lockInterruptibly();
+		try {
+			while (this.count == 0 && this.sentinel == null) {
+				this.notEmpty.await();
+			}
+			if (this.count == 0) {
+				return this.sentinel;
+			}
+			data = extract();
+		} finally {
+			this.lock.unlock();
+		}
+		return deserialize(data);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.count;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#remainingCapacity()
+	 */
+	public int remainingCapacity() {
+		return this.capacity - size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection)
+	 */
+	public int drainTo(Collection<? super Object> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection, int)
+	 */
+	public int drainTo(Collection<? super Object> c, int maxElements) {
+		if (c == null) {
+			throw new NullPointerException();
+		}
+		if (c == this) {
+			throw new IllegalArgumentException();
+		}
+		int drained = 0;
+		while (drained < maxElements) {
+			byte[] data = null;
+			this.lock.lock();
+			try {
+				if (this.count == 0) {
+					break;
+				}
+				data = extract();
+			} finally {
+				this.lock.unlock();
+			}
+			c.add(deserialize(data));
+			drained++;
+		}
+		return drained;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#peek()
+	 */
+	public Object peek() {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Collection#iterator()
+	 */
+	@Override
+	public Iterator<Object> iterator() {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s[%s, %d]", getClass().getSimpleName(), this.directory, size());
+	}
+
+	private byte[] serialize(Object value) throws ChannelException {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		try {
+			return this.serializer.serialize(value);
+		} catch (IOException e) {
+			throw new ChannelException("Could not serialize channel value.", e);
+		}
+	}
+
+	private Object deserialize(byte[] data) throws ChannelException {
+		try {
+			return this.serializer.deserialize(data);
+		} catch (IOException e) {
+			throw new ChannelException("Could not deserialize channel value.", e);
+		}
+	}
+
+	/*
+	 * Must be called with the lock held, and space available.
+	 */
+	private void append(byte[] data) throws ChannelException {
+		Segment segment = this.segments.getLast();
+		if (segment.writeOffset + RECORD_HEADER + data.length > segment.buffer.capacity()) {
+			segment = roll(segment, RECORD_HEADER + data.length);
+		}
+		final CRC32 checksum = new CRC32();
+		checksum.update(data, 0, data.length);
+		final MappedByteBuffer buffer = segment.buffer;
+		buffer.position(segment.writeOffset + RECORD_HEADER);
+		buffer.put(data);
+		buffer.putInt(segment.writeOffset + 4, (int)checksum.getValue());
+		/*
+		 * The length is written last, so a reader never sees a partial record.
+		 */
+		buffer.putInt(segment.writeOffset, data.length);
+		segment.writeOffset += RECORD_HEADER + data.length;
+		segment.dirty = true;
+		this.count++;
+		this.notEmpty.signal();
+		if (++this.unsynced >= this.syncBatch) {
+			flush();
+		}
+	}
+
+	/*
+	 * Must be called with the lock held, and at least one value present.
+	 */
+	private byte[] extract() {
+		Segment segment = this.segments.getFirst();
+		int length = storedLength(segment, this.readOffset);
+		while (length <= 0) {
+			/*
+			 * All values in the first segment have been read, the next value
+			 * must be in the following segment.
+			 */
+			this.segments.removeFirst();
+			segment.file.delete();
+			segment = this.segments.getFirst();
+			this.readOffset = 0;
+			length = storedLength(segment, 0);
+		}
+		final byte[] data = new byte[length];
+		final MappedByteBuffer buffer = segment.buffer;
+		buffer.position(this.readOffset + RECORD_HEADER);
+		buffer.get(data);
+		this.readOffset += RECORD_HEADER + length;
+		this.head.putLong(0, segment.id);
+		this.head.putInt(8, this.readOffset);
+		this.count--;
+		this.notFull.signal();
+		/*
+		 * Reads count towards the batch too, otherwise the head is never
+		 * flushed while values are only being read.
+		 */
+		if (++this.unsynced >= this.syncBatch) {
+			flush();
+		}
+		return data;
+	}
+
+	/*
+	 * Must be called with the lock held.
+	 */
+	private void flush() {
+		for (Segment segment : this.segments) {
+			if (segment.dirty) {
+				segment.buffer.force();
+				segment.dirty = false;
+			}
+		}
+		this.head.force();
+		this.unsynced = 0;
+	}
+
+	private Segment roll(Segment last, int required) throws ChannelException {
+		if (last.dirty) {
+			last.buffer.force();
+			last.dirty = false;
+		}
+		try {
+			final Segment segment = openSegment(last.id + 1, Math.max(this.segmentSize, required));
+			this.segments.addLast(segment);
+			return segment;
+		} catch (IOException e) {
+			throw new ChannelException("Could not create log segment in " + this.directory, e);
+		}
+	}
+
+	private void replay() throws IOException {
+		final File[] files = this.directory.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return file.getName().startsWith(SEGMENT_PREFIX) && file.getName().endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		final long[] ids = new long[files.length];
+		for (int i = 0; i < files.length; i++) {
+			final String name = files[i].getName();
+			ids[i] = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		}
+		Arrays.sort(ids);
+		final long headId = this.head.getLong(0);
+		final int headOffset = this.head.getInt(8);
+		for (int i = 0; i < ids.length; i++) {
+			final File file = segmentFile(ids[i]);
+			if (ids[i] < headId) {
+				/* Already read, but not deleted before the last shutdown. */
+				file.delete();
+				continue;
+			}
+			final Segment segment = openSegment(ids[i], (int)file.length());
+			int offset = ids[i] == headId ? headOffset : 0;
+			if (this.segments.isEmpty()) {
+				this.readOffset = offset;
+			}
+			int length = 0;
+			while ((length = recordLength(segment, offset)) > 0) {
+				this.count++;
+				offset += RECORD_HEADER + length;
+			}
+			segment.writeOffset = offset;
+			this.segments.addLast(segment);
+			if (length < 0) {
+				/*
+				 * A damaged record, the log ends here, discard the remainder
+				 * of this segment and any that follow it.
+				 */
+				for (int j = offset; j < segment.buffer.capacity(); j++) {
+					segment.buffer.put(j, (byte)0);
+				}
+				segment.buffer.force();
+				for (int j = i + 1; j < ids.length; j++) {
+					segmentFile(ids[j]).delete();
+				}
+				break;
+			}
+		}
+		if (this.segments.isEmpty()) {
+			this.segments.addLast(openSegment(headId, this.segmentSize));
+			this.head.putInt(8, 0);
+		}
+	}
+
+	/*
+	 * The length of a record already checked by replay, or appended since, at
+	 * the given offset, zero if there is no record.
+	 */
+	private static int storedLength(Segment segment, int offset) {
+		if (offset + RECORD_HEADER > segment.buffer.capacity()) {
+			return 0;
+		}
+		return segment.buffer.getInt(offset);
+	}
+
+	/*
+	 * The length of the record at the given offset, zero if there is no record
+	 * and negative if the record is damaged. Only used to validate the log on
+	 * replay.
+	 */
+	private static int recordLength(Segment segment, int offset) {
+		final MappedByteBuffer buffer = segment.buffer;
+		if (offset + RECORD_HEADER > buffer.capacity()) {
+			return 0;
+		}
+		final int length = buffer.getInt(offset);
+		if (length == 0) {
+			return 0;
+		}
+		if (length < 0 || offset + RECORD_HEADER + length > buffer.capacity()) {
+			return -1;
+		}
+		final byte[] data = new byte[length];
+		buffer.position(offset + RECORD_HEADER);
+		buffer.get(data);
+		final CRC32 checksum = new CRC32();
+		checksum.update(data, 0, length);
+		return (int)checksum.getValue() == buffer.getInt(offset + 4) ? length : -1;
+	}
+
+	private Segment openSegment(long id, int size) throws IOException {
+		final File file = segmentFile(id);
+		return new Segment(id, file, map(file, size));
+	}
+
+	private File segmentFile(long id) {
+		return new File(this.directory, String.format("%s%016d%s", SEGMENT_PREFIX, Long.valueOf(id), SEGMENT_SUFFIX));
+	}
+
+	private static MappedByteBuffer map(File file, int size) throws IOException {
+		final RandomAccessFile mapped = new RandomAccessFile(file, "rw");
+		try {
+			if (mapped.length() < size) {
+				mapped.setLength(size);
+			}
+			return mapped.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, Math.max(size, mapped.length()));
+		} finally {
+			/*
+			 * The mapping remains valid once the file is closed.
+			 */
+			mapped.close();
+		}
+	}
+}
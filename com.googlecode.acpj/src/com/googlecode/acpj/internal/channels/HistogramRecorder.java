@@ -0,0 +1,67 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.googlecode.acpj.channels.LatencyHistogram;
+
+/**
+ * <p>
+ * Internal - records times into the buckets of a {@link com.googlecode.acpj.channels.LatencyHistogram}
+ * without locking. A snapshot that resets the histogram atomically exchanges 
+ * each bucket count with zero, so every time recorded is counted in exactly 
+ * one snapshot, although a time recorded while the snapshot is taken may be
+ * counted in its bucket and not its total (or the reverse).
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+class HistogramRecorder {
+
+	private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong(0L);
+	
+	/**
+	 * Record a time.
+	 * 
+	 * @param nanos the time, in nanoseconds.
+	 */
+	void record(long nanos) {
+		this.counts.incrementAndGet(LatencyHistogram.getBucket(nanos));
+		this.total.add(nanos);
+		long current = this.max.get();
+		while (nanos > current && !this.max.compareAndSet(current, nanos)) {
+			current = this.max.get();
+		}
+	}
+	
+	/**
+	 * Take a snapshot of the times recorded.
+	 * 
+	 * @param reset if <code>true</code> the recorder starts again from zero.
+	 * 
+	 * @return the snapshot.
+	 */
+	LatencyHistogram snapshot(boolean reset) {
+		final long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			counts[bucket] = reset ? this.counts.getAndSet(bucket, 0L) : this.counts.get(bucket);
+		}
+		if (reset) {
+			return new LatencyHistogram(counts, this.total.sumThenReset(), this.max.getAndSet(0L));
+		}
+		return new LatencyHistogram(counts, this.total.sum(), this.max.get());
+	}
+}
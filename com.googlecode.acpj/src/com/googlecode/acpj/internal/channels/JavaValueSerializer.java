@@ -0,0 +1,59 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.googlecode.acpj.channels.ValueSerializer;
+
+/**
+ * <p>
+ * Internal - the default {@link com.googlecode.acpj.channels.ValueSerializer}, 
+ * using standard Java serialization, so values must be 
+ * {@link java.io.Serializable}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class JavaValueSerializer<T> implements ValueSerializer<T> {
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ValueSerializer#serialize(java.lang.Object)
+	 */
+	public byte[] serialize(T value) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		final ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(value);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ValueSerializer#deserialize(byte[])
+	 */
+	@SuppressWarnings("unchecked")
+	public T deserialize(byte[] data) throws IOException {
+		final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+		try {
+			return (T)in.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Class of channel value not found: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+}
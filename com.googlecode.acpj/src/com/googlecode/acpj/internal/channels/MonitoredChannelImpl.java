@@ -13,6 +13,7 @@ import java.util.Iterator;
 import java.util.Set;
 
 import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.channels.LatencyHistogram;
 import com.googlecode.acpj.channels.MonitoredChannel;
 import com.googlecode.acpj.channels.MonitoredPort;
 import com.googlecode.acpj.channels.Port;
@@ -149,4 +150,101 @@ class MonitoredChannelImpl implements MonitoredChannel {
 		return this.actualChannel.isPoisoned();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#hasStatistics()
+	 */
+	public boolean hasStatistics() {
+		return this.actualChannel.getStatistics() != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getValuesWritten()
+	 */
+	public long getValuesWritten() {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getWritten() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getValuesRead()
+	 */
+	public long getValuesRead() {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getRead() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getWriterBlockedNanos()
+	 */
+	public long getWriterBlockedNanos() {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getWriterBlockedNanos() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getMaxWriterBlockedNanos()
+	 */
+	public long getMaxWriterBlockedNanos() {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getMaxWriterBlockedNanos() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getReaderWaitNanos()
+	 */
+	public long getReaderWaitNanos() {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getReaderWaitNanos() : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getHighWaterMark()
+	 */
+	public int getHighWaterMark() {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getHighWaterMark() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#hasHistograms()
+	 */
+	public boolean hasHistograms() {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null && statistics.hasHistograms();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getWriterBlockedHistogram(boolean)
+	 */
+	public LatencyHistogram getWriterBlockedHistogram(boolean reset) {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getWriterBlockedHistogram(reset) : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getReaderWaitHistogram(boolean)
+	 */
+	public LatencyHistogram getReaderWaitHistogram(boolean reset) {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getReaderWaitHistogram(reset) : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.MonitoredChannel#getResidencyHistogram(boolean)
+	 */
+	public LatencyHistogram getResidencyHistogram(boolean reset) {
+		final ChannelStatistics statistics = this.actualChannel.getStatistics();
+		return statistics != null ? statistics.getResidencyHistogram(reset) : null;
+	}
 }
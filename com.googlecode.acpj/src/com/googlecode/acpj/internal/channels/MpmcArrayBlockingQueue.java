@@ -0,0 +1,146 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.googlecode.acpj.channels.WaitStrategy;
+
+/**
+ * <p>
+ * Internal - a bounded, lock-free, multi-producer/multi-consumer queue used
+ * by {@link SimpleChannel} to buffer channels with a read port arity of
+ * {@link com.googlecode.acpj.channels.PortArity#ANY}. Each slot in the array
+ * ring carries its own sequence number which tells producers when the slot is
+ * free and consumers when it has been filled, so producers only contend with
+ * each other on the tail and consumers on the head, and no node is allocated
+ * per value.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class MpmcArrayBlockingQueue<E> extends AbstractLockFreeBlockingQueue<E> {
+
+	/*
+	 * A sequence padded out to a cache line so that the head and tail,
+	 * updated by the consumers and producers respectively, do not share
+	 * a line.
+	 */
+	static final class Sequence extends AtomicLong {
+		private static final long serialVersionUID = 1L;
+		long p1, p2, p3, p4, p5, p6, p7;
+	}
+
+	private final Object[] buffer;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final int capacity;
+
+	private final Sequence head = new Sequence();
+	private final Sequence tail = new Sequence();
+
+	public MpmcArrayBlockingQueue(int capacity) {
+		this(capacity, WaitStrategy.PARK);
+	}
+
+	public MpmcArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+		super(waitStrategy);
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be greater than zero.");
+		}
+		this.buffer = new Object[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.sequences.set(i, i);
+		}
+		this.mask = (capacity & (capacity - 1)) == 0 ? capacity - 1 : -1;
+		this.capacity = capacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryInsert(java.lang.Object)
+	 */
+	@Override
+	protected boolean tryInsert(E value) {
+		long current = this.tail.get();
+		while (true) {
+			final int index = index(current);
+			final long difference = this.sequences.get(index) - current;
+			if (difference == 0L) {
+				if (this.tail.compareAndSet(current, current + 1)) {
+					this.buffer[index] = value;
+					this.sequences.set(index, current + 1);
+					return true;
+				}
+				current = this.tail.get();
+			} else if (difference < 0L) {
+				/* The slot still holds the value from the previous lap. */
+				return false;
+			} else {
+				current = this.tail.get();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryExtract()
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected E tryExtract() {
+		long current = this.head.get();
+		while (true) {
+			final int index = index(current);
+			final long difference = this.sequences.get(index) - (current + 1);
+			if (difference == 0L) {
+				if (this.head.compareAndSet(current, current + 1)) {
+					final E value = (E)this.buffer[index];
+					this.buffer[index] = null;
+					this.sequences.set(index, current + this.capacity);
+					return value;
+				}
+				current = this.head.get();
+			} else if (difference < 0L) {
+				/* The slot has not been filled for this lap yet. */
+				return null;
+			} else {
+				current = this.head.get();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#capacity()
+	 */
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		final long first = this.head.get();
+		final long size = this.tail.get() - first;
+		return (int)Math.max(0L, Math.min(size, this.capacity));
+	}
+
+	private int index(long sequence) {
+		return this.mask >= 0 ? (int)sequence & this.mask : (int)(sequence % this.capacity);
+	}
+}
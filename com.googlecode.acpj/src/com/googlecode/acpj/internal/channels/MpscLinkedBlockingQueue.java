@@ -0,0 +1,137 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.googlecode.acpj.channels.BufferedChannel;
+import com.googlecode.acpj.channels.WaitStrategy;
+
+/**
+ * <p>
+ * Internal - an optionally bounded, lock-free, multi-producer/single-consumer
+ * queue used by {@link SimpleChannel} to buffer channels with a read port arity
+ * of {@link com.googlecode.acpj.channels.PortArity#ONE}, such as the request
+ * channels of the services. Producers append a node by swapping it into the
+ * tail and then linking the previous tail to it, there is no lock for
+ * producers to contend on and the consumer is only parked when the queue
+ * is empty.
+ * </p>
+ * <p>
+ * WARNING: this queue is only safe with at most one thread removing values
+ * at any one time, this is guaranteed for channels with a read port arity
+ * of {@link com.googlecode.acpj.channels.PortArity#ONE} as only the actor
+ * owning the port may use it. Note that {@link #clear()} counts as removing
+ * values, the channel uses {@link #poison(Object)} instead.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class MpscLinkedBlockingQueue<E> extends AbstractLockFreeBlockingQueue<E> {
+
+	static final class Node<E> {
+		volatile E value;
+		volatile Node<E> next;
+		Node(E value) {
+			this.value = value;
+		}
+	}
+
+	private final int capacity;
+	private final AtomicInteger count = new AtomicInteger(0);
+
+	/*
+	 * The head is a consumed (or initial, empty) node, the first value is
+	 * held by the node after it. Only ever read or written by the consumer.
+	 */
+	private Node<E> head = null;
+	private final AtomicReference<Node<E>> tail;
+
+	public MpscLinkedBlockingQueue(int capacity) {
+		this(capacity, WaitStrategy.PARK);
+	}
+
+	public MpscLinkedBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+		super(waitStrategy);
+		if (capacity == BufferedChannel.BUFFER_CAPACITY_UNLIMITED) {
+			this.capacity = Integer.MAX_VALUE;
+		} else if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be greater than zero.");
+		} else {
+			this.capacity = capacity;
+		}
+		this.head = new Node<E>(null);
+		this.tail = new AtomicReference<Node<E>>(this.head);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryInsert(java.lang.Object)
+	 */
+	@Override
+	protected boolean tryInsert(E value) {
+		if (this.capacity == Integer.MAX_VALUE) {
+			this.count.getAndIncrement();
+		} else {
+			int current = 0;
+			do {
+				current = this.count.get();
+				if (current >= this.capacity) {
+					return false;
+				}
+			} while (!this.count.compareAndSet(current, current + 1));
+		}
+		final Node<E> node = new Node<E>(value);
+		final Node<E> previous = this.tail.getAndSet(node);
+		/*
+		 * Until this link is made the consumer sees the queue as empty, it
+		 * will be woken by the signal that follows a successful insert.
+		 */
+		previous.next = node;
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryExtract()
+	 */
+	@Override
+	protected E tryExtract() {
+		final Node<E> next = this.head.next;
+		if (next == null) {
+			return null;
+		}
+		final E value = next.value;
+		next.value = null;
+		this.head = next;
+		this.count.decrementAndGet();
+		return value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#capacity()
+	 */
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return Math.max(0, this.count.get());
+	}
+}
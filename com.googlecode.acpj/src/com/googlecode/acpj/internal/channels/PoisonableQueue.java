@@ -0,0 +1,34 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+/**
+ * <p>
+ * Internal - implemented by queues used as channel buffers that can be shut
+ * down directly rather than having {@link SimpleChannel} clear the queue and
+ * post a sentinel value into it. This is required by queues that only support
+ * a single producer or a single consumer, where the thread poisoning the channel
+ * is neither.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+interface PoisonableQueue<E> {
+
+	/**
+	 * Poison the queue, all waiting threads are woken and from now on any attempt
+	 * to insert a value will fail and once the queue is empty any attempt to
+	 * remove a value will return the provided sentinel.
+	 * 
+	 * @param sentinel the value to return to readers once the queue is poisoned.
+	 */
+	public void poison(E sentinel);
+}
@@ -0,0 +1,296 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.googlecode.acpj.channels.WaitStrategy;
+
+/**
+ * <p>
+ * Internal - a bounded, lock-free, multi-producer/multi-consumer queue of
+ * primitive values used by the primitive channels. This is the same slot
+ * sequence ring as {@link MpmcArrayBlockingQueue} but the values are held as
+ * raw <code>long</code> bits, so the primitive operations neither box the value
+ * nor allocate per value. The standard queue operations are still supported,
+ * boxing and unboxing according to the {@link Type} of the ring, so that the
+ * primitive channels behave as any other channel to generic ports.
+ * </p>
+ * <p>
+ * Extraction is split into two steps, {@link #claimExtract()} reserves the slot
+ * at the head and {@link #completeExtract(long)} reads and frees it, so that
+ * "no value" can be reported without a sentinel value.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class PrimitiveRingBuffer extends AbstractLockFreeBlockingQueue<Object> {
+
+	/**
+	 * Denotes the primitive type held in the ring, and how values are converted
+	 * to and from their raw bits.
+	 */
+	public enum Type {
+		INT {
+			long toBits(Object value) {
+				return ((Integer)value).intValue();
+			}
+			Object fromBits(long bits) {
+				return Integer.valueOf((int)bits);
+			}
+		},
+		LONG {
+			long toBits(Object value) {
+				return ((Long)value).longValue();
+			}
+			Object fromBits(long bits) {
+				return Long.valueOf(bits);
+			}
+		},
+		DOUBLE {
+			long toBits(Object value) {
+				return Double.doubleToRawLongBits(((Double)value).doubleValue());
+			}
+			Object fromBits(long bits) {
+				return Double.valueOf(Double.longBitsToDouble(bits));
+			}
+		};
+
+		abstract long toBits(Object value);
+
+		abstract Object fromBits(long bits);
+	}
+
+	/**
+	 * Returned by {@link #claimExtract()} and {@link #takePosition()} when no
+	 * slot could be claimed.
+	 */
+	public static final long NONE = -1L;
+
+	private final Type type;
+	private final long[] buffer;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final int capacity;
+
+	private final MpmcArrayBlockingQueue.Sequence head = new MpmcArrayBlockingQueue.Sequence();
+	private final MpmcArrayBlockingQueue.Sequence tail = new MpmcArrayBlockingQueue.Sequence();
+
+	public PrimitiveRingBuffer(Type type, int capacity, WaitStrategy waitStrategy) {
+		super(waitStrategy);
+		if (type == null) {
+			throw new IllegalArgumentException("Type may not be null.");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be greater than zero.");
+		}
+		this.type = type;
+		this.buffer = new long[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.sequences.set(i, i);
+		}
+		this.mask = (capacity & (capacity - 1)) == 0 ? capacity - 1 : -1;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * The primitive type held in this ring.
+	 * 
+	 * @return the type of the ring.
+	 */
+	public Type getType() {
+		return this.type;
+	}
+
+	/**
+	 * Insert the value without blocking.
+	 * 
+	 * @param bits the raw bits of the value to insert.
+	 * 
+	 * @return <code>true</code> if the value was inserted, <code>false</code> if
+	 *         the ring is full or poisoned.
+	 */
+	public boolean offerBits(long bits) {
+		if (!isPoisoned() && tryInsertBits(bits)) {
+			signalNotEmpty();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Insert the value, waiting according to the wait strategy if the ring is
+	 * full.
+	 * 
+	 * @param bits the raw bits of the value to insert.
+	 * 
+	 * @return <code>true</code> if the value was inserted, <code>false</code> if
+	 *         the ring was poisoned.
+	 */
+	public boolean putBits(long bits) throws InterruptedException {
+		for (int tries = 0; keepSpinning(tries); tries++) {
+			if (offerBits(bits)) {
+				return true;
+			} else if (isPoisoned()) {
+				return false;
+			}
+			pause(tries);
+		}
+		while (true) {
+			if (offerBits(bits)) {
+				return true;
+			} else if (isPoisoned()) {
+				return false;
+			}
+			awaitNotFull();
+		}
+	}
+
+	/**
+	 * Claim the slot at the head of the ring, waiting according to the wait
+	 * strategy if the ring is empty. The value must then be read with
+	 * {@link #completeExtract(long)}.
+	 * 
+	 * @return the position of the claimed slot, or {@link #NONE} if the ring
+	 *         is empty and has been poisoned.
+	 */
+	public long takePosition() throws InterruptedException {
+		for (int tries = 0; keepSpinning(tries); tries++) {
+			final long position = claimExtract();
+			if (position != NONE || isPoisoned()) {
+				return position;
+			}
+			pause(tries);
+		}
+		while (true) {
+			final long position = claimExtract();
+			if (position != NONE || isPoisoned()) {
+				return position;
+			}
+			awaitNotEmpty();
+		}
+	}
+
+	/**
+	 * Claim the slot at the head of the ring without blocking. The value must
+	 * then be read with {@link #completeExtract(long)}.
+	 * 
+	 * @return the position of the claimed slot, or {@link #NONE} if the ring
+	 *         is empty.
+	 */
+	public long claimExtract() {
+		long current = this.head.get();
+		while (true) {
+			final int index = index(current);
+			final long difference = this.sequences.get(index) - (current + 1);
+			if (difference == 0L) {
+				if (this.head.compareAndSet(current, current + 1)) {
+					return current;
+				}
+				current = this.head.get();
+			} else if (difference < 0L) {
+				/* The slot has not been filled for this lap yet. */
+				return NONE;
+			} else {
+				current = this.head.get();
+			}
+		}
+	}
+
+	/**
+	 * Read the value from a slot claimed by {@link #claimExtract()} or
+	 * {@link #takePosition()} and free the slot for writers.
+	 * 
+	 * @param position the position of the claimed slot.
+	 * 
+	 * @return the raw bits of the value read.
+	 */
+	public long completeExtract(long position) {
+		final long bits = release(position);
+		signalNotFull();
+		return bits;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryInsert(java.lang.Object)
+	 */
+	@Override
+	protected boolean tryInsert(Object value) {
+		return tryInsertBits(this.type.toBits(value));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryExtract()
+	 */
+	@Override
+	protected Object tryExtract() {
+		final long position = claimExtract();
+		if (position == NONE) {
+			return null;
+		}
+		return this.type.fromBits(release(position));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#capacity()
+	 */
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		final long first = this.head.get();
+		final long size = this.tail.get() - first;
+		return (int)Math.max(0L, Math.min(size, this.capacity));
+	}
+
+	private boolean tryInsertBits(long bits) {
+		long current = this.tail.get();
+		while (true) {
+			final int index = index(current);
+			final long difference = this.sequences.get(index) - current;
+			if (difference == 0L) {
+				if (this.tail.compareAndSet(current, current + 1)) {
+					this.buffer[index] = bits;
+					this.sequences.set(index, current + 1);
+					return true;
+				}
+				current = this.tail.get();
+			} else if (difference < 0L) {
+				/* The slot still holds the value from the previous lap. */
+				return false;
+			} else {
+				current = this.tail.get();
+			}
+		}
+	}
+
+	private long release(long position) {
+		final int index = index(position);
+		final long bits = this.buffer[index];
+		this.sequences.set(index, position + this.capacity);
+		return bits;
+	}
+
+	private int index(long sequence) {
+		return this.mask >= 0 ? (int)sequence & this.mask : (int)(sequence % this.capacity);
+	}
+}
@@ -0,0 +1,832 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * Internal - a lock-free, zero capacity {@link java.util.concurrent.BlockingQueue}
+ * used as the buffer for unbuffered channels. Each insert waits for a remove
+ * (and vice versa) and the value is handed directly from one thread to the
+ * other, there is no lock held while either side waits. This is the dual
+ * stack and dual queue algorithm of Scherer, Lea and Scott, the waiting side
+ * pushes a node recording what it wants and the other side fulfils it; a
+ * waiting thread spins for a short while (on multi-processor machines) before
+ * parking, as the other side often arrives within a few hundred cycles.
+ * </p>
+ * <ul>
+ *   <li>a fair queue matches waiting threads in FIFO order using the dual
+ *       queue, as is required where many writers or readers share a channel
+ *       and each should be served in turn.</li>
+ *   <li>an unfair queue matches waiting threads in LIFO order using the dual
+ *       stack, which is cheaper as both sides contend on a single head; with a
+ *       single writer and a single reader there is never more than one thread
+ *       waiting, so nothing is lost.</li>
+ * </ul>
+ * <p>
+ * Unlike {@link ZeroBlockingQueue} the queue is also poisonable, waiting
+ * writers are woken (without their value having been taken) as well as
+ * waiting readers.
+ * </p>
+ * <p>
+ * WARNING: as with {@link ZeroBlockingQueue} the queue is always empty, so
+ * the inspection operations return <code>null</code> or nothing at all.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class RendezvousQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>, PoisonableQueue<E> {
+
+	private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+	/*
+	 * Spinning is pointless on a uni-processor, the other side cannot run
+	 * until we give up the CPU. Timed waits spin less as they have to read
+	 * the clock on every iteration.
+	 */
+	private static final int MAX_TIMED_SPINS = CPUS < 2 ? 0 : 32;
+	private static final int MAX_UNTIMED_SPINS = MAX_TIMED_SPINS * 16;
+
+	/*
+	 * Below this many nanoseconds it is quicker to spin than to park.
+	 */
+	private static final long SPIN_FOR_TIMEOUT_THRESHOLD = 1000L;
+
+	private final Transferer transferer;
+	private final boolean fair;
+
+	private volatile Object sentinel = null;
+
+	/**
+	 * Create a new, fair, queue.
+	 */
+	public RendezvousQueue() {
+		this(true);
+	}
+
+	/**
+	 * Create a new queue.
+	 * 
+	 * @param fair <code>true</code> to match waiting threads in FIFO order,
+	 *        <code>false</code> to match them in LIFO order.
+	 */
+	public RendezvousQueue(boolean fair) {
+		this.fair = fair;
+		this.transferer = fair ? new DualQueue(this) : new DualStack(this);
+	}
+
+	/**
+	 * Determine whether waiting threads are matched in FIFO order.
+	 * 
+	 * @return <code>true</code> if the queue is fair.
+	 */
+	public boolean isFair() {
+		return this.fair;
+	}
+
+	/**
+	 * Determine whether there is a writer waiting for its value to be taken.
+	 * 
+	 * @return <code>true</code> if a remove would (at the time of the call)
+	 *         complete immediately.
+	 */
+	public boolean hasWaitingProducer() {
+		return this.transferer.hasWaiting(true);
+	}
+
+	/**
+	 * Determine whether there is a reader waiting for a value.
+	 * 
+	 * @return <code>true</code> if an insert would (at the time of the call)
+	 *         complete immediately.
+	 */
+	public boolean hasWaitingConsumer() {
+		return this.transferer.hasWaiting(false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.PoisonableQueue#poison(java.lang.Object)
+	 */
+	public void poison(E sentinel) {
+		if (sentinel == null) {
+			throw new NullPointerException();
+		}
+		/*
+		 * Set before cancelling so that any thread about to wait sees it.
+		 */
+		this.sentinel = sentinel;
+		this.transferer.cancelAll();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#put(java.lang.Object)
+	 */
+	public void put(E value) throws InterruptedException {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		if (this.transferer.transfer(value, false, 0L) == null && Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object, long, java.util.concurrent.TimeUnit)
+	 */
+	public boolean offer(E value, long timeout, TimeUnit unit) throws InterruptedException {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		if (this.transferer.transfer(value, true, unit.toNanos(timeout)) != null) {
+			return true;
+		}
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#offer(java.lang.Object)
+	 */
+	public boolean offer(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		return this.transferer.transfer(value, true, 0L) != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#take()
+	 */
+	@SuppressWarnings("unchecked")
+	public E take() throws InterruptedException {
+		final Object value = this.transferer.transfer(null, false, 0L);
+		if (value != null) {
+			return (E)value;
+		}
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		/* An untimed wait is only otherwise cancelled by poisoning. */
+		return (E)this.sentinel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#poll(long, java.util.concurrent.TimeUnit)
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		final Object value = this.transferer.transfer(null, true, unit.toNanos(timeout));
+		if (value != null) {
+			return (E)value;
+		}
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		return (E)this.sentinel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#poll()
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		final Object value = this.transferer.transfer(null, true, 0L);
+		return (E)(value != null ? value : this.sentinel);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection)
+	 */
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection, int)
+	 */
+	@SuppressWarnings("unchecked")
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		if (c == null) {
+			throw new NullPointerException();
+		}
+		if (c == this) {
+			throw new IllegalArgumentException();
+		}
+		/*
+		 * Takes the values of any writers already waiting, the sentinel is
+		 * never drained.
+		 */
+		int drained = 0;
+		Object value = null;
+		while (drained < maxElements && (value = this.transferer.transfer(null, true, 0L)) != null) {
+			c.add((E)value);
+			drained++;
+		}
+		return drained;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractQueue#clear()
+	 */
+	@Override
+	public void clear() {
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#peek()
+	 */
+	public E peek() {
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#remainingCapacity()
+	 */
+	public int remainingCapacity() {
+		return 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#iterator()
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return Collections.<E>emptyList().iterator();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), this.fair ? "fair" : "unfair");
+	}
+
+	/*
+	 * The two algorithms share a single operation, a null value denotes a
+	 * remove, otherwise an insert. The value returned is the value taken
+	 * (for a remove) or the value given (for an insert), or null if the
+	 * operation timed out or was cancelled by interruption or poisoning.
+	 */
+	private static abstract class Transferer {
+
+		final RendezvousQueue<?> queue;
+
+		Transferer(RendezvousQueue<?> queue) {
+			this.queue = queue;
+		}
+
+		final boolean isPoisoned() {
+			return this.queue.sentinel != null;
+		}
+
+		abstract Object transfer(Object value, boolean timed, long nanos);
+
+		abstract boolean hasWaiting(boolean data);
+
+		abstract void cancelAll();
+
+		final boolean isCancelledByUs(Thread thread) {
+			return thread.isInterrupted() || isPoisoned();
+		}
+	}
+
+	/*
+	 * -------------------------------------------------------------------------
+	 * Unfair mode.
+	 * -------------------------------------------------------------------------
+	 */
+
+	private static final int REQUEST = 0;
+	private static final int DATA = 1;
+	private static final int FULFILLING = 2;
+
+	private static boolean isFulfilling(int mode) {
+		return (mode & FULFILLING) != 0;
+	}
+
+	private static final class StackNode {
+		volatile StackNode next = null;
+		volatile StackNode match = null;
+		volatile Thread waiter = null;
+		Object item = null;
+		int mode = REQUEST;
+
+		StackNode(Object item) {
+			this.item = item;
+		}
+
+		boolean casNext(StackNode expected, StackNode next) {
+			return this.next == expected && NEXT.compareAndSet(this, expected, next);
+		}
+
+		/*
+		 * Match this waiting node to the fulfilling node, waking the waiter.
+		 */
+		boolean tryMatch(StackNode fulfiller) {
+			if (this.match == null && MATCH.compareAndSet(this, null, fulfiller)) {
+				final Thread waiter = this.waiter;
+				if (waiter != null) {
+					this.waiter = null;
+					LockSupport.unpark(waiter);
+				}
+				return true;
+			}
+			return this.match == fulfiller;
+		}
+
+		void tryCancel() {
+			MATCH.compareAndSet(this, null, this);
+		}
+
+		boolean isCancelled() {
+			return this.match == this;
+		}
+
+		static final AtomicReferenceFieldUpdater<StackNode, StackNode> NEXT =
+			AtomicReferenceFieldUpdater.newUpdater(StackNode.class, StackNode.class, "next");
+		static final AtomicReferenceFieldUpdater<StackNode, StackNode> MATCH =
+			AtomicReferenceFieldUpdater.newUpdater(StackNode.class, StackNode.class, "match");
+	}
+
+	private static final class DualStack extends Transferer {
+
+		volatile StackNode head = null;
+
+		DualStack(RendezvousQueue<?> queue) {
+			super(queue);
+		}
+
+		boolean casHead(StackNode expected, StackNode head) {
+			return this.head == expected && HEAD.compareAndSet(this, expected, head);
+		}
+
+		Object transfer(Object value, boolean timed, long nanos) {
+			final int mode = value == null ? REQUEST : DATA;
+			StackNode node = null;
+			while (true) {
+				if (isPoisoned()) {
+					return null;
+				}
+				StackNode head = this.head;
+				if (head == null || head.mode == mode) {
+					/*
+					 * Empty, or only waiters of our own kind, push and wait.
+					 */
+					if (timed && nanos <= 0L) {
+						if (head != null && head.isCancelled()) {
+							casHead(head, head.next);
+						} else {
+							return null;
+						}
+					} else if (casHead(head, node = push(node, value, head, mode))) {
+						final StackNode match = awaitFulfill(node, timed, nanos);
+						if (match == node) {
+							clean(node);
+							return null;
+						}
+						if ((head = this.head) != null && head.next == node) {
+							/* Help the fulfiller pop the pair. */
+							casHead(head, node.next);
+						}
+						return mode == REQUEST ? match.item : node.item;
+					}
+				} else if (!isFulfilling(head.mode)) {
+					/*
+					 * A waiter of the other kind, push a fulfilling node and
+					 * match it to the first waiter still waiting.
+					 */
+					if (head.isCancelled()) {
+						casHead(head, head.next);
+					} else if (casHead(head, node = push(node, value, head, FULFILLING | mode))) {
+						while (true) {
+							final StackNode match = node.next;
+							if (match == null) {
+								/* All the waiters have gone, start again. */
+								casHead(node, null);
+								node = null;
+								break;
+							}
+							final StackNode next = match.next;
+							if (match.tryMatch(node)) {
+								casHead(node, next);
+								return mode == REQUEST ? match.item : node.item;
+							}
+							node.casNext(match, next);
+						}
+					}
+				} else {
+					/*
+					 * Another thread is fulfilling, help it along.
+					 */
+					final StackNode match = head.next;
+					if (match == null) {
+						casHead(head, null);
+					} else {
+						final StackNode next = match.next;
+						if (match.tryMatch(head)) {
+							casHead(head, next);
+						} else {
+							head.casNext(match, next);
+						}
+					}
+				}
+			}
+		}
+
+		private StackNode push(StackNode node, Object value, StackNode next, int mode) {
+			if (node == null) {
+				node = new StackNode(value);
+			}
+			node.mode = mode;
+			node.next = next;
+			return node;
+		}
+
+		private StackNode awaitFulfill(StackNode node, boolean timed, long nanos) {
+			final long deadline = timed ? System.nanoTime() + nanos : 0L;
+			final Thread thread = Thread.currentThread();
+			int spins = shouldSpin(node) ? (timed ? MAX_TIMED_SPINS : MAX_UNTIMED_SPINS) : 0;
+			while (true) {
+				if (isCancelledByUs(thread)) {
+					node.tryCancel();
+				}
+				final StackNode match = node.match;
+				if (match != null) {
+					return match;
+				}
+				if (timed) {
+					nanos = deadline - System.nanoTime();
+					if (nanos <= 0L) {
+						node.tryCancel();
+						continue;
+					}
+				}
+				if (spins > 0) {
+					spins = shouldSpin(node) ? spins - 1 : 0;
+				} else if (node.waiter == null) {
+					/* Set, and then re-check, before parking. */
+					node.waiter = thread;
+				} else if (!timed) {
+					LockSupport.park(this);
+				} else if (nanos > SPIN_FOR_TIMEOUT_THRESHOLD) {
+					LockSupport.parkNanos(this, nanos);
+				}
+			}
+		}
+
+		/*
+		 * Only spin at the head of the stack, or if a fulfiller is about to
+		 * reach us.
+		 */
+		private boolean shouldSpin(StackNode node) {
+			final StackNode head = this.head;
+			return head == node || head == null || isFulfilling(head.mode);
+		}
+
+		/*
+		 * Unlink the cancelled node, and any other cancelled nodes found on the
+		 * way to it.
+		 */
+		private void clean(StackNode node) {
+			node.item = null;
+			node.waiter = null;
+			StackNode past = node.next;
+			if (past != null && past.isCancelled()) {
+				past = past.next;
+			}
+			StackNode current = null;
+			while ((current = this.head) != null && current != past && current.isCancelled()) {
+				casHead(current, current.next);
+			}
+			while (current != null && current != past) {
+				final StackNode next = current.next;
+				if (next != null && next.isCancelled()) {
+					current.casNext(next, next.next);
+				} else {
+					current = next;
+				}
+			}
+		}
+
+		boolean hasWaiting(boolean data) {
+			for (StackNode node = this.head; node != null; node = node.next) {
+				if (!isFulfilling(node.mode) && node.match == null) {
+					return (node.mode == DATA) == data;
+				}
+			}
+			return false;
+		}
+
+		void cancelAll() {
+			for (StackNode node = this.head; node != null; node = node.next) {
+				if (!isFulfilling(node.mode)) {
+					node.tryCancel();
+					final Thread waiter = node.waiter;
+					if (waiter != null) {
+						LockSupport.unpark(waiter);
+					}
+				}
+			}
+		}
+
+		static final AtomicReferenceFieldUpdater<DualStack, StackNode> HEAD =
+			AtomicReferenceFieldUpdater.newUpdater(DualStack.class, StackNode.class, "head");
+	}
+
+	/*
+	 * -------------------------------------------------------------------------
+	 * Fair mode.
+	 * -------------------------------------------------------------------------
+	 */
+
+	private static final class QueueNode {
+		volatile QueueNode next = null;
+		volatile Object item;
+		volatile Thread waiter = null;
+		final boolean isData;
+
+		QueueNode(Object item, boolean isData) {
+			this.item = item;
+			this.isData = isData;
+		}
+
+		boolean casNext(QueueNode expected, QueueNode next) {
+			return this.next == expected && NEXT.compareAndSet(this, expected, next);
+		}
+
+		boolean casItem(Object expected, Object item) {
+			return this.item == expected && ITEM.compareAndSet(this, expected, item);
+		}
+
+		void tryCancel(Object expected) {
+			ITEM.compareAndSet(this, expected, this);
+		}
+
+		boolean isCancelled() {
+			return this.item == this;
+		}
+
+		/*
+		 * Nodes that have passed the head point to themselves.
+		 */
+		boolean isOffList() {
+			return this.next == this;
+		}
+
+		/*
+		 * Still waiting: neither cancelled nor fulfilled.
+		 */
+		boolean isWaiting() {
+			final Object item = this.item;
+			return item != this && (item != null) == this.isData;
+		}
+
+		static final AtomicReferenceFieldUpdater<QueueNode, QueueNode> NEXT =
+			AtomicReferenceFieldUpdater.newUpdater(QueueNode.class, QueueNode.class, "next");
+		static final AtomicReferenceFieldUpdater<QueueNode, Object> ITEM =
+			AtomicReferenceFieldUpdater.newUpdater(QueueNode.class, Object.class, "item");
+	}
+
+	private static final class DualQueue extends Transferer {
+
+		volatile QueueNode head;
+		volatile QueueNode tail;
+
+		DualQueue(RendezvousQueue<?> queue) {
+			super(queue);
+			final QueueNode dummy = new QueueNode(null, false);
+			this.head = dummy;
+			this.tail = dummy;
+		}
+
+		private void advanceHead(QueueNode expected, QueueNode head) {
+			if (this.head == expected && HEAD.compareAndSet(this, expected, head)) {
+				expected.next = expected;
+			}
+		}
+
+		private void advanceTail(QueueNode expected, QueueNode tail) {
+			if (this.tail == expected) {
+				TAIL.compareAndSet(this, expected, tail);
+			}
+		}
+
+		Object transfer(Object value, boolean timed, long nanos) {
+			final boolean isData = value != null;
+			QueueNode node = null;
+			while (true) {
+				if (isPoisoned()) {
+					return null;
+				}
+				final QueueNode tail = this.tail;
+				final QueueNode head = this.head;
+				if (head == tail || tail.isData == isData) {
+					/*
+					 * Empty, or only waiters of our own kind, append and wait.
+					 */
+					final QueueNode next = tail.next;
+					if (tail != this.tail) {
+						continue;
+					}
+					if (next != null) {
+						advanceTail(tail, next);
+						continue;
+					}
+					if (timed && nanos <= 0L) {
+						return null;
+					}
+					if (node == null) {
+						node = new QueueNode(value, isData);
+					}
+					if (!tail.casNext(null, node)) {
+						continue;
+					}
+					advanceTail(tail, node);
+					final Object item = awaitFulfill(node, value, timed, nanos);
+					if (item == node) {
+						clean(tail, node);
+						return null;
+					}
+					if (!node.isOffList()) {
+						advanceHead(tail, node);
+						if (item != null) {
+							node.item = node;
+						}
+						node.waiter = null;
+					}
+					return item != null ? item : value;
+				} else {
+					/*
+					 * A waiter of the other kind, fulfil the first one.
+					 */
+					final QueueNode match = head.next;
+					if (tail != this.tail || match == null || head != this.head) {
+						continue;
+					}
+					final Object item = match.item;
+					if (isData == (item != null) || item == match || !match.casItem(item, value)) {
+						/* Already fulfilled or cancelled, skip it. */
+						advanceHead(head, match);
+						continue;
+					}
+					advanceHead(head, match);
+					LockSupport.unpark(match.waiter);
+					return item != null ? item : value;
+				}
+			}
+		}
+
+		private Object awaitFulfill(QueueNode node, Object value, boolean timed, long nanos) {
+			final long deadline = timed ? System.nanoTime() + nanos : 0L;
+			final Thread thread = Thread.currentThread();
+			int spins = this.head.next == node ? (timed ? MAX_TIMED_SPINS : MAX_UNTIMED_SPINS) : 0;
+			while (true) {
+				if (isCancelledByUs(thread)) {
+					node.tryCancel(value);
+				}
+				final Object item = node.item;
+				if (item != value) {
+					return item;
+				}
+				if (timed) {
+					nanos = deadline - System.nanoTime();
+					if (nanos <= 0L) {
+						node.tryCancel(value);
+						continue;
+					}
+				}
+				if (spins > 0) {
+					spins--;
+				} else if (node.waiter == null) {
+					/* Set, and then re-check, before parking. */
+					node.waiter = thread;
+				} else if (!timed) {
+					LockSupport.park(this);
+				} else if (nanos > SPIN_FOR_TIMEOUT_THRESHOLD) {
+					LockSupport.parkNanos(this, nanos);
+				}
+			}
+		}
+
+		/*
+		 * Unlink the cancelled node from its predecessor. A cancelled node at
+		 * the tail cannot be unlinked safely, it is left in place and skipped
+		 * once it reaches the head.
+		 */
+		private void clean(QueueNode previous, QueueNode node) {
+			node.waiter = null;
+			while (previous.next == node) {
+				final QueueNode head = this.head;
+				final QueueNode first = head.next;
+				if (first != null && first.isCancelled()) {
+					advanceHead(head, first);
+					continue;
+				}
+				final QueueNode tail = this.tail;
+				if (tail == head) {
+					return;
+				}
+				final QueueNode last = tail.next;
+				if (tail != this.tail) {
+					continue;
+				}
+				if (last != null) {
+					advanceTail(tail, last);
+					continue;
+				}
+				if (node != tail) {
+					final QueueNode next = node.next;
+					if (next == node || previous.casNext(node, next)) {
+						return;
+					}
+				} else {
+					return;
+				}
+			}
+		}
+
+		boolean hasWaiting(boolean data) {
+			QueueNode node = this.head.next;
+			while (node != null) {
+				if (node.isWaiting()) {
+					return node.isData == data;
+				}
+				final QueueNode next = node.next;
+				node = next == node ? this.head.next : next;
+			}
+			return false;
+		}
+
+		void cancelAll() {
+			QueueNode node = this.head.next;
+			while (node != null) {
+				final Object item = node.item;
+				if (item != node && (item != null) == node.isData) {
+					node.tryCancel(item);
+				}
+				final Thread waiter = node.waiter;
+				if (waiter != null) {
+					LockSupport.unpark(waiter);
+				}
+				final QueueNode next = node.next;
+				node = next == node ? this.head.next : next;
+			}
+		}
+
+		static final AtomicReferenceFieldUpdater<DualQueue, QueueNode> HEAD =
+			AtomicReferenceFieldUpdater.newUpdater(DualQueue.class, QueueNode.class, "head");
+		static final AtomicReferenceFieldUpdater<DualQueue, QueueNode> TAIL =
+			AtomicReferenceFieldUpdater.newUpdater(DualQueue.class, QueueNode.class, "tail");
+	}
+}
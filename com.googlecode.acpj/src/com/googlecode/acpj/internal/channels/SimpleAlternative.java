@@ -0,0 +1,207 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.googlecode.acpj.channels.Alternative;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.internal.actors.ActorPoolExecutor;
+
+/**
+ * <p>
+ * Internal - implementation of the {@link com.googlecode.acpj.channels.Alternative}
+ * interface for ports on {@link SimpleChannel}s. When no port is ready the
+ * selecting thread registers itself once with each channel and parks, the
+ * channels wake all registered threads whenever a value is written (or a
+ * writer arrives on an unbuffered channel) or the channel is poisoned. The
+ * thread stays registered, re-checking the ports each time it wakes, until 
+ * the select completes.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class SimpleAlternative implements Alternative {
+
+	private Policy policy = null;
+
+	private SimpleReadPort<?>[] ports = null;
+
+	/*
+	 * Where a FAIR select starts scanning, only ever used by the actor that
+	 * owns the ports.
+	 */
+	private int next = 0;
+
+	public SimpleAlternative(Policy policy, ReadPort<?>... ports) {
+		if (policy == null) {
+			throw new IllegalArgumentException("Policy may not be null.");
+		}
+		this.policy = policy;
+		if (ports == null || ports.length == 0) {
+			throw new IllegalArgumentException("Alternative must have at least one port.");
+		}
+		this.ports = new SimpleReadPort<?>[ports.length];
+		for (int i = 0; i < ports.length; i++) {
+			if (!(ports[i] instanceof SimpleReadPort<?>)) {
+				throw new IllegalArgumentException("Port is not supported by this alternative.");
+			}
+			this.ports[i] = (SimpleReadPort<?>)ports[i];
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Alternative#select()
+	 */
+	public int select() throws IllegalStateException, ChannelException {
+		return await(false, 0L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Alternative#select(long, java.util.concurrent.TimeUnit)
+	 */
+	public int select(long timeout, TimeUnit unit) throws IllegalStateException, ChannelException {
+		return await(true, unit.toNanos(timeout));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Alternative#trySelect()
+	 */
+	public int trySelect() throws IllegalStateException {
+		final int length = this.ports.length;
+		final int start = this.policy == Policy.FAIR ? this.next : 0;
+		for (int i = 0; i < length; i++) {
+			final int index = (start + i) % length;
+			if (channel(index).isReadable()) {
+				this.next = (index + 1) % length;
+				return index;
+			}
+		}
+		return NONE_SELECTED;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Alternative#getPort(int)
+	 */
+	public ReadPort<?> getPort(int index) {
+		return this.ports[index];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Alternative#size()
+	 */
+	public int size() {
+		return this.ports.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.Alternative#getPolicy()
+	 */
+	public Policy getPolicy() {
+		return this.policy;
+	}
+
+	private SimpleChannel<?> channel(int index) throws IllegalStateException {
+		final SimpleReadPort<?> port = this.ports[index];
+		final SimpleChannel<?> channel = port.isClosed() ? null : port.getChannel();
+		if (channel == null) {
+			/*
+			 * The port may be closed by another actor after the check above.
+			 */
+			throw new IllegalStateException("Port is closed.");
+		}
+		return channel;
+	}
+
+	private int await(boolean timed, long nanos) throws IllegalStateException, ChannelException {
+		final int selected = trySelect();
+		if (selected != NONE_SELECTED) {
+			return selected;
+		}
+		if (timed) {
+			return park(true, nanos);
+		}
+		/*
+		 * An untimed select may block indefinitely, so let the actor pool
+		 * compensate for the parked thread.
+		 */
+		final Selector selector = new Selector();
+		try {
+			ActorPoolExecutor.managedBlock(selector);
+		} catch (InterruptedException e) {
+			throw new ChannelException(e);
+		}
+		return selector.selected;
+	}
+
+	private final class Selector implements ForkJoinPool.ManagedBlocker {
+		int selected = NONE_SELECTED;
+
+		public boolean block() {
+			if (this.selected == NONE_SELECTED) {
+				this.selected = park(false, 0L);
+			}
+			return true;
+		}
+
+		public boolean isReleasable() {
+			return this.selected != NONE_SELECTED || (this.selected = trySelect()) != NONE_SELECTED;
+		}
+	}
+
+	private int park(boolean timed, long nanos) throws IllegalStateException, ChannelException {
+		final long deadline = timed ? System.nanoTime() + nanos : 0L;
+		final Thread current = Thread.currentThread();
+		try {
+			for (int i = 0; i < this.ports.length; i++) {
+				channel(i).addSelector(current);
+			}
+			while (true) {
+				final int selected = trySelect();
+				if (selected != NONE_SELECTED) {
+					return selected;
+				}
+				if (Thread.interrupted()) {
+					throw new ChannelException(new InterruptedException());
+				}
+				if (timed) {
+					nanos = deadline - System.nanoTime();
+					if (nanos <= 0L) {
+						return NONE_SELECTED;
+					}
+					LockSupport.parkNanos(this, nanos);
+				} else {
+					LockSupport.park(this);
+				}
+			}
+		} finally {
+			removeSelector(current);
+		}
+	}
+
+	private void removeSelector(Thread thread) {
+		for (int i = 0; i < this.ports.length; i++) {
+			final SimpleChannel<?> channel = this.ports[i].getChannel();
+			if (channel != null) {
+				channel.removeSelector(thread);
+			}
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+
+import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.channels.ByteBufferChannel;
+import com.googlecode.acpj.channels.ByteBufferReadPort;
+import com.googlecode.acpj.channels.ByteBufferWritePort;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ChannelPoisonedException;
+import com.googlecode.acpj.channels.PortArity;
+import com.googlecode.acpj.channels.WaitStrategy;
+import com.googlecode.acpj.internal.actors.ActorPoolExecutor;
+
+/**
+ * <p>
+ * Internal - implementation of the {@link com.googlecode.acpj.channels.ByteBufferChannel}
+ * interface, a {@link SimpleChannel} buffered by a {@link ByteBufferRing}. The
+ * ring storage is either a direct buffer or, if a file is given, a read/write
+ * mapping of the file; note that as with any mapped buffer the mapping is only
+ * released when the channel is garbage collected.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class SimpleByteBufferChannel extends SimpleChannel<ByteBuffer> implements ByteBufferChannel {
+
+	private final ByteBufferRing ring;
+
+	public SimpleByteBufferChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, int slotSize, File file, WaitStrategy waitStrategy) throws IllegalArgumentException, ChannelException {
+		this(name, readPortArity, readPortLimit, writePortArity, writePortLimit, new ByteBufferRing(createStorage(capacity, slotSize, file), capacity, slotSize, waitStrategy));
+	}
+
+	private SimpleByteBufferChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, ByteBufferRing ring) {
+		super(name, readPortArity, readPortLimit, writePortArity, writePortLimit, ring.capacity(), ring);
+		this.ring = ring;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ByteBufferChannel#getSlotSize()
+	 */
+	public int getSlotSize() {
+		return this.ring.getSlotSize();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#getReadPort(boolean)
+	 */
+	@Override
+	public ByteBufferReadPort getReadPort(boolean claimed) throws IllegalStateException, ChannelException {
+		return (ByteBufferReadPort)super.getReadPort(claimed);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#getWritePort(boolean)
+	 */
+	@Override
+	public ByteBufferWritePort getWritePort(boolean claimed) throws IllegalStateException, ChannelException {
+		return (ByteBufferWritePort)super.getWritePort(claimed);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#createReadPort(int, com.googlecode.acpj.actors.Actor)
+	 */
+	@Override
+	protected SimpleReadPort<ByteBuffer> createReadPort(int limit, Actor owner) {
+		return new SimpleByteBufferReadPort(this, limit, owner);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#createWritePort(int, com.googlecode.acpj.actors.Actor)
+	 */
+	@Override
+	protected SimpleWritePort<ByteBuffer> createWritePort(int limit, Actor owner) {
+		return new SimpleByteBufferWritePort(this, limit, owner);
+	}
+
+	/**
+	 * Reserve the next free slot, blocking if the channel is full.
+	 * 
+	 * @return the slot buffer.
+	 */
+	public ByteBuffer reserveSlot() throws ChannelException {
+		if (isPoisoned()) {
+			throw new ChannelPoisonedException();
+		}
+		long position = this.ring.claimInsert();
+		if (position == ByteBufferRing.NONE) {
+			position = awaitSlot(true);
+		}
+		return this.ring.writeView(position);
+	}
+
+	/**
+	 * Publish a slot returned by {@link #reserveSlot()}.
+	 * 
+	 * @param slot the slot buffer.
+	 */
+	public void publishSlot(ByteBuffer slot) throws IllegalArgumentException {
+		this.ring.publish(this.ring.writePosition(slot), slot.position());
+		recordWritten();
+		signalSelectors();
+	}
+
+	/**
+	 * Take a view of the next published slot, blocking if the channel is empty.
+	 * 
+	 * @return the read-only slot view.
+	 */
+	public ByteBuffer readView() throws ChannelException {
+		if (isPoisoned()) {
+			throw new ChannelPoisonedException();
+		}
+		long position = this.ring.claimExtract();
+		if (position == ByteBufferRing.NONE) {
+			position = awaitSlot(false);
+		}
+		recordRead(1);
+		return this.ring.readView(position);
+	}
+
+	/**
+	 * Free the slot for a view returned by {@link #readView()}.
+	 * 
+	 * @param view the read-only slot view.
+	 */
+	public void releaseView(ByteBuffer view) throws IllegalArgumentException {
+		this.ring.release(this.ring.readPosition(view));
+	}
+
+	/*
+	 * As for the generic take and put, the blocker is only created if the slot
+	 * cannot be claimed immediately.
+	 */
+	private long awaitSlot(boolean insert) throws ChannelException {
+		final SlotTaker taker = new SlotTaker(insert);
+		final long started = blockStarted();
+		try {
+			ActorPoolExecutor.managedBlock(taker);
+		} catch (InterruptedException e) {
+			throw new ChannelException(e);
+		} finally {
+			if (insert) {
+				writerBlocked(started);
+			} else {
+				readerWaited(started);
+			}
+		}
+		if (taker.position == ByteBufferRing.NONE) {
+			throw new ChannelPoisonedException();
+		}
+		return taker.position;
+	}
+
+	private final class SlotTaker implements ForkJoinPool.ManagedBlocker {
+		final boolean insert;
+		long position = ByteBufferRing.NONE;
+		boolean done = false;
+
+		SlotTaker(boolean insert) {
+			this.insert = insert;
+		}
+
+		public boolean block() throws InterruptedException {
+			if (!this.done) {
+				this.position = this.insert ? ring.takeInsert() : ring.takeExtract();
+				this.done = true;
+			}
+			return true;
+		}
+
+		public boolean isReleasable() {
+			if (!this.done) {
+				this.position = this.insert ? ring.claimInsert() : ring.claimExtract();
+				this.done = this.position != ByteBufferRing.NONE;
+			}
+			return this.done;
+		}
+	}
+
+	private static ByteBuffer createStorage(int capacity, int slotSize, File file) throws IllegalArgumentException, ChannelException {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Byte buffer channels must have a capacity greater than zero.");
+		}
+		if (slotSize < 1) {
+			throw new IllegalArgumentException("Slot size must be greater than zero.");
+		}
+		final long size = (long)capacity * slotSize;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Channel buffer may not be larger than 2GB.");
+		}
+		if (file == null) {
+			return ByteBuffer.allocateDirect((int)size);
+		}
+		try {
+			final RandomAccessFile mapped = new RandomAccessFile(file, "rw");
+			try {
+				mapped.setLength(size);
+				return mapped.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, size);
+			} finally {
+				/*
+				 * The mapping remains valid once the file is closed.
+				 */
+				mapped.close();
+			}
+		} catch (IOException e) {
+			throw new ChannelException("Could not map channel buffer file.", e);
+		}
+	}
+
+	private static final class SimpleByteBufferReadPort extends SimpleReadPort<ByteBuffer> implements ByteBufferReadPort {
+
+		/*
+		 * Held so that a view may be released after the port is closed.
+		 */
+		private final SimpleByteBufferChannel channel;
+
+		SimpleByteBufferReadPort(SimpleByteBufferChannel channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+			this.channel = channel;
+		}
+
+		public ByteBuffer readView() throws IllegalStateException, ChannelException {
+			checkReadable();
+			acquire();
+			try {
+				return this.channel.readView();
+			} catch (RuntimeException e) {
+				releaseLimit(1);
+				throw e;
+			}
+		}
+
+		public void releaseView(ByteBuffer view) throws IllegalArgumentException {
+			this.channel.releaseView(view);
+		}
+	}
+
+	private static final class SimpleByteBufferWritePort extends SimpleWritePort<ByteBuffer> implements ByteBufferWritePort {
+
+		/*
+		 * Held so that a reserved slot may be published after the port is closed.
+		 */
+		private final SimpleByteBufferChannel channel;
+
+		SimpleByteBufferWritePort(SimpleByteBufferChannel channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+			this.channel = channel;
+		}
+
+		public ByteBuffer reserve() throws IllegalStateException, ChannelException {
+			checkWritable();
+			acquire();
+			try {
+				return this.channel.reserveSlot();
+			} catch (RuntimeException e) {
+				releaseLimit(1);
+				throw e;
+			}
+		}
+
+		public void publish(ByteBuffer slot) throws IllegalArgumentException {
+			this.channel.publishSlot(slot);
+		}
+	}
+}
@@ -8,14 +8,23 @@
  */
 package com.googlecode.acpj.internal.channels;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.ListIterator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import com.googlecode.acpj.actors.Actor;
 import com.googlecode.acpj.actors.ActorFactory;
 import com.googlecode.acpj.channels.BufferedChannel;
 import com.googlecode.acpj.channels.ChannelException;
@@ -24,6 +33,7 @@ import com.googlecode.acpj.channels.Port;
 import com.googlecode.acpj.channels.PortArity;
 import com.googlecode.acpj.channels.ReadPort;
 import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.internal.actors.ActorPoolExecutor;
 
 /**
  * <p>
@@ -38,12 +48,12 @@ import com.googlecode.acpj.channels.WritePort;
  */
 public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChannel<T> {
 	
-	class Item<V> {
-		/*
-		 * Allows the data value to be null, otherwise the BlockingQueue objects.
-		 */
-		V data = null;
-	}
+	/*
+	 * Values are buffered directly, this sentinel is posted to the buffer
+	 * when the channel is poisoned to wake up any waiting readers. It can
+	 * never be confused with a value as it is not visible outside this class.
+	 */
+	static final Object POISON = new Object();
 
 	private static AtomicLong serialNumberGenerator = new AtomicLong(0);
 
@@ -51,19 +61,52 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 	private String name = null;
 	
 	private int capacity = 1;
-	private BlockingQueue<Item<T>> values = null;
+	private BlockingQueue<Object> values = null;
 	
 	private PortArity readArity = null;
 	private int readPortLimit = 0;
 	private Set<ReadPort<T>> readPorts = null; 
+	private final AtomicInteger readPortCount = new AtomicInteger(0);
 	
 	private PortArity writeArity = null;
 	private int writePortLimit = 0;
 	private Set<WritePort<T>> writePorts = null;
+	private final AtomicInteger writePortCount = new AtomicInteger(0);
+	
+	private volatile boolean poisoned = false;
+	
+	private final Waiters selectors = new Waiters();
+	private final Queue<Runnable> listeners = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicInteger pendingWriters = new AtomicInteger(0);
 	
-	private boolean poisoned = false;
+	/*
+	 * Asking the buffer for its size touches the readers' side of the queue,
+	 * or takes its lock, so the occupancy is only sampled on one write in this
+	 * many, and whenever a writer blocks on a full buffer.
+	 */
+	private static final int OCCUPANCY_SAMPLE_RATE = 64;
+	
+	private ChannelStatistics statistics = null;
+	private boolean timestamped = false;
+	
+	/*
+	 * When residency is recorded values are buffered in this envelope, which
+	 * carries the time they were written.
+	 */
+	private static final class Stamped {
+		final Object value;
+		final long written;
+		Stamped(Object value, long written) {
+			this.value = value;
+			this.written = written;
+		}
+	}
 	
 	public SimpleChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity) {
+		this(name, readPortArity, readPortLimit, writePortArity, writePortLimit, capacity, SimpleChannel.<Object>createDefaultBuffer(capacity));
+	}
+
+	public SimpleChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, BlockingQueue<Object> values) {
 		this.name = name;
 	
 		if (readPortArity == null) {
@@ -74,7 +117,7 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 			throw new IllegalArgumentException("Read port limit may not be zero.");
 		}
 		this.readPortLimit = readPortLimit;
-		this.readPorts = new HashSet<ReadPort<T>>(this.readArity == PortArity.ONE ? 1 : 10);
+		this.readPorts = Collections.newSetFromMap(new ConcurrentHashMap<ReadPort<T>, Boolean>(this.readArity == PortArity.ONE ? 1 : 16));
 
 		if (writePortArity == null) {
 			throw new IllegalArgumentException("Write port arity may not be null.");
@@ -84,33 +127,145 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 			throw new IllegalArgumentException("Write port limit may not be zero.");
 		}
 		this.writePortLimit = writePortLimit;
-		this.writePorts = new HashSet<WritePort<T>>(this.writeArity == PortArity.ONE ? 1 : 10);
+		this.writePorts = Collections.newSetFromMap(new ConcurrentHashMap<WritePort<T>, Boolean>(this.writeArity == PortArity.ONE ? 1 : 16));
 
 		this.capacity = capacity;
-		if (this.capacity == 0) {
-			this.values = new SynchronousQueue<Item<T>>(true);
+		if (values == null) {
+			throw new IllegalArgumentException("Channel buffer may not be null.");
+		}
+		this.values = values;
+	}
+
+	/**
+	 * Create the buffer used by default for a channel of the given capacity, this
+	 * is safe for any combination of read and write port arity.
+	 * 
+	 * @param capacity the buffer capacity, or zero for an unbuffered channel.
+	 * 
+	 * @return a new queue to act as the channel buffer.
+	 */
+	public static <E> BlockingQueue<E> createDefaultBuffer(int capacity) {
+		if (capacity == 0) {
+			return new RendezvousQueue<E>(true);
 		} else {
-			this.values = new LinkedBlockingQueue<Item<T>>(this.capacity == BUFFER_CAPACITY_UNLIMITED ? Integer.MAX_VALUE : this.capacity);
+			return new LinkedBlockingQueue<E>(capacity == BUFFER_CAPACITY_UNLIMITED ? Integer.MAX_VALUE : capacity);
 		}
 	}
 
+	@SuppressWarnings("unchecked")
 	public T readValue() throws IllegalStateException, ChannelException {
 		if (isPoisoned()) {
 			throw new ChannelPoisonedException();
 		}
-		T value = null;
+		Object value = null;
+		try {
+			value = takeValue();
+		} catch (InterruptedException e) {
+			throw new ChannelException(e);
+		}
+		return (T)checkValue(value);
+	}
+	
+	/**
+	 * Read a value from the channel, waiting no longer than the timeout given for
+	 * one to become available. 
+	 * 
+	 * @param timeout how long to wait, zero (or less) to not wait at all.
+	 * @param unit the unit of the timeout value.
+	 * 
+	 * @return the value read, or <code>null</code> if the timeout expired.
+	 */
+	@SuppressWarnings("unchecked")
+	public T readValue(long timeout, TimeUnit unit) throws IllegalStateException, ChannelException {
+		if (isPoisoned()) {
+			throw new ChannelPoisonedException();
+		}
+		Object value = this.values.poll();
 		try {
-			Item<T> temp = this.values.take();
-			value = temp.data;
+			if (value == null && timeout > 0L) {
+				final long started = blockStarted();
+				value = this.values.poll(timeout, unit);
+				readerWaited(started);
+			}
 		} catch (InterruptedException e) {
 			throw new ChannelException(e);
 		}
+		if (value == null) {
+			return null;
+		}
+		return (T)checkValue(value);
+	}
+	
+	private Object checkValue(Object value) throws ChannelPoisonedException {
+		if (this.timestamped) {
+			value = unstamp(value);
+		}
+		if (value != POISON) {
+			recordRead(1);
+			if (this.capacity == 0) {
+				handedOff(1);
+			}
+		}
+		if (value == POISON) {
+			/*
+			 * Pass the sentinel on to wake up the next waiting reader, if any.
+			 */
+			this.values.offer(POISON);
+			throw new ChannelPoisonedException();
+		}
 		if (isPoisoned()) {
 			throw new ChannelPoisonedException();
 		}
 		return value;
 	}
 	
+	/**
+	 * Read at least one, and at most the given number of, values from the channel. 
+	 * Only the first value is waited for, the rest are those already buffered.
+	 * 
+	 * @param values the list to append the values read to.
+	 * @param maxValues the maximum number of values to read.
+	 * 
+	 * @return the number of values read.
+	 */
+	@SuppressWarnings("unchecked")
+	public int readValues(List<? super T> values, int maxValues) throws IllegalStateException, ChannelException {
+		final List<Object> batch = (List<Object>)values;
+		final int start = batch.size();
+		batch.add(readValue());
+		if (maxValues > 1 && this.values.drainTo(batch, maxValues - 1) > 0) {
+			/*
+			 * Queues that are not poisonable hold the sentinel as their last 
+			 * value, if it was drained pass it on for the next reader.
+			 */
+			final int last = batch.size() - 1;
+			if (batch.get(last) == POISON) {
+				batch.remove(last);
+				this.values.offer(POISON);
+			}
+			if (this.timestamped) {
+				for (ListIterator<Object> iterator = batch.listIterator(start + 1); iterator.hasNext();) {
+					iterator.set(unstamp(iterator.next()));
+				}
+			}
+			recordRead(batch.size() - start - 1);
+			if (this.capacity == 0) {
+				handedOff(batch.size() - start - 1);
+			}
+		}
+		if (isPoisoned()) {
+			throw new ChannelPoisonedException();
+		}
+		return batch.size() - start;
+	}
+	
+	/**
+	 * Write a value to the channel, blocking until the value is accepted. If this 
+	 * throws the value was not written, the caller must check whether the channel 
+	 * was poisoned once the value was written (see {@link SimpleWritePort#checkPoisoned(SimpleChannel)}).
+	 * 
+	 * @param value the value to write.
+	 */
 	public void writeValue(T value) throws IllegalStateException, ChannelException {
 		if (isPoisoned()) {
 			throw new ChannelPoisonedException();
@@ -119,15 +274,362 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 			throw new IllegalArgumentException("Value may not be null.");
 		}
 		try {
-			Item<T> temp = new Item<T>();
-			temp.data = value;
-			this.values.put(temp);
+			putValue(value);
 		} catch (InterruptedException e) {
 			throw new ChannelException(e);
 		}
+	}
+	
+	/**
+	 * Write a value to the channel, waiting no longer than the timeout given for
+	 * the value to be accepted (buffered, or taken by a reader if unbuffered). 
+	 * As above, if this throws the value was not written.
+	 * 
+	 * @param value the value to write.
+	 * @param timeout how long to wait, zero (or less) to not wait at all.
+	 * @param unit the unit of the timeout value.
+	 * 
+	 * @return <code>true</code> if the value was written, <code>false</code> if the
+	 *         timeout expired.
+	 */
+	public boolean writeValue(T value, long timeout, TimeUnit unit) throws IllegalStateException, ChannelException {
 		if (isPoisoned()) {
 			throw new ChannelPoisonedException();
 		}
+		if (value == null) {
+			throw new IllegalArgumentException("Value may not be null.");
+		}
+		boolean written = false;
+		try {
+			written = offerValue(value, timeout, unit);
+		} catch (InterruptedException e) {
+			throw new ChannelException(e);
+		}
+		return written;
+	}
+	
+	/*
+	 * For an unbuffered channel a writer is counted as pending while it waits for 
+	 * a reader, this is what makes the channel ready for an alternative. For a 
+	 * buffered channel the alternatives are woken once the value is buffered.
+	 */
+	private void putValue(Object value) throws InterruptedException {
+		if (this.timestamped) {
+			value = new Stamped(value, System.nanoTime());
+		}
+		if (this.capacity == 0) {
+			this.pendingWriters.incrementAndGet();
+			signalSelectors();
+			boolean written = false;
+			try {
+				putValueBlocking(value);
+				written = true;
+			} finally {
+				if (!written) {
+					this.pendingWriters.decrementAndGet();
+				}
+			}
+			recordWritten();
+		} else {
+			putValueBlocking(value);
+			recordWritten();
+			signalSelectors();
+		}
+	}
+	
+	/*
+	 * For an unbuffered channel the reader, not the writer, accounts for a
+	 * value handed off so that the channel no longer appears readable once
+	 * the read has returned (the writer may not yet have been scheduled).
+	 * A writer only does so itself if its value was never taken.
+	 */
+	private void handedOff(int count) {
+		if (count > 0) {
+			this.pendingWriters.addAndGet(-count);
+		}
+	}
+	
+	/*
+	 * The blocking take and put are run as managed blockers so that a pool
+	 * running the calling actor can compensate for the blocked thread. The
+	 * blockers are only created if the operation cannot complete immediately.
+	 */
+	private Object takeValue() throws InterruptedException {
+		final Object value = this.values.poll();
+		if (value != null) {
+			return value;
+		}
+		final ValueTaker taker = new ValueTaker();
+		final long started = blockStarted();
+		ActorPoolExecutor.managedBlock(taker);
+		readerWaited(started);
+		return taker.value;
+	}
+	
+	private void putValueBlocking(Object value) throws InterruptedException {
+		if (!this.values.offer(value)) {
+			final long started = blockStarted();
+			ActorPoolExecutor.managedBlock(new ValuePutter(value));
+			writerBlocked(started);
+		}
+	}
+	
+	private final class ValueTaker implements ForkJoinPool.ManagedBlocker {
+		Object value = null;
+
+		public boolean block() throws InterruptedException {
+			if (this.value == null) {
+				this.value = SimpleChannel.this.values.take();
+			}
+			return true;
+		}
+
+		public boolean isReleasable() {
+			return this.value != null || (this.value = SimpleChannel.this.values.poll()) != null;
+		}
+	}
+	
+	private final class ValuePutter implements ForkJoinPool.ManagedBlocker {
+		final Object value;
+		boolean done = false;
+		
+		ValuePutter(Object value) {
+			this.value = value;
+		}
+
+		public boolean block() throws InterruptedException {
+			if (!this.done) {
+				SimpleChannel.this.values.put(this.value);
+				this.done = true;
+			}
+			return true;
+		}
+
+		public boolean isReleasable() {
+			return this.done || (this.done = SimpleChannel.this.values.offer(this.value));
+		}
+	}
+	
+	private boolean offerValue(Object value, long timeout, TimeUnit unit) throws InterruptedException {
+		if (this.timestamped) {
+			value = new Stamped(value, System.nanoTime());
+		}
+		boolean written = false;
+		if (this.capacity == 0) {
+			this.pendingWriters.incrementAndGet();
+			try {
+				if (timeout <= 0L) {
+					written = this.values.offer(value);
+				} else {
+					signalSelectors();
+					written = offerTimed(value, timeout, unit);
+				}
+			} finally {
+				if (!written) {
+					this.pendingWriters.decrementAndGet();
+				}
+			}
+		} else if (timeout <= 0L) {
+			written = this.values.offer(value);
+		} else {
+			written = offerTimed(value, timeout, unit);
+		}
+		if (written) {
+			recordWritten();
+			if (this.capacity != 0) {
+				signalSelectors();
+			}
+		}
+		return written;
+	}
+	
+	private boolean offerTimed(Object value, long timeout, TimeUnit unit) throws InterruptedException {
+		if (this.statistics == null) {
+			return this.values.offer(value, timeout, unit);
+		}
+		if (this.values.offer(value)) {
+			return true;
+		}
+		final long started = blockStarted();
+		final boolean written = this.values.offer(value, timeout, unit);
+		writerBlocked(started);
+		return written;
+	}
+	
+	/**
+	 * Start recording the channel statistics, this is done by the factory 
+	 * before the channel is returned (if channel monitoring is enabled).
+	 * 
+	 * @param histograms if <code>true</code> also record histograms.
+	 * @param timestamps if <code>true</code>, and histograms are recorded, 
+	 *        time each value from being written to being read. The buffer must
+	 *        hold values in memory as they are wrapped to carry the time. 
+	 */
+	void enableStatistics(boolean histograms, boolean timestamps) {
+		this.statistics = new ChannelStatistics(histograms);
+		this.timestamped = histograms && timestamps;
+	}
+	
+	/**
+	 * Return the statistics recorded for this channel.
+	 * 
+	 * @return the statistics, or <code>null</code> if none are recorded.
+	 */
+	ChannelStatistics getStatistics() {
+		return this.statistics;
+	}
+	
+	/**
+	 * Note the time at which a read or write found it had to block, to be
+	 * passed to {@link #writerBlocked(long)} or {@link #readerWaited(long)}.
+	 * 
+	 * @return the current time, or zero if no statistics are recorded.
+	 */
+	protected final long blockStarted() {
+		return this.statistics != null ? System.nanoTime() : 0L;
+	}
+	
+	/**
+	 * Record the time a writer was blocked.
+	 * 
+	 * @param started the value returned by {@link #blockStarted()}.
+	 */
+	protected final void writerBlocked(long started) {
+		final ChannelStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.writerBlocked(System.nanoTime() - started);
+			if (this.capacity > 0) {
+				/*
+				 * The writer only blocks on a full buffer.
+				 */
+				statistics.occupied(this.capacity);
+			}
+		}
+	}
+	
+	/**
+	 * Record the time a reader waited.
+	 * 
+	 * @param started the value returned by {@link #blockStarted()}.
+	 */
+	protected final void readerWaited(long started) {
+		final ChannelStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.readerWaited(System.nanoTime() - started);
+		}
+	}
+	
+	/**
+	 * Record a value written, and occasionally the resulting buffer occupancy.
+	 */
+	protected final void recordWritten() {
+		final ChannelStatistics statistics = this.statistics;
+		if (statistics != null && !this.poisoned) {
+			statistics.written();
+			if (this.capacity != 0 && ThreadLocalRandom.current().nextInt(OCCUPANCY_SAMPLE_RATE) == 0) {
+				statistics.occupied(this.values.size());
+			}
+		}
+	}
+	
+	/*
+	 * Record the time the value spent in the channel, and return it from its
+	 * envelope.
+	 */
+	private Object unstamp(Object value) {
+		if (value instanceof Stamped) {
+			final Stamped stamped = (Stamped)value;
+			this.statistics.resided(System.nanoTime() - stamped.written);
+			return stamped.value;
+		}
+		return value;
+	}
+	
+	/**
+	 * Record values read.
+	 * 
+	 * @param count the number of values read.
+	 */
+	protected final void recordRead(int count) {
+		final ChannelStatistics statistics = this.statistics;
+		if (statistics != null && count > 0) {
+			statistics.read(count);
+		}
+	}
+	
+	/**
+	 * Wake any alternatives and listeners waiting for this channel to become
+	 * ready to read.
+	 */
+	void signalSelectors() {
+		if (!this.selectors.isEmpty()) {
+			this.selectors.unparkAll();
+		}
+		if (!this.listeners.isEmpty()) {
+			signalListeners();
+		}
+	}
+	
+	private void signalListeners() {
+		for (Runnable listener : this.listeners) {
+			listener.run();
+		}
+	}
+	
+	/**
+	 * Determine whether a read on this channel would complete without blocking, 
+	 * either with a value or because the channel is poisoned. 
+	 * 
+	 * @return <code>true</code> if the channel is ready to read.
+	 */
+	boolean isReadable() {
+		if (this.poisoned) {
+			return true;
+		} else if (this.capacity == 0) {
+			return this.pendingWriters.get() > 0;
+		} else {
+			return !this.values.isEmpty();
+		}
+	}
+	
+	/**
+	 * Register a thread, blocked in an alternative, to be woken whenever this 
+	 * channel may have become ready to read. The thread stays registered until
+	 * it is removed with {@link #removeSelector(Thread)}.
+	 * 
+	 * @param thread the thread about to park.
+	 */
+	void addSelector(Thread thread) {
+		this.selectors.add(thread);
+	}
+	
+	/**
+	 * Remove a thread registered by {@link #addSelector(Thread)}.
+	 * 
+	 * @param thread the thread no longer waiting.
+	 */
+	void removeSelector(Thread thread) {
+		this.selectors.remove(thread);
+	}
+	
+	/**
+	 * Register a listener to be called when this channel may have become ready
+	 * to read, it is called by the writing (or poisoning) thread so must not 
+	 * block.
+	 * 
+	 * @param listener the listener to call.
+	 */
+	void addListener(Runnable listener) {
+		this.listeners.add(listener);
+	}
+	
+	/**
+	 * Remove a listener registered by {@link #addListener(Runnable)}.
+	 * 
+	 * @param listener the listener no longer interested.
+	 */
+	void removeListener(Runnable listener) {
+		this.listeners.remove(listener);
 	}
 	
 	/*
@@ -139,27 +641,24 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 		if (isPoisoned()) {
 			throw new ChannelPoisonedException();
 		}
+		/*
+		 * The count is reserved before the port is created so that concurrent
+		 * callers cannot both pass the arity check.
+		 */
 		if (this.readArity == PortArity.ONE) {
-			if (this.readPorts.size() == 0) {
-				ReadPort<T> newPort = new SimpleReadPort<T>(
-						this, 
-						this.readPortLimit, 
-						claimed ? ActorFactory.getInstance().getCurrentActor() : null);
-				if (this.readPorts.add(newPort) == true) {
-					return newPort;
-				}
-			} else {
-				throw new ChannelException("Port arity invalid for write port.");
+			if (!this.readPortCount.compareAndSet(0, 1)) {
+				throw new ChannelException("Port arity invalid for read port.");
 			}
 		} else {
-			ReadPort<T> newPort = new SimpleReadPort<T>(
-					this, 
-					this.readPortLimit, 
-					claimed ? ActorFactory.getInstance().getCurrentActor() : null);
-			if (this.readPorts.add(newPort) == true) {
-				return newPort;
-			}
+			this.readPortCount.incrementAndGet();
+		}
+		ReadPort<T> newPort = createReadPort(
+				this.readPortLimit, 
+				claimed ? ActorFactory.getInstance().getCurrentActor() : null);
+		if (this.readPorts.add(newPort) == true) {
+			return newPort;
 		}
+		this.readPortCount.decrementAndGet();
 		throw new ChannelException("Could not create ReadPort");
 	}
 
@@ -199,6 +698,16 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 		return this.capacity;
 	}
 
+	/**
+	 * Return the queue used to buffer values, this is mainly of use to 
+	 * determine which implementation the factory selected.
+	 * 
+	 * @return the channel buffer.
+	 */
+	public BlockingQueue<Object> getBuffer() {
+		return this.values;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.channels.BufferedChannel#size()
@@ -215,35 +724,62 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 		if (isPoisoned()) {
 			throw new ChannelPoisonedException();
 		}
+		/*
+		 * The count is reserved before the port is created so that concurrent
+		 * callers cannot both pass the arity check.
+		 */
 		if (this.writeArity == PortArity.ONE) {
-			if (this.writePorts.size() == 0) {
-				WritePort<T> newPort = new SimpleWritePort<T>(
-						this, 
-						this.writePortLimit, 
-						claimed ? ActorFactory.getInstance().getCurrentActor() : null);
-				if (this.writePorts.add(newPort) == true) {
-					return newPort;
-				}
-			} else {
+			if (!this.writePortCount.compareAndSet(0, 1)) {
 				throw new ChannelException("Port arity invalid for write port.");
 			}
 		} else {
-			WritePort<T> newPort = new SimpleWritePort<T>(
-					this, 
-					this.writePortLimit, 
-					claimed ? ActorFactory.getInstance().getCurrentActor() : null);
-			if (this.writePorts.add(newPort) == true) {
-				return newPort;
-			}
+			this.writePortCount.incrementAndGet();
 		}
+		WritePort<T> newPort = createWritePort(
+				this.writePortLimit, 
+				claimed ? ActorFactory.getInstance().getCurrentActor() : null);
+		if (this.writePorts.add(newPort) == true) {
+			return newPort;
+		}
+		this.writePortCount.decrementAndGet();
 		throw new ChannelException("Could not create WritePort");
 	}
 	
+	/**
+	 * Create a new read port on this channel, subclasses override this to
+	 * return their own port type.
+	 * 
+	 * @param limit the read limit for the port.
+	 * @param owner the actor owning the port, or <code>null</code> if unclaimed.
+	 * 
+	 * @return a new read port.
+	 */
+	protected SimpleReadPort<T> createReadPort(int limit, Actor owner) {
+		return new SimpleReadPort<T>(this, limit, owner);
+	}
+	
+	/**
+	 * Create a new write port on this channel, subclasses override this to
+	 * return their own port type.
+	 * 
+	 * @param limit the write limit for the port.
+	 * @param owner the actor owning the port, or <code>null</code> if unclaimed.
+	 * 
+	 * @return a new write port.
+	 */
+	protected SimpleWritePort<T> createWritePort(int limit, Actor owner) {
+		return new SimpleWritePort<T>(this, limit, owner);
+	}
+	
 	public void closePort(Port<T> port) {
 		if (port instanceof ReadPort<?>) {
-			this.readPorts.remove(port);
+			if (this.readPorts.remove(port)) {
+				this.readPortCount.decrementAndGet();
+			}
 		} else {
-			this.writePorts.remove(port);
+			if (this.writePorts.remove(port)) {
+				this.writePortCount.decrementAndGet();
+			}
 		}
 	}
 
@@ -272,18 +808,41 @@ public class SimpleChannel<T> implements BufferedChannel<T>, SimpleMonitoredChan
 		return this.poisoned;
 	}
 	
+	@SuppressWarnings("unchecked")
 	private void shutdown() {
-		/*
-		 * Clear the buffer of any outstanding value(s).
-		 */
-		this.values.clear();
-		try {
+		if (this.values instanceof PoisonableQueue<?>) {
 			/*
-			 * Now post a sentinel to wake up any remaining threads.
+			 * The buffer may not support us clearing it or posting a
+			 * sentinel, so let it wake up any remaining threads itself.
 			 */
-			this.values.put(new Item<T>());
-		} catch (InterruptedException e) {
+			((PoisonableQueue<Object>)this.values).poison(POISON);
+		} else if (this.capacity == 0) {
+			/*
+			 * Hand the sentinel to each reader already waiting, readers that 
+			 * arrive later will see the channel is poisoned. Putting it would
+			 * block the poisoning actor until a reader arrives.
+			 */
+			while (this.values.offer(POISON)) {
+			}
+		} else {
+			/*
+			 * Clear the buffer of any outstanding value(s).
+			 */
+			this.values.clear();
+			try {
+				/*
+				 * Now post a sentinel to wake up any remaining threads.
+				 */
+				this.values.put(POISON);
+			} catch (InterruptedException e) {
+			}
 		}
+		/*
+		 * Wake any actors selecting on this channel, it is now ready to read
+		 * (although all they will read is the poison).
+		 */
+		this.selectors.unparkAll();
+		signalListeners();
 		/*
 		 * Orphan all the outstanding ports, we are not allowed to create any more.
 		 */
@@ -0,0 +1,51 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.DoubleChannel;
+import com.googlecode.acpj.channels.DoubleReadPort;
+import com.googlecode.acpj.channels.DoubleWritePort;
+import com.googlecode.acpj.channels.PortArity;
+import com.googlecode.acpj.channels.WaitStrategy;
+
+/**
+ * <p>
+ * Internal - implementation of the {@link com.googlecode.acpj.channels.DoubleChannel}
+ * interface.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class SimpleDoubleChannel extends SimplePrimitiveChannel<Double> implements DoubleChannel {
+
+	public SimpleDoubleChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, int capacity, WaitStrategy waitStrategy) {
+		super(name, readPortArity, readPortLimit, writePortArity, writePortLimit, new PrimitiveRingBuffer(PrimitiveRingBuffer.Type.DOUBLE, capacity, waitStrategy));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#getReadPort(boolean)
+	 */
+	@Override
+	public DoubleReadPort getReadPort(boolean claimed) throws IllegalStateException, ChannelException {
+		return (DoubleReadPort)super.getReadPort(claimed);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#getWritePort(boolean)
+	 */
+	@Override
+	public DoubleWritePort getWritePort(boolean claimed) throws IllegalStateException, ChannelException {
+		return (DoubleWritePort)super.getWritePort(claimed);
+	}
+}
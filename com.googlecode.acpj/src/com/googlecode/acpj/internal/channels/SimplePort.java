@@ -8,6 +8,9 @@
  */
 package com.googlecode.acpj.internal.channels;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.googlecode.acpj.actors.Actor;
 import com.googlecode.acpj.actors.ActorFactory;
 import com.googlecode.acpj.channels.ChannelException;
@@ -18,6 +21,12 @@ import com.googlecode.acpj.channels.Port;
  * <p>
  * Internal - implmementation of the {@link com.googlecode.acpj.channels.Port} interface.
  * </p>
+ * <p>
+ * The owner and the remaining limit are held in atomic fields, the limit is 
+ * reserved with a CAS before each operation and returned if the operation does
+ * not complete, so no lock is taken on a read or write and a limited port is
+ * never over- or under-counted.
+ * </p>
  * 
  * @author Simon Johnston (simon@johnstonshome.org)
  * @since 0.1.0
@@ -27,13 +36,13 @@ public class SimplePort<T> implements Port<T> {
 	
 	public static final int PORT_LIMIT_EXCEEDED = 0;
 	
-	protected SimpleChannel<T> channel = null;
+	protected volatile SimpleChannel<T> channel = null;
 
-	protected int limit = 0;
+	private final AtomicInteger limit;
 
-	protected Actor owner = null;
+	private final AtomicReference<Actor> owner;
 	
-	protected boolean closed = false;
+	protected volatile boolean closed = false;
 
 	public SimplePort(SimpleChannel<T> channel, int limit, Actor owner) {
 		if (channel == null) {
@@ -43,22 +52,51 @@ public class SimplePort<T> implements Port<T> {
 		if (limit == PORT_LIMIT_EXCEEDED) {
 			throw new IllegalArgumentException("Port limit invalid for port.");			
 		}
-		this.limit = limit;
-		this.owner = owner;
+		this.limit = new AtomicInteger(limit);
+		this.owner = new AtomicReference<Actor>(owner);
 	}
 	
 	public int getLimit() {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
-		return this.limit;
+		return this.limit.get();
+	}
+	
+	/**
+	 * Reserve part of the remaining limit for an operation.
+	 * 
+	 * @param count the number of values the operation may transfer.
+	 * @param all if <code>true</code> reserve all of <code>count</code> or nothing, 
+	 *        otherwise reserve as much as remains up to <code>count</code>.
+	 * 
+	 * @return the number of values reserved, zero if the limit has been reached.
+	 */
+	protected int acquireLimit(int count, boolean all) {
+		while (true) {
+			final int current = this.limit.get();
+			if (current == ChannelFactory.PORT_LIMIT_UNLIMITED) {
+				return count;
+			}
+			if (current == PORT_LIMIT_EXCEEDED || (all && current < count)) {
+				return 0;
+			}
+			final int reserved = Math.min(current, count);
+			if (this.limit.compareAndSet(current, current - reserved)) {
+				return reserved;
+			}
+		}
 	}
 	
-	protected int decrementLimit() {
-		if (this.limit == ChannelFactory.PORT_LIMIT_UNLIMITED) {
-			return this.limit;
-		} else {
-			return this.limit--;
+	/**
+	 * Return part of a reservation made by {@link #acquireLimit(int, boolean)}
+	 * that was not used.
+	 * 
+	 * @param count the number of values not transferred.
+	 */
+	protected void releaseLimit(int count) {
+		if (count > 0 && this.limit.get() != ChannelFactory.PORT_LIMIT_UNLIMITED && !isClosed()) {
+			this.limit.addAndGet(count);
 		}
 	}
 	
@@ -66,6 +104,18 @@ public class SimplePort<T> implements Port<T> {
 		return this.channel;
 	}
 	
+	/*
+	 * The channel for an operation, the port may be closed by another actor 
+	 * at any time.
+	 */
+	protected SimpleChannel<T> openChannel() throws IllegalStateException {
+		final SimpleChannel<T> channel = this.channel;
+		if (channel == null) {
+			throw new IllegalStateException("Port is closed.");
+		}
+		return channel;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.channels.Port#getOwningActor()
@@ -74,17 +124,26 @@ public class SimplePort<T> implements Port<T> {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
-		return this.owner;
+		return this.owner.get();
 	}
 
 	protected boolean isMine() {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
-		if (this.owner == null) {
+		return isOwner(this.owner.get(), ActorFactory.getInstance().getCurrentActor());
+	}
+	
+	/*
+	 * The actor factories return the same instance for the same actor, so
+	 * the reference comparison is the usual case, equals is kept for any
+	 * factory that does not.
+	 */
+	private static boolean isOwner(Actor owner, Actor current) {
+		if (owner == null) {
 			return false;
 		}
-		return this.owner.equals(ActorFactory.getInstance().getCurrentActor());
+		return owner == current || owner.equals(current);
 	}
 
 	/*
@@ -95,10 +154,11 @@ public class SimplePort<T> implements Port<T> {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
-		if (!isMine()) {
+		final Actor owner = this.owner.get();
+		if (!isOwner(owner, ActorFactory.getInstance().getCurrentActor())) {
 			throw new ChannelException("Current actor does not own this port.");
 		}
-		this.owner = null;
+		this.owner.compareAndSet(owner, null);
 	}
 
 	/*
@@ -109,13 +169,13 @@ public class SimplePort<T> implements Port<T> {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
-		if (isMine()) {
+		final Actor current = ActorFactory.getInstance().getCurrentActor();
+		if (isOwner(this.owner.get(), current)) {
 			return;
 		}
-		if (this.owner != null) {
+		if (!this.owner.compareAndSet(null, current)) {
 			throw new ChannelException("Port has not been released.");
 		}
-		this.owner = ActorFactory.getInstance().getCurrentActor();
 	}
 
 	/*
@@ -126,7 +186,7 @@ public class SimplePort<T> implements Port<T> {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
-		return getChannel().isPoisoned();
+		return openChannel().isPoisoned();
 	}
 
 	/*
@@ -137,7 +197,7 @@ public class SimplePort<T> implements Port<T> {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
-		getChannel().poison();		
+		openChannel().poison();		
 	}
 
 	/*
@@ -146,10 +206,13 @@ public class SimplePort<T> implements Port<T> {
 	 */
 	public void close() {
 		this.closed = true;
-		this.limit = 0;
-		this.owner = null;
-		this.channel.closePort(this);
-		this.channel = null;
+		this.limit.set(PORT_LIMIT_EXCEEDED);
+		this.owner.set(null);
+		final SimpleChannel<T> channel = this.channel;
+		if (channel != null) {
+			channel.closePort(this);
+			this.channel = null;
+		}
 	}
 	
 	/*
@@ -0,0 +1,302 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ChannelPoisonedException;
+import com.googlecode.acpj.channels.DoubleReadPort;
+import com.googlecode.acpj.channels.DoubleWritePort;
+import com.googlecode.acpj.channels.IntReadPort;
+import com.googlecode.acpj.channels.IntWritePort;
+import com.googlecode.acpj.channels.LongReadPort;
+import com.googlecode.acpj.channels.LongWritePort;
+import com.googlecode.acpj.channels.PortArity;
+import com.googlecode.acpj.internal.actors.ActorPoolExecutor;
+
+/**
+ * <p>
+ * Internal - common implementation of the primitive channels, a {@link SimpleChannel}
+ * buffered by a {@link PrimitiveRingBuffer}. The generic read and write operations
+ * are inherited unchanged (boxing as they go), the primitive ports use the raw
+ * bit operations here which only allocate if the caller has to block.
+ * </p>
+ * <p>
+ * The ports for each primitive type are also provided here, chosen by the
+ * {@link PrimitiveRingBuffer.Type} of the ring, so that the subclasses only
+ * need to narrow the port types returned to match their channel interface.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public abstract class SimplePrimitiveChannel<T> extends SimpleChannel<T> {
+
+	private final PrimitiveRingBuffer ring;
+
+	protected SimplePrimitiveChannel(String name, PortArity readPortArity, int readPortLimit, PortArity writePortArity, int writePortLimit, PrimitiveRingBuffer ring) {
+		super(name, readPortArity, readPortLimit, writePortArity, writePortLimit, ring.capacity(), ring);
+		this.ring = ring;
+	}
+
+	/**
+	 * Read the raw bits of the next value from the channel, blocking if the
+	 * channel is empty.
+	 * 
+	 * @return the raw bits of the value read.
+	 */
+	public long readBits() throws ChannelException {
+		if (isPoisoned()) {
+			throw new ChannelPoisonedException();
+		}
+		long position = this.ring.claimExtract();
+		if (position == PrimitiveRingBuffer.NONE) {
+			final PositionTaker taker = new PositionTaker();
+			final long started = blockStarted();
+			try {
+				ActorPoolExecutor.managedBlock(taker);
+			} catch (InterruptedException e) {
+				throw new ChannelException(e);
+			} finally {
+				readerWaited(started);
+			}
+			position = taker.position;
+			if (position == PrimitiveRingBuffer.NONE) {
+				throw new ChannelPoisonedException();
+			}
+		}
+		recordRead(1);
+		final long bits = this.ring.completeExtract(position);
+		if (isPoisoned()) {
+			throw new ChannelPoisonedException();
+		}
+		return bits;
+	}
+
+	/**
+	 * Write the raw bits of a value to the channel, blocking if the channel
+	 * is full. As for {@link SimpleChannel#writeValue(Object)} if this throws 
+	 * the value was not written.
+	 * 
+	 * @param bits the raw bits of the value to write.
+	 */
+	public void writeBits(long bits) throws ChannelException {
+		if (isPoisoned()) {
+			throw new ChannelPoisonedException();
+		}
+		if (!this.ring.offerBits(bits)) {
+			final long started = blockStarted();
+			try {
+				ActorPoolExecutor.managedBlock(new BitsPutter(bits));
+			} catch (InterruptedException e) {
+				throw new ChannelException(e);
+			} finally {
+				writerBlocked(started);
+			}
+		}
+		recordWritten();
+		signalSelectors();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#createReadPort(int, com.googlecode.acpj.actors.Actor)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected SimpleReadPort<T> createReadPort(int limit, Actor owner) {
+		final SimplePrimitiveChannel<?> channel = this;
+		switch (this.ring.getType()) {
+		case INT:
+			return (SimpleReadPort<T>)new SimpleIntReadPort((SimplePrimitiveChannel<Integer>)channel, limit, owner);
+		case LONG:
+			return (SimpleReadPort<T>)new SimpleLongReadPort((SimplePrimitiveChannel<Long>)channel, limit, owner);
+		default:
+			return (SimpleReadPort<T>)new SimpleDoubleReadPort((SimplePrimitiveChannel<Double>)channel, limit, owner);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.SimpleChannel#createWritePort(int, com.googlecode.acpj.actors.Actor)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected SimpleWritePort<T> createWritePort(int limit, Actor owner) {
+		final SimplePrimitiveChannel<?> channel = this;
+		switch (this.ring.getType()) {
+		case INT:
+			return (SimpleWritePort<T>)new SimpleIntWritePort((SimplePrimitiveChannel<Integer>)channel, limit, owner);
+		case LONG:
+			return (SimpleWritePort<T>)new SimpleLongWritePort((SimplePrimitiveChannel<Long>)channel, limit, owner);
+		default:
+			return (SimpleWritePort<T>)new SimpleDoubleWritePort((SimplePrimitiveChannel<Double>)channel, limit, owner);
+		}
+	}
+
+	/*
+	 * As for the generic take and put, the blockers are only created if the
+	 * operation cannot complete immediately.
+	 */
+	private final class PositionTaker implements ForkJoinPool.ManagedBlocker {
+		long position = PrimitiveRingBuffer.NONE;
+		boolean done = false;
+
+		public boolean block() throws InterruptedException {
+			if (!this.done) {
+				this.position = ring.takePosition();
+				this.done = true;
+			}
+			return true;
+		}
+
+		public boolean isReleasable() {
+			return this.done || (this.done = (this.position = ring.claimExtract()) != PrimitiveRingBuffer.NONE);
+		}
+	}
+
+	private final class BitsPutter implements ForkJoinPool.ManagedBlocker {
+		final long bits;
+		boolean done = false;
+
+		BitsPutter(long bits) {
+			this.bits = bits;
+		}
+
+		public boolean block() throws InterruptedException {
+			if (!this.done) {
+				ring.putBits(this.bits);
+				this.done = true;
+			}
+			return true;
+		}
+
+		public boolean isReleasable() {
+			return this.done || (this.done = ring.offerBits(this.bits));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Internal - a read port on a primitive channel that can read the raw bits
+	 * of a value, the typed ports convert these to their primitive type.
+	 * </p>
+	 */
+	public static abstract class PrimitiveReadPort<T> extends SimpleReadPort<T> {
+
+		protected PrimitiveReadPort(SimplePrimitiveChannel<T> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		protected long readBits() throws IllegalStateException, ChannelException {
+			final SimplePrimitiveChannel<T> channel = (SimplePrimitiveChannel<T>)checkReadable();
+			acquire();
+			try {
+				return channel.readBits();
+			} catch (RuntimeException e) {
+				releaseLimit(1);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Internal - a write port on a primitive channel that can write the raw bits
+	 * of a value, the typed ports convert these from their primitive type.
+	 * </p>
+	 */
+	public static abstract class PrimitiveWritePort<T> extends SimpleWritePort<T> {
+
+		protected PrimitiveWritePort(SimplePrimitiveChannel<T> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		protected void writeBits(long bits) throws IllegalStateException, ChannelException {
+			final SimplePrimitiveChannel<T> channel = (SimplePrimitiveChannel<T>)checkWritable();
+			acquire();
+			try {
+				channel.writeBits(bits);
+			} catch (RuntimeException e) {
+				releaseLimit(1);
+				throw e;
+			}
+			checkPoisoned(channel);
+		}
+	}
+
+	private static final class SimpleIntReadPort extends PrimitiveReadPort<Integer> implements IntReadPort {
+
+		SimpleIntReadPort(SimplePrimitiveChannel<Integer> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		public int readInt() throws IllegalStateException, ChannelException {
+			return (int)readBits();
+		}
+	}
+
+	private static final class SimpleIntWritePort extends PrimitiveWritePort<Integer> implements IntWritePort {
+
+		SimpleIntWritePort(SimplePrimitiveChannel<Integer> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		public void writeInt(int value) throws IllegalStateException, ChannelException {
+			writeBits(value);
+		}
+	}
+
+	private static final class SimpleLongReadPort extends PrimitiveReadPort<Long> implements LongReadPort {
+
+		SimpleLongReadPort(SimplePrimitiveChannel<Long> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		public long readLong() throws IllegalStateException, ChannelException {
+			return readBits();
+		}
+	}
+
+	private static final class SimpleLongWritePort extends PrimitiveWritePort<Long> implements LongWritePort {
+
+		SimpleLongWritePort(SimplePrimitiveChannel<Long> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		public void writeLong(long value) throws IllegalStateException, ChannelException {
+			writeBits(value);
+		}
+	}
+
+	private static final class SimpleDoubleReadPort extends PrimitiveReadPort<Double> implements DoubleReadPort {
+
+		SimpleDoubleReadPort(SimplePrimitiveChannel<Double> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		public double readDouble() throws IllegalStateException, ChannelException {
+			return Double.longBitsToDouble(readBits());
+		}
+	}
+
+	private static final class SimpleDoubleWritePort extends PrimitiveWritePort<Double> implements DoubleWritePort {
+
+		SimpleDoubleWritePort(SimplePrimitiveChannel<Double> channel, int limit, Actor owner) {
+			super(channel, limit, owner);
+		}
+
+		public void writeDouble(double value) throws IllegalStateException, ChannelException {
+			writeBits(Double.doubleToRawLongBits(value));
+		}
+	}
+}
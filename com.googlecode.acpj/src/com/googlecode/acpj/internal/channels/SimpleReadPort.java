@@ -8,9 +8,13 @@
  */
 package com.googlecode.acpj.internal.channels;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import com.googlecode.acpj.actors.Actor;
 import com.googlecode.acpj.channels.ChannelException;
-import com.googlecode.acpj.channels.ChannelFactory;
 import com.googlecode.acpj.channels.ReadPort;
 
 /**
@@ -32,24 +36,145 @@ public class SimpleReadPort<T> extends SimplePort<T> implements ReadPort<T> {
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.channels.ReadPort#read()
 	 */
-	public synchronized T read() throws IllegalStateException, ChannelException {
-		if (isClosed()) {
-			throw new IllegalStateException("Port is closed.");
+	public T read() throws IllegalStateException, ChannelException {
+		final SimpleChannel<T> channel = checkReadable();
+		acquire();
+		T value = null;
+		try {
+			value = channel.readValue();
+		} catch (RuntimeException e) {
+			releaseLimit(1);
+			throw e;
 		}
-		if (!isMine()) {
-			throw new ChannelException("Current actor does not own this port.");
+		if (value instanceof SimplePort<?>) {
+			((SimplePort<?>)value).claim();
+		}
+		return value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ReadPort#readBatch(java.util.Collection, int)
+	 */
+	public int readBatch(Collection<? super T> values, int maxValues) throws IllegalArgumentException, IllegalStateException, ChannelException {
+		if (values == null) {
+			throw new IllegalArgumentException("Collection may not be null.");
 		}
-		if (getLimit() != ChannelFactory.PORT_LIMIT_UNLIMITED) {
-			if (getLimit() == PORT_LIMIT_EXCEEDED) {
-				throw new IllegalStateException("Read port limit exceeded.");
+		if (maxValues < 1) {
+			throw new IllegalArgumentException("Maximum values must be greater than zero.");
+		}
+		final SimpleChannel<T> channel = checkReadable();
+		final int reserved = acquireLimit(maxValues, false);
+		if (reserved == 0) {
+			throw new IllegalStateException("Read port limit exceeded.");
+		}
+		List<T> batch = new ArrayList<T>(Math.min(reserved, 64));
+		int count = 0;
+		try {
+			count = channel.readValues(batch, reserved);
+		} catch (RuntimeException e) {
+			releaseLimit(reserved);
+			throw e;
+		}
+		releaseLimit(reserved - count);
+		for (T value : batch) {
+			if (value instanceof SimplePort<?>) {
+				((SimplePort<?>)value).claim();
 			}
-			decrementLimit();
 		}
-		T value = this.channel.readValue();
-		if (value instanceof SimplePort<?>) {
+		values.addAll(batch);
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ReadPort#tryRead()
+	 */
+	public T tryRead() throws IllegalStateException, ChannelException {
+		return read(0L, TimeUnit.NANOSECONDS);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.ReadPort#read(long, java.util.concurrent.TimeUnit)
+	 */
+	public T read(long timeout, TimeUnit unit) throws IllegalStateException, ChannelException {
+		final SimpleChannel<T> channel = checkReadable();
+		acquire();
+		T value = null;
+		try {
+			value = channel.readValue(timeout, unit);
+		} catch (RuntimeException e) {
+			releaseLimit(1);
+			throw e;
+		}
+		if (value == null) {
+			releaseLimit(1);
+		} else if (value instanceof SimplePort<?>) {
 			((SimplePort<?>)value).claim();
 		}
 		return value;
 	}
 
+	/**
+	 * Determine whether a read on this port would complete without blocking, 
+	 * either with a value or because the channel is poisoned. 
+	 * 
+	 * @return <code>true</code> if the port is ready to read.
+	 */
+	public boolean isReady() {
+		final SimpleChannel<T> channel = getChannel();
+		return channel == null || channel.isReadable();
+	}
+
+	/**
+	 * Register a listener to be called whenever the channel may have become ready
+	 * to read, see {@link #isReady()}. The listener is called by the thread writing
+	 * to the channel and so must not block.
+	 * 
+	 * @param listener the listener to call.
+	 */
+	public void addListener(Runnable listener) {
+		if (isClosed()) {
+			throw new IllegalStateException("Port is closed.");
+		}
+		getChannel().addListener(listener);
+	}
+
+	/**
+	 * Remove a listener registered by {@link #addListener(Runnable)}.
+	 * 
+	 * @param listener the listener to remove.
+	 */
+	public void removeListener(Runnable listener) {
+		final SimpleChannel<T> channel = getChannel();
+		if (channel != null) {
+			channel.removeListener(listener);
+		}
+	}
+
+	/**
+	 * Check that the current actor may read from this port.
+	 * 
+	 * @return the channel to read from.
+	 */
+	protected SimpleChannel<T> checkReadable() throws IllegalStateException, ChannelException {
+		if (isClosed()) {
+			throw new IllegalStateException("Port is closed.");
+		}
+		if (!isMine()) {
+			throw new ChannelException("Current actor does not own this port.");
+		}
+		return openChannel();
+	}
+
+	/**
+	 * Reserve a single read against the port limit, a failed read must give 
+	 * it back with {@link #releaseLimit(int)}.
+	 */
+	protected void acquire() throws IllegalStateException {
+		if (acquireLimit(1, true) == 0) {
+			throw new IllegalStateException("Read port limit exceeded.");
+		}
+	}
 }
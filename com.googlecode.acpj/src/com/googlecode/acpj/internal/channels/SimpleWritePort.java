@@ -8,9 +8,12 @@
  */
 package com.googlecode.acpj.internal.channels;
 
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
 import com.googlecode.acpj.actors.Actor;
 import com.googlecode.acpj.channels.ChannelException;
-import com.googlecode.acpj.channels.ChannelFactory;
+import com.googlecode.acpj.channels.ChannelPoisonedException;
 import com.googlecode.acpj.channels.WritePort;
 
 /**
@@ -32,22 +35,140 @@ public class SimpleWritePort<T> extends SimplePort<T> implements WritePort<T> {
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.channels.WritePort#write(java.lang.Object)
 	 */
-	public synchronized void write(T value) throws IllegalStateException, ChannelException {
+	public void write(T value) throws IllegalStateException, ChannelException {
+		final SimpleChannel<T> channel = checkWritable();
+		acquire();
+		if (value instanceof SimplePort<?>) {
+			((SimplePort<?>)value).release();
+		}
+		try {
+			channel.writeValue(value);
+		} catch (RuntimeException e) {
+			notWritten(value, 1);
+			throw e;
+		}
+		checkPoisoned(channel);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.WritePort#tryWrite(java.lang.Object)
+	 */
+	public boolean tryWrite(T value) throws IllegalStateException, ChannelException {
+		return write(value, 0L, TimeUnit.NANOSECONDS);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.WritePort#write(java.lang.Object, long, java.util.concurrent.TimeUnit)
+	 */
+	public boolean write(T value, long timeout, TimeUnit unit) throws IllegalStateException, ChannelException {
+		final SimpleChannel<T> channel = checkWritable();
+		acquire();
+		if (value instanceof SimplePort<?>) {
+			((SimplePort<?>)value).release();
+		}
+		boolean written = false;
+		try {
+			written = channel.writeValue(value, timeout, unit);
+		} catch (RuntimeException e) {
+			notWritten(value, 1);
+			throw e;
+		}
+		if (!written) {
+			notWritten(value, 1);
+		}
+		checkPoisoned(channel);
+		return written;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.channels.WritePort#writeAll(java.util.Collection)
+	 */
+	public void writeAll(Collection<? extends T> values) throws IllegalArgumentException, IllegalStateException, ChannelException {
+		if (values == null) {
+			throw new IllegalArgumentException("Collection may not be null.");
+		}
+		for (T value : values) {
+			if (value == null) {
+				throw new IllegalArgumentException("Value may not be null.");
+			}
+		}
+		final SimpleChannel<T> channel = checkWritable();
+		if (values.isEmpty()) {
+			return;
+		}
+		if (acquireLimit(values.size(), true) == 0) {
+			throw new IllegalStateException("Write port limit exceeded.");
+		}
+		/*
+		 * Ports are only given up as they are sent, so if a write fails we still
+		 * own the port that failed along with any that were never sent.
+		 */
+		int written = 0;
+		for (T value : values) {
+			if (value instanceof SimplePort<?>) {
+				((SimplePort<?>)value).release();
+			}
+			try {
+				channel.writeValue(value);
+			} catch (RuntimeException e) {
+				notWritten(value, values.size() - written);
+				throw e;
+			}
+			written++;
+		}
+		checkPoisoned(channel);
+	}
+
+	/*
+	 * The failure path for all of the write operations, called only when the
+	 * value was not stored by the channel. The limit reserved for it, and any
+	 * values after it, is returned and if the value is a port we still own it.
+	 */
+	private void notWritten(T value, int unwritten) {
+		releaseLimit(unwritten);
+		if (value instanceof SimplePort<?>) {
+			((SimplePort<?>)value).claim();
+		}
+	}
+
+	/**
+	 * Check that the current actor may write to this port.
+	 * 
+	 * @return the channel to write to.
+	 */
+	protected SimpleChannel<T> checkWritable() throws IllegalStateException, ChannelException {
 		if (isClosed()) {
 			throw new IllegalStateException("Port is closed.");
 		}
 		if (!isMine()) {
 			throw new ChannelException("Current actor does not own this port.");
 		}
-		if (getLimit() != ChannelFactory.PORT_LIMIT_UNLIMITED) {
-			if (getLimit() == PORT_LIMIT_EXCEEDED) {
-				throw new IllegalStateException("Read port limit exceeded.");
-			}
-			decrementLimit();
+		return openChannel();
+	}
+
+	/**
+	 * Check, once a value has been stored, whether the channel was poisoned 
+	 * meanwhile. The value counts against the limit, and any port written is
+	 * given up, whether or not this throws.
+	 * 
+	 * @param channel the channel written to.
+	 */
+	protected void checkPoisoned(SimpleChannel<T> channel) throws ChannelPoisonedException {
+		if (channel.isPoisoned()) {
+			throw new ChannelPoisonedException();
 		}
-		if (value instanceof SimplePort<?>) {
-			((SimplePort<?>)value).release();
+	}
+
+	/**
+	 * Reserve a single write against the port limit, a failed write must give 
+	 * it back with {@link #releaseLimit(int)}.
+	 */
+	protected void acquire() throws IllegalStateException {
+		if (acquireLimit(1, true) == 0) {
+			throw new IllegalStateException("Write port limit exceeded.");
 		}
-		this.channel.writeValue(value);
 	}
 }
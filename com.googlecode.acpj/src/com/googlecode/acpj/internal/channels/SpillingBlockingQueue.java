@@ -0,0 +1,457 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.googlecode.acpj.channels.ChannelException;
+import com.googlecode.acpj.channels.ValueSerializer;
+
+/**
+ * <p>
+ * Internal - an unbounded {@link java.util.concurrent.BlockingQueue} that holds
+ * at most a fixed window of values in memory, used to buffer channels with a
+ * capacity of {@link com.googlecode.acpj.channels.BufferedChannel#BUFFER_CAPACITY_UNLIMITED}
+ * without the risk of a slow reader exhausting the heap. Writers never block,
+ * once the window is full values are serialized and appended to a temporary
+ * file, and once the window has been emptied by readers it is refilled from
+ * the file, in order. Once the file has been read completely it is truncated.
+ * </p>
+ * <p>
+ * When the queue is poisoned the values on disk are dropped and the file is
+ * closed and deleted, channels do not read their buffer once poisoned so
+ * these could never be read. Values are appended to the file through a buffer, 
+ * and read back a buffer at a time, so that spilling and refilling take few
+ * system calls while the queue lock is held.
+ * </p>
+ * <p>
+ * WARNING: as with {@link ZeroBlockingQueue} this is not a complete
+ * implementation of the Collection API, the iterator and the operations
+ * that depend on it raise {@link java.lang.UnsupportedOperationException}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class SpillingBlockingQueue extends AbstractQueue<Object> implements BlockingQueue<Object>, PoisonableQueue<Object> {
+
+	private final Lock lock = new ReentrantLock();
+	private final Condition notEmpty = this.lock.newCondition();
+
+	private final int window;
+	private final ValueSerializer<Object> serializer;
+
+	private final ArrayDeque<Object> memory;
+
+	/*
+	 * The size of the buffers used to append values to, and read them back from, 
+	 * the spill file.
+	 */
+	private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+	
+	/*
+	 * The spill file is created on first use, records are collected in the write
+	 * buffer and appended at the write position and read back from the read 
+	 * position.
+	 */
+	private File file = null;
+	private RandomAccessFile spill = null;
+	private FileChannel spillChannel = null;
+	private ByteBuffer writeBuffer = null;
+	private ByteBuffer readBuffer = null;
+	private long readPosition = 0L;
+	private long writePosition = 0L;
+	private int spilled = 0;
+
+	private Object sentinel = null;
+
+	/**
+	 * Create a new queue.
+	 * 
+	 * @param window the maximum number of values held in memory.
+	 * @param serializer used to convert values to and from their spilled form.
+	 */
+	public SpillingBlockingQueue(int window, ValueSerializer<Object> serializer) throws IllegalArgumentException {
+		if (window < 1) {
+			throw new IllegalArgumentException("Window must be greater than zero.");
+		}
+		if (serializer == null) {
+			throw new IllegalArgumentException("Serializer may not be null.");
+		}
+		this.window = window;
+		this.serializer = serializer;
+		this.memory = new ArrayDeque<Object>(Math.min(window, 1024));
+	}
+
+	/**
+	 * The number of values currently held on disk rather than in memory.
+	 * 
+	 * @return the number of spilled values.
+	 */
+	public int getSpilledCount() {
+		this.lock.lock();
+		try {
+			return this.spilled;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * The file currently holding spilled values.
+	 * 
+	 * @return the spill file, or <code>null</code> if there is none.
+	 */
+	public File getSpillFile() {
+		this.lock.lock();
+		try {
+			return this.file;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.PoisonableQueue#poison(java.lang.Object)
+	 */
+	public void poison(Object sentinel) {
+		if (sentinel == null) {
+			throw new NullPointerException();
+		}
+		this.lock.lock();
+		try {
+			this.sentinel = sentinel;
+			closeSpill();
+			this.notEmpty.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#offer(java.lang.Object)
+	 */
+	public boolean offer(Object value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		this.lock.lock();
+		try {
+			if (this.sentinel != null) {
+				return false;
+			}
+			/*
+			 * Once anything has been spilled all later values must follow it
+			 * so that they are read in order.
+			 */
+			if (this.spilled == 0 && this.memory.size() < this.window) {
+				this.memory.addLast(value);
+			} else {
+				spill(value);
+			}
+			this.notEmpty.signal();
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object, long, java.util.concurrent.TimeUnit)
+	 */
+	public boolean offer(Object value, long timeout, TimeUnit unit) throws InterruptedException {
+		return offer(value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#put(java.lang.Object)
+	 */
+	public void put(Object value) throws InterruptedException {
+		offer(value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#poll()
+	 */
+	public Object poll() {
+		this.lock.lock();
+		try {
+			return isEmptyLocked() ? this.sentinel : extract();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#poll(long, java.util.concurrent.TimeUnit)
+	 */
+	public Object poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			while (isEmptyLocked() && this.sentinel == null) {
+				if (nanos <= 0L) {
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+			return isEmptyLocked() ? this.sentinel : extract();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#take()
+	 */
+	public Object take() throws InterruptedException {
+		this.lock.lockInterruptibly();
+		try {
+			while (isEmptyLocked() && this.sentinel == null) {
+				this.notEmpty.await();
+			}
+			return isEmptyLocked() ? this.sentinel : extract();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.memory.size() + this.spilled;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#remainingCapacity()
+	 */
+	public int remainingCapacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection)
+	 */
+	public int drainTo(Collection<? super Object> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection, int)
+	 */
+	public int drainTo(Collection<? super Object> c, int maxElements) {
+		if (c == null) {
+			throw new NullPointerException();
+		}
+		if (c == this) {
+			throw new IllegalArgumentException();
+		}
+		this.lock.lock();
+		try {
+			int drained = 0;
+			while (drained < maxElements && !isEmptyLocked()) {
+				c.add(extract());
+				drained++;
+			}
+			return drained;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Queue#peek()
+	 */
+	public Object peek() {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Collection#iterator()
+	 */
+	@Override
+	public Iterator<Object> iterator() {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s[%d/%d]", getClass().getSimpleName(), size(), this.window);
+	}
+
+	private boolean isEmptyLocked() {
+		return this.memory.isEmpty() && this.spilled == 0;
+	}
+
+	/*
+	 * Must be called with the lock held, and at least one value present.
+	 */
+	private Object extract() throws ChannelException {
+		if (this.memory.isEmpty()) {
+			refill();
+		}
+		return this.memory.removeFirst();
+	}
+
+	private void spill(Object value) throws ChannelException {
+		try {
+			final byte[] data = this.serializer.serialize(value);
+			if (this.spill == null) {
+				this.file = File.createTempFile("acpj-spill", ".tmp");
+				this.file.deleteOnExit();
+				this.spill = new RandomAccessFile(this.file, "rw");
+				this.spillChannel = this.spill.getChannel();
+				this.writeBuffer = ByteBuffer.allocate(SPILL_BUFFER_SIZE);
+				this.readBuffer = ByteBuffer.allocate(SPILL_BUFFER_SIZE);
+			}
+			if (this.writeBuffer.remaining() < 4 + data.length) {
+				flushSpill();
+			}
+			if (this.writeBuffer.remaining() < 4 + data.length) {
+				/*
+				 * Larger than the buffer, so written on its own.
+				 */
+				final ByteBuffer record = ByteBuffer.allocate(4 + data.length);
+				record.putInt(data.length).put(data).flip();
+				write(record);
+			} else {
+				this.writeBuffer.putInt(data.length).put(data);
+			}
+			this.spilled++;
+		} catch (IOException e) {
+			throw new ChannelException("Could not spill channel value to disk.", e);
+		}
+	}
+
+	/*
+	 * Move up to a window of values back from the spill file into memory.
+	 */
+	private void refill() throws ChannelException {
+		try {
+			flushSpill();
+			while (this.spilled > 0 && this.memory.size() < this.window) {
+				final ByteBuffer buffer = this.readBuffer;
+				buffer.clear();
+				buffer.limit((int)Math.min(buffer.capacity(), this.writePosition - this.readPosition));
+				read(buffer, this.readPosition);
+				buffer.flip();
+				final int length = buffer.getInt(0);
+				if (buffer.remaining() < 4 + length) {
+					/*
+					 * Larger than the buffer, so read on its own.
+					 */
+					final ByteBuffer record = ByteBuffer.allocate(length);
+					read(record, this.readPosition + 4);
+					extractRecord(record.array());
+					continue;
+				}
+				while (this.spilled > 0 && this.memory.size() < this.window && buffer.remaining() >= 4) {
+					final int next = buffer.getInt(buffer.position());
+					if (buffer.remaining() < 4 + next) {
+						break;
+					}
+					final byte[] data = new byte[buffer.getInt()];
+					buffer.get(data);
+					extractRecord(data);
+				}
+			}
+			if (this.spilled == 0) {
+				this.spillChannel.truncate(0L);
+				this.readPosition = 0L;
+				this.writePosition = 0L;
+			}
+		} catch (IOException e) {
+			throw new ChannelException("Could not read spilled channel value from disk.", e);
+		}
+	}
+	
+	private void extractRecord(byte[] data) throws IOException {
+		this.memory.addLast(this.serializer.deserialize(data));
+		this.readPosition += 4 + data.length;
+		this.spilled--;
+	}
+	
+	private void flushSpill() throws IOException {
+		this.writeBuffer.flip();
+		write(this.writeBuffer);
+		this.writeBuffer.clear();
+	}
+	
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.writePosition += this.spillChannel.write(buffer, this.writePosition);
+		}
+	}
+	
+	private void read(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			final int read = this.spillChannel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of spill file.");
+			}
+			position += read;
+		}
+	}
+
+	private void closeSpill() {
+		if (this.spill != null) {
+			try {
+				this.spill.close();
+			} catch (IOException e) {
+			}
+			this.file.delete();
+			this.spill = null;
+			this.spillChannel = null;
+			this.writeBuffer = null;
+			this.readBuffer = null;
+			this.file = null;
+		}
+		this.spilled = 0;
+		this.readPosition = 0L;
+		this.writePosition = 0L;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.googlecode.acpj.channels.WaitStrategy;
+
+/**
+ * <p>
+ * Internal - a bounded, lock-free, single-producer/single-consumer queue used
+ * by {@link SimpleChannel} to buffer one-to-one channels. Values are held in a
+ * power-of-two sized array ring, the producer only ever writes the tail sequence
+ * and the consumer only ever writes the head sequence, so the fast path of both
+ * {@link #offer(Object)} and {@link #poll()} is a plain array access and a
+ * single volatile write.
+ * </p>
+ * <p>
+ * WARNING: this queue is only safe with at most one thread inserting and one
+ * thread removing values at any one time, this is guaranteed for channels
+ * with a read and write port arity of {@link com.googlecode.acpj.channels.PortArity#ONE}
+ * as only the actor owning the port may use it. Note that {@link #clear()}
+ * counts as removing values, the channel uses {@link #poison(Object)} instead.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class SpscArrayBlockingQueue<E> extends AbstractLockFreeBlockingQueue<E> {
+
+	/*
+	 * A sequence padded out to a cache line so that the head and tail,
+	 * written by different threads, do not share a line. Each side also
+	 * caches the last value it read of the other side's sequence so that
+	 * it only has to read the contended line when the cached value says
+	 * the queue is full (producer) or empty (consumer).
+	 */
+	static final class Sequence extends AtomicLong {
+		private static final long serialVersionUID = 1L;
+		long cache = 0L;
+		long p1, p2, p3, p4, p5, p6;
+	}
+
+	private final Object[] buffer;
+	private final int mask;
+	private final int capacity;
+
+	private final Sequence head = new Sequence();
+	private final Sequence tail = new Sequence();
+
+	public SpscArrayBlockingQueue(int capacity) {
+		this(capacity, WaitStrategy.PARK);
+	}
+
+	public SpscArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+		super(waitStrategy);
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be greater than zero.");
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.buffer = new Object[size];
+		this.mask = size - 1;
+		this.capacity = capacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryInsert(java.lang.Object)
+	 */
+	@Override
+	protected boolean tryInsert(E value) {
+		final long current = this.tail.get();
+		if (current - this.tail.cache >= this.capacity) {
+			this.tail.cache = this.head.get();
+			if (current - this.tail.cache >= this.capacity) {
+				return false;
+			}
+		}
+		this.buffer[(int)current & this.mask] = value;
+		this.tail.set(current + 1);
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#tryExtract()
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected E tryExtract() {
+		final long current = this.head.get();
+		if (current >= this.head.cache) {
+			this.head.cache = this.tail.get();
+			if (current >= this.head.cache) {
+				return null;
+			}
+		}
+		final int index = (int)current & this.mask;
+		final E value = (E)this.buffer[index];
+		this.buffer[index] = null;
+		this.head.set(current + 1);
+		return value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.channels.AbstractLockFreeBlockingQueue#capacity()
+	 */
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		/*
+		 * Read the head first, the tail can only move forward so the result
+		 * is never negative (although it may be stale).
+		 */
+		final long first = this.head.get();
+		final long size = this.tail.get() - first;
+		return (int)Math.min(size, this.capacity);
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.channels;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * Internal - a simple, lock-free, set of parked threads waiting on some
+ * condition of a queue (not empty, not full) to become true. This takes the
+ * place of a {@link java.util.concurrent.locks.Condition} for the lock-free
+ * queues as there is no lock to associate the condition with.
+ * </p>
+ * <p>
+ * The protocol for a waiting thread is to {@link #add(Thread)} itself, re-check
+ * the condition, park and then {@link #remove(Thread)} itself once it wakes.
+ * The protocol for a thread changing the condition is to make the change visible
+ * (a volatile write) and then {@link #signal()}. As both sides perform a volatile
+ * write before a volatile read no wake-up can be lost.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+final class Waiters {
+
+	private final ConcurrentLinkedQueue<Thread> threads = new ConcurrentLinkedQueue<Thread>();
+
+	/**
+	 * Add the thread to the set of waiting threads, this must be done before
+	 * the final check of the condition and parking.
+	 * 
+	 * @param thread the thread about to park.
+	 */
+	void add(Thread thread) {
+		this.threads.add(thread);
+	}
+
+	/**
+	 * Remove the thread from the set of waiting threads.
+	 * 
+	 * @param thread the thread that is no longer waiting.
+	 * 
+	 * @return <code>false</code> if the thread was not waiting, i.e. it has
+	 *         already been removed by a call to {@link #signal()}.
+	 */
+	boolean remove(Thread thread) {
+		return this.threads.remove(thread);
+	}
+
+	/**
+	 * Remove the thread from the set of waiting threads, if the thread had
+	 * already been signalled but is not going to act on the signal (it is
+	 * giving up, or has succeeded for some other reason) then the signal is
+	 * passed along to the next waiting thread.
+	 * 
+	 * @param thread the thread that is no longer waiting.
+	 */
+	void cancel(Thread thread) {
+		if (!this.threads.remove(thread)) {
+			signal();
+		}
+	}
+
+	/**
+	 * Determine whether any threads are waiting.
+	 * 
+	 * @return <code>true</code> if there are no waiting threads.
+	 */
+	boolean isEmpty() {
+		return this.threads.isEmpty();
+	}
+
+	/**
+	 * Wake a single waiting thread, this is cheap (a single volatile read) if
+	 * there are no threads waiting.
+	 */
+	void signal() {
+		if (!this.threads.isEmpty()) {
+			final Thread thread = this.threads.poll();
+			if (thread != null) {
+				LockSupport.unpark(thread);
+			}
+		}
+	}
+
+	/**
+	 * Wake all the waiting threads.
+	 */
+	void signalAll() {
+		Thread thread = null;
+		while ((thread = this.threads.poll()) != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Wake all the waiting threads but leave them in the set, this is for 
+	 * threads that stay registered while they wait repeatedly and remove 
+	 * themselves once they are done.
+	 */
+	void unparkAll() {
+		for (Thread thread : this.threads) {
+			LockSupport.unpark(thread);
+		}
+	}
+}
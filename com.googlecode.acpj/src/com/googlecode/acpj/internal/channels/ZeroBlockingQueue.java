@@ -27,7 +27,12 @@ import java.util.concurrent.locks.ReentrantLock;
  * <p>
  * WARNING: this is not a true implementation of the BlockingQueue API
  * as it only implements those operations used by our Channel implementation
- * and many of the others will raise {@link java.lang.UnsupportedOperationException}.
+ * (the blocking, non-blocking and timed insert and remove operations) and 
+ * many of the others will raise {@link java.lang.UnsupportedOperationException}.
+ * </p>
+ * <p>
+ * Note that a writer holds the queue lock while it waits for its value to be
+ * taken, unbuffered channels now use the lock-free {@link RendezvousQueue}.
  * </p>
  * 
  * @author Simon Johnston (simon@johnstonshome.org)
@@ -41,6 +46,14 @@ public class ZeroBlockingQueue<E> implements BlockingQueue<E> {
 	private final Condition notEmpty = this.lock.newCondition(); 
 	
 	private E value;
+	
+	/*
+	 * The number of readers currently waiting for a value, and the number
+	 * of values taken so far (so that a writer can tell when its own value,
+	 * rather than any value, has been taken).
+	 */
+	private int takers = 0;
+	private long taken = 0L;
 
 	/*
 	 * (non-Javadoc)
@@ -53,8 +66,9 @@ public class ZeroBlockingQueue<E> implements BlockingQueue<E> {
 				this.notFull.await();
 			}
 			this.value = o;
+			final long ticket = this.taken;
 			this.notEmpty.signal();
-			while (this.value != null) {
+			while (this.taken == ticket) {
 				this.notFull.await();
 			}
 		} finally {
@@ -62,73 +76,162 @@ public class ZeroBlockingQueue<E> implements BlockingQueue<E> {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object)
+	 */
+	public boolean offer(E o) {
+		this.lock.lock();
+		try {
+			/*
+			 * Only hand the value over if a reader is already waiting for it.
+			 */
+			if (this.value != null || this.takers == 0) {
+				return false;
+			}
+			this.value = o;
+			this.notEmpty.signal();
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object, long, java.util.concurrent.TimeUnit)
+	 */
+	public boolean offer(E o, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		this.lock.lock();
+		try {
+			while (this.value != null) {
+				if (nanos <= 0L) {
+					return false;
+				}
+				nanos = this.notFull.awaitNanos(nanos);
+			}
+			this.value = o;
+			final long ticket = this.taken;
+			this.notEmpty.signal();
+			try {
+				while (this.taken == ticket) {
+					if (nanos <= 0L) {
+						/*
+						 * No reader arrived in time, withdraw the value.
+						 */
+						this.value = null;
+						this.notFull.signalAll();
+						return false;
+					}
+					nanos = this.notFull.awaitNanos(nanos);
+				}
+			} catch (InterruptedException e) {
+				if (this.taken == ticket) {
+					this.value = null;
+					this.notFull.signalAll();
+				}
+				throw e;
+			}
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.util.concurrent.BlockingQueue#take()
 	 */
 	public E take() throws InterruptedException {
-		E o = null;
 		this.lock.lock();
 		try {
-			while (this.value == null) {
-				this.notEmpty.await();
+			this.takers++;
+			try {
+				while (this.value == null) {
+					this.notEmpty.await();
+				}
+			} finally {
+				this.takers--;
 			}
-			o = this.value;
-			this.value = null;
-			this.notFull.signal();
+			return takeValue();
 		} finally {
 			this.lock.unlock();
 		}
-		return o;
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection)
+	 * @see java.util.Queue#poll()
 	 */
-	public int drainTo(Collection<? super E> c) {
-		return 0;
+	public E poll() {
+		this.lock.lock();
+		try {
+			return this.value == null ? null : takeValue();
+		} finally {
+			this.lock.unlock();
+		}
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * @see java.util.concurrent.BlockingQueue#add(java.lang.Object)
+	 * @see java.util.concurrent.BlockingQueue#poll(long, java.util.concurrent.TimeUnit)
 	 */
-	public boolean add(E o) {
-		return false;
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		this.lock.lock();
+		try {
+			this.takers++;
+			try {
+				while (this.value == null) {
+					if (nanos <= 0L) {
+						return null;
+					}
+					nanos = this.notEmpty.awaitNanos(nanos);
+				}
+			} finally {
+				this.takers--;
+			}
+			return takeValue();
+		} finally {
+			this.lock.unlock();
+		}
 	}
 
 	/*
-	 * (non-Javadoc)
-	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection, int)
+	 * Must be called with the lock held, and a value present.
 	 */
-	public int drainTo(Collection<? super E> c, int maxElements) {
-		return 0;
+	private E takeValue() {
+		final E o = this.value;
+		this.value = null;
+		this.taken++;
+		this.notFull.signalAll();
+		return o;
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection)
 	 */
-	public boolean offer(E o) {
-		throw new UnsupportedOperationException();
+	public int drainTo(Collection<? super E> c) {
+		return 0;
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * @see java.util.concurrent.BlockingQueue#offer(java.lang.Object, long, java.util.concurrent.TimeUnit)
+	 * @see java.util.concurrent.BlockingQueue#add(java.lang.Object)
 	 */
-	public boolean offer(E o, long timeout, TimeUnit unit)
-			throws InterruptedException {
-		throw new UnsupportedOperationException();
+	public boolean add(E o) {
+		return false;
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * @see java.util.concurrent.BlockingQueue#poll(long, java.util.concurrent.TimeUnit)
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection, int)
 	 */
-	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
-		throw new UnsupportedOperationException();
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		return 0;
 	}
 
 	/*
@@ -155,14 +258,6 @@ public class ZeroBlockingQueue<E> implements BlockingQueue<E> {
 		throw new UnsupportedOperationException();
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * @see java.util.Queue#poll()
-	 */
-	public E poll() {
-		throw new UnsupportedOperationException();
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * @see java.util.Queue#remove()
@@ -12,6 +12,7 @@ import com.googlecode.acpj.Arguments;
 import com.googlecode.acpj.actors.ActorFactory;
 import com.googlecode.acpj.channels.ChannelFactory;
 import com.googlecode.acpj.channels.ChannelRegistry;
+import com.googlecode.acpj.channels.WaitStrategy;
 import com.googlecode.acpj.internal.actors.ExecutorBasedActorFactory;
 import com.googlecode.acpj.internal.channels.DefaultChannelFactory;
 import com.googlecode.acpj.internal.channels.DefaultChannelRegistry;
@@ -61,7 +62,7 @@ public class Configuration {
 
 	@SuppressWarnings("unchecked")
 	public static Class<? extends ActorFactory> getDefaultActorFactoryImpl() {
-		String className = System.getProperty(Arguments.CFG_DEFAULT_CHANNEL_FACTORY_CLASS);
+		String className = System.getProperty(Arguments.CFG_DEFAULT_ACTOR_FACTORY_CLASS);
 		if (className == null) {
 			return ExecutorBasedActorFactory.class;
 		}
@@ -76,12 +77,57 @@ public class Configuration {
 	
 	public static int getThreadPoolSize() {
 		int processors = Runtime.getRuntime().availableProcessors();
-		String poolSize = System.getProperty(Arguments.CFG_THREAD_POOL_SIZE, String.valueOf(processors * 4));
+		String poolSize = System.getProperty(Arguments.CFG_THREAD_POOL_SIZE, String.valueOf(processors * 8));
 		return Integer.parseInt(poolSize);
 	}
 
+	public static boolean getThreadPoolElastic() {
+		String elastic = System.getProperty(Arguments.CFG_THREAD_POOL_ELASTIC, "true");
+		return Boolean.parseBoolean(elastic);
+	}
+
+	public static int getThreadPoolMaxSize() {
+		String maxSize = System.getProperty(Arguments.CFG_THREAD_POOL_MAX_SIZE, "32767");
+		return Integer.parseInt(maxSize);
+	}
+
 	public static boolean getChannelMonitorStatus() {
 		String monitorChannels = System.getProperty(Arguments.CFG_MONITOR_CHANNELS, "true");
 		return Boolean.parseBoolean(monitorChannels);
 	}
+
+	public static WaitStrategy getChannelWaitStrategy() {
+		String strategy = System.getProperty(Arguments.CFG_CHANNEL_WAIT_STRATEGY, WaitStrategy.PARK.name());
+		try {
+			return WaitStrategy.valueOf(strategy);
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+		}
+		return WaitStrategy.PARK;
+	}
+
+	public static int getDurableSyncBatch() {
+		String batch = System.getProperty(Arguments.CFG_DURABLE_SYNC_BATCH, "64");
+		return Integer.parseInt(batch);
+	}
+
+	public static int getDurableSegmentSize() {
+		String size = System.getProperty(Arguments.CFG_DURABLE_SEGMENT_SIZE, "1048576");
+		return Integer.parseInt(size);
+	}
+
+	public static int getChannelSpillWindow() {
+		String window = System.getProperty(Arguments.CFG_CHANNEL_SPILL_WINDOW, "0");
+		return Integer.parseInt(window);
+	}
+
+	public static boolean getJmxEnabled() {
+		String enabled = System.getProperty(Arguments.CFG_JMX_ENABLED, "false");
+		return Boolean.parseBoolean(enabled);
+	}
+
+	public static boolean getChannelHistograms() {
+		String histograms = System.getProperty(Arguments.CFG_CHANNEL_HISTOGRAMS, "false");
+		return Boolean.parseBoolean(histograms);
+	}
 }
@@ -0,0 +1,50 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.management;
+
+/**
+ * <p>
+ * Internal - the management interface for the actor pools, the values are 
+ * the totals over all live {@link com.googlecode.acpj.internal.actors.ActorPoolExecutor}
+ * instances.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface ActorPoolMXBean {
+
+	public int getPoolCount();
+	
+	public int getPoolSize();
+	
+	public int getLargestPoolSize();
+	
+	public int getActiveCount();
+	
+	public int getQueuedCount();
+	
+	public long getCompletedCount();
+	
+	/**
+	 * @return tasks completed per second since this attribute was last read.
+	 */
+	public double getCompletedRate();
+	
+	/**
+	 * @return the number of pool threads currently blocked on channel operations.
+	 */
+	public int getBlockedCount();
+	
+	/**
+	 * @return the number of threads added to elastic pools to compensate for blocked threads.
+	 */
+	public long getCompensationCount();
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.management;
+
+/**
+ * <p>
+ * Internal - the management interface for a monitored channel, the counts and
+ * times are only recorded for channels with statistics, see 
+ * {@link com.googlecode.acpj.channels.MonitoredChannel#hasStatistics()}.
+ * Once the channel itself has been garbage collected all attributes return
+ * their default values until the MXBean is unregistered.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface ChannelMXBean {
+
+	public String getName();
+	
+	public String getReadPortArity();
+	
+	public String getWritePortArity();
+	
+	public int getReadPortCount();
+	
+	public int getWritePortCount();
+	
+	/**
+	 * @return the buffer capacity, 0 for unbuffered and -1 for unlimited channels.
+	 */
+	public int getBufferCapacity();
+	
+	public int getSize();
+	
+	public boolean isPoisoned();
+	
+	public long getValuesWritten();
+	
+	public long getValuesRead();
+	
+	/**
+	 * @return values written per second since this attribute was last read.
+	 */
+	public double getWriteRate();
+	
+	/**
+	 * @return values read per second since this attribute was last read.
+	 */
+	public double getReadRate();
+	
+	public long getWriterBlockedNanos();
+	
+	public long getMaxWriterBlockedNanos();
+	
+	public long getReaderWaitNanos();
+	
+	public int getHighWaterMark();
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.management;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.googlecode.acpj.internal.config.Configuration;
+
+/**
+ * <p>
+ * Internal - registers the library MXBeans with the platform MBean server, 
+ * all names are in the {@link #DOMAIN} domain with a <code>type</code> key
+ * ({@link #TYPE_CHANNEL}, {@link #TYPE_SERVICE} or {@link #TYPE_ACTOR_POOL})
+ * and, for channels and services, a quoted <code>name</code> key. Failures
+ * to register are reported and otherwise ignored, management must never 
+ * cause the application itself to fail.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public final class Management {
+
+	public static final String DOMAIN = "com.googlecode.acpj";
+	
+	public static final String TYPE_CHANNEL = "Channel";
+	public static final String TYPE_SERVICE = "Service";
+	public static final String TYPE_ACTOR_POOL = "ActorPool";
+	
+	private Management() {
+	}
+	
+	/**
+	 * Determine whether MXBeans should be registered at all.
+	 * 
+	 * @return <code>true</code> if JMX registration has been enabled.
+	 */
+	public static boolean isEnabled() {
+		return Configuration.getJmxEnabled();
+	}
+	
+	/**
+	 * Create the name for an MXBean of the given type.
+	 * 
+	 * @param type the type of the managed object.
+	 * @param name the name of the managed object, may be <code>null</code>
+	 *        for types with a single instance.
+	 * 
+	 * @return the new object name.
+	 */
+	public static ObjectName createName(String type, String name) {
+		try {
+			if (name == null) {
+				return new ObjectName(String.format("%s:type=%s", DOMAIN, type));
+			}
+			return new ObjectName(String.format("%s:type=%s,name=%s", DOMAIN, type, ObjectName.quote(name)));
+		} catch (JMException e) {
+			throw new IllegalArgumentException("Invalid managed object name: " + name, e);
+		}
+	}
+	
+	/**
+	 * Register the MXBean, replacing any MXBean previously registered with 
+	 * the same name.
+	 * 
+	 * @param mxbean the MXBean to register.
+	 * @param name the name to register it as.
+	 */
+	public static void register(Object mxbean, ObjectName name) {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			try {
+				server.registerMBean(mxbean, name);
+			} catch (InstanceAlreadyExistsException e) {
+				server.unregisterMBean(name);
+				server.registerMBean(mxbean, name);
+			}
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Unregister the MXBean with the given name, if it is registered.
+	 * 
+	 * @param name the name the MXBean was registered as.
+	 */
+	public static void unregister(ObjectName name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (InstanceNotFoundException e) {
+			/* already gone */
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.management;
+
+/**
+ * <p>
+ * Internal - calculates the rate at which a monotonically increasing count
+ * changes, in events per second, between successive samples. Management 
+ * clients typically poll attributes every few seconds, samples taken closer
+ * together than {@link #MINIMUM_INTERVAL} return the previously calculated 
+ * rate so that a client reading several attributes at once sees consistent 
+ * values.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class RateSampler {
+
+	/**
+	 * The minimum time, in nanoseconds, between samples that calculate a new rate.
+	 */
+	public static final long MINIMUM_INTERVAL = 1000000000L;
+	
+	private long lastCount = 0L;
+	private long lastTime = 0L;
+	private double rate = 0.0;
+	
+	/**
+	 * Sample the count, the first sample only establishes a baseline.
+	 * 
+	 * @param count the current value of the count.
+	 * 
+	 * @return the rate, per second, since the previous sample.
+	 */
+	public synchronized double sample(long count) {
+		final long now = System.nanoTime();
+		if (this.lastTime == 0L) {
+			this.lastCount = count;
+			this.lastTime = now;
+		} else if (now - this.lastTime >= MINIMUM_INTERVAL) {
+			this.rate = (double)(count - this.lastCount) * 1.0e9 / (double)(now - this.lastTime);
+			this.lastCount = count;
+			this.lastTime = now;
+		}
+		return this.rate;
+	}
+}
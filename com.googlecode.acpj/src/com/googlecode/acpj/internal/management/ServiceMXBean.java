@@ -0,0 +1,48 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.internal.management;
+
+/**
+ * <p>
+ * Internal - the management interface for a running 
+ * {@link com.googlecode.acpj.services.BasicService}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public interface ServiceMXBean {
+
+	public String getServiceClass();
+	
+	public String getChannelName();
+	
+	public String getActorName();
+	
+	public boolean isRunning();
+	
+	/**
+	 * @return the number of requests waiting in the request channel.
+	 */
+	public int getQueueDepth();
+	
+	public long getHandledCount();
+	
+	/**
+	 * @return requests handled per second since this attribute was last read.
+	 */
+	public double getHandledRate();
+	
+	public long getTotalHandlerNanos();
+	
+	public long getMeanHandlerNanos();
+	
+	public long getMaxHandlerNanos();
+}
@@ -8,6 +8,9 @@
  */
 package com.googlecode.acpj.patterns;
 
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 import com.googlecode.acpj.actors.ActorException;
 import com.googlecode.acpj.actors.ActorFactory;
 import com.googlecode.acpj.channels.BufferedChannel;
@@ -50,6 +53,11 @@ public class BasicActorJoinPool implements ActorJoinPool {
 	private ReadPort<Boolean> completionReadPort = null;
 	private int actorCount = 0;
 	
+	/*
+	 * Not a monitor, joining blocks on a channel while holding this lock.
+	 */
+	private final Lock lock = new ReentrantLock();
+	
 	public BasicActorJoinPool() {
 		this.completetionChannel = ChannelFactory.getInstance().createAnyToOneChannel(
 				BasicActorJoinPool.class.getCanonicalName(), 
@@ -63,54 +71,74 @@ public class BasicActorJoinPool implements ActorJoinPool {
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.patterns.ActorJoinPool#addActor(java.lang.Runnable)
 	 */
-	public synchronized void createActor(Runnable runnable) throws IllegalStateException, ActorException {
-		createActor(runnable, ActorFactory.getInstance());	
+	public void createActor(Runnable runnable) throws IllegalStateException, ActorException {
+		this.lock.lock();
+		try {
+			createActor(runnable, ActorFactory.getInstance());	
+		} finally {
+			this.lock.unlock();
+		}
 	}
 	
 	/*
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.patterns.ActorJoinPool#addActor(java.lang.Runnable, com.googlecode.acpj.actors.ActorFactory)
 	 */
-	public synchronized void createActor(Runnable runnable, ActorFactory factory) throws IllegalStateException, ActorException {
-		if (this.actorCount == -1) {
-			throw new IllegalStateException("This pool has already been joined.");
+	public void createActor(Runnable runnable, ActorFactory factory) throws IllegalStateException, ActorException {
+		this.lock.lock();
+		try {
+			if (this.actorCount == -1) {
+				throw new IllegalStateException("This pool has already been joined.");
+			}
+			factory.createActor(new ActorWrapper(runnable, this.completetionChannel.getWritePort(false)));
+			this.actorCount++;
+		} finally {
+			this.lock.unlock();
 		}
-		factory.createActor(new ActorWrapper(runnable, this.completetionChannel.getWritePort(false)));
-		this.actorCount++;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.patterns.ActorJoinPool#joinAll()
 	 */
-	public synchronized void joinAll() throws IllegalStateException, ChannelException {
-		if (this.actorCount == -1) {
-			throw new IllegalStateException("This pool has already been joined.");
-		} else if (this.actorCount == 0) {
-			throw new IllegalStateException("No actors in pool to join.");
-		}
-		int expectedCount = this.actorCount;
-		this.actorCount = -1;
+	public void joinAll() throws IllegalStateException, ChannelException {
+		this.lock.lock();
+		try {
+			if (this.actorCount == -1) {
+				throw new IllegalStateException("This pool has already been joined.");
+			} else if (this.actorCount == 0) {
+				throw new IllegalStateException("No actors in pool to join.");
+			}
+			int expectedCount = this.actorCount;
+			this.actorCount = -1;
 
-		for (int count = 0; count < expectedCount; count++) {
-			this.completionReadPort.read();
+			for (int count = 0; count < expectedCount; count++) {
+				this.completionReadPort.read();
+			}
+			this.completionReadPort.close();
+		} finally {
+			this.lock.unlock();
 		}
-		this.completionReadPort.close();
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * @see com.googlecode.acpj.patterns.ActorJoinPool#joinAny()
 	 */
-	public synchronized void joinAny() throws IllegalStateException, ChannelException {
-		if (this.actorCount == -1) {
-			throw new IllegalStateException("This pool has already been joined.");
-		} else if (this.actorCount == 0) {
-			throw new IllegalStateException("No actors in pool to join.");
+	public void joinAny() throws IllegalStateException, ChannelException {
+		this.lock.lock();
+		try {
+			if (this.actorCount == -1) {
+				throw new IllegalStateException("This pool has already been joined.");
+			} else if (this.actorCount == 0) {
+				throw new IllegalStateException("No actors in pool to join.");
+			}
+			this.actorCount = -1;
+			this.completionReadPort.read();
+			this.completionReadPort.close();
+		} finally {
+			this.lock.unlock();
 		}
-		this.actorCount = -1;
-		this.completionReadPort.read();
-		this.completionReadPort.close();
 	}
 
 }
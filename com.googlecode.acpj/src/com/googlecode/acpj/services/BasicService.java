@@ -8,6 +8,10 @@
  */
 package com.googlecode.acpj.services;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
 import com.googlecode.acpj.actors.Actor;
 import com.googlecode.acpj.actors.ActorFactory;
 import com.googlecode.acpj.channels.BufferedChannel;
@@ -16,6 +20,7 @@ import com.googlecode.acpj.channels.ChannelFactory;
 import com.googlecode.acpj.channels.ChannelPoisonedException;
 import com.googlecode.acpj.channels.ChannelRegistry;
 import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.internal.management.Management;
 
 /**
  * <p>
@@ -65,6 +70,12 @@ import com.googlecode.acpj.channels.ReadPort;
  * <code>setActorName</code> are not necessary in the constructor as default names will
  * be chosen if not supplied. 
  * </p>
+ * <p>
+ * The service records the number of requests handled and the time spent in 
+ * {@link #handleRequest(Object)}, and if JMX is enabled (see 
+ * {@link com.googlecode.acpj.Arguments#CFG_JMX_ENABLED}) these are available
+ * from an MXBean registered while the service is running.
+ * </p>
  * 
  * @author Simon Johnston (simon@johnstonshome.org)
  * @since 0.1.0
@@ -81,6 +92,12 @@ public abstract class BasicService<RT> implements Runnable {
 	
 	private ReadPort<RT> requestPort = null;
 	
+	private ObjectName objectName = null;
+	
+	private final AtomicLong handled = new AtomicLong(0);
+	private final AtomicLong handlerNanos = new AtomicLong(0);
+	private final AtomicLong maxHandlerNanos = new AtomicLong(0);
+	
 	/**
 	 * Default constructor, allows framework creation of services.
 	 */
@@ -147,6 +164,44 @@ public abstract class BasicService<RT> implements Runnable {
 		return this.requestPort.read();
 	}
 	
+	/**
+	 * The number of requests waiting to be handled.
+	 * 
+	 * @return the number of requests in the request channel, or 0 if the
+	 *         service is not running.
+	 */
+	public int getQueueDepth() {
+		final BufferedChannel<RT> channel = this.requestChannel;
+		return channel != null ? channel.size() : 0;
+	}
+	
+	/**
+	 * The number of requests handled since the service was created.
+	 * 
+	 * @return the number of calls to {@link #handleRequest(Object)}.
+	 */
+	public long getHandledCount() {
+		return this.handled.get();
+	}
+	
+	/**
+	 * The total time spent handling requests since the service was created.
+	 * 
+	 * @return the time spent in {@link #handleRequest(Object)}, in nanoseconds.
+	 */
+	public long getTotalHandlerNanos() {
+		return this.handlerNanos.get();
+	}
+	
+	/**
+	 * The longest time spent handling a single request.
+	 * 
+	 * @return the longest call to {@link #handleRequest(Object)}, in nanoseconds.
+	 */
+	public long getMaxHandlerNanos() {
+		return this.maxHandlerNanos.get();
+	}
+	
 	/**
 	 * Start the service, note that this will do nothing if the service
 	 * is already running.
@@ -170,6 +225,10 @@ public abstract class BasicService<RT> implements Runnable {
 						this.channelName, 
 						true);
 				this.requestPort = this.requestChannel.getReadPort(false); 
+				if (Management.isEnabled()) {
+					this.objectName = Management.createName(Management.TYPE_SERVICE, this.channelName);
+					Management.register(new ServiceManagement(this), this.objectName);
+				}
 				this.serviceActor = ActorFactory.getInstance().createActor(this, this.actorName);
 			}
 		}
@@ -182,7 +241,8 @@ public abstract class BasicService<RT> implements Runnable {
 	 * @return <code>true</code> if the service actor is running.
 	 */
 	public boolean isRunning() {
-		return (this.serviceActor != null || this.serviceActor.isRunning());
+		final Actor actor = this.serviceActor;
+		return (actor != null && actor.isRunning());
 	}
 	
 	/**
@@ -197,6 +257,22 @@ public abstract class BasicService<RT> implements Runnable {
 				this.requestChannel = null;
 				this.serviceActor = null;
 			}
+			unregister(this.objectName);
+		}
+	}
+	
+	/*
+	 * Remove the service MXBean both when the service is stopped and when the
+	 * run-loop exits of its own accord. A run-loop only removes the name it was 
+	 * started with, the service may since have been stopped and restarted under
+	 * a new name.
+	 */
+	private void unregister(ObjectName name) {
+		synchronized (this.serviceLock) {
+			if (name != null && name == this.objectName) {
+				Management.unregister(name);
+				this.objectName = null;
+			}
 		}
 	}
 	
@@ -230,16 +306,29 @@ public abstract class BasicService<RT> implements Runnable {
 	 * This is the actual service method that will process request messages.
 	 */
 	public void run() {
+		/*
+		 * The service may be stopped and restarted while this run-loop is still
+		 * exiting, so hold on to the channel, port and name it was started with.
+		 */
+		final BufferedChannel<RT> channel;
+		final ReadPort<RT> port;
+		final ObjectName name;
+		synchronized (this.serviceLock) {
+			channel = this.requestChannel;
+			port = this.requestPort;
+			name = this.objectName;
+		}
+		
 		/*
 		 * Call the handler class to initialize.
 		 */
 		startup();
 		
 		/*
-		 * Retrieve and claim the port for the request channel.
+		 * Claim the port for the request channel.
 		 */
 		try {
-			getReadPort().claim();
+			port.claim();
 		} catch (Throwable t) {
 			t.printStackTrace();
 		}
@@ -254,7 +343,7 @@ public abstract class BasicService<RT> implements Runnable {
 				/*
 				 * Read a message from the request queue.
 				 */
-				request = getNextRequest();
+				request = port.read();
 			} catch (ChannelPoisonedException e) {
 				/*
 				 * Terminate, DO NOT reset the running flag.
@@ -266,7 +355,9 @@ public abstract class BasicService<RT> implements Runnable {
 			/*
 			 * Call the handler to process this request.
 			 */
+			final long started = System.nanoTime();
 			running = handleRequest(request);
+			recordHandled(System.nanoTime() - started);
 		}
 		
 		/*
@@ -274,13 +365,25 @@ public abstract class BasicService<RT> implements Runnable {
 		 * request channel read port.
 		 */
 		if (!running) {
-			getReadPort().close();
+			port.close();
 		}
 
 		/*
 		 * Now call the handler again to do any clean-up before we exit.
 		 */
-		shutdown(this.requestChannel.isPoisoned());
+		try {
+			shutdown(channel.isPoisoned());
+		} finally {
+			unregister(name);
+		}
 	}
 	
+	private void recordHandled(long nanos) {
+		this.handled.incrementAndGet();
+		this.handlerNanos.addAndGet(nanos);
+		long current = this.maxHandlerNanos.get();
+		while (nanos > current && !this.maxHandlerNanos.compareAndSet(current, nanos)) {
+			current = this.maxHandlerNanos.get();
+		}
+	}
 }
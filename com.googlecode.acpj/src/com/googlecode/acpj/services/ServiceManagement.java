@@ -0,0 +1,113 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.services;
+
+import com.googlecode.acpj.internal.management.RateSampler;
+import com.googlecode.acpj.internal.management.ServiceMXBean;
+
+/**
+ * <p>
+ * Internal - the MXBean for a running {@link BasicService}, registered by 
+ * {@link BasicService#start()} and unregistered by {@link BasicService#stop()}.
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+class ServiceManagement implements ServiceMXBean {
+
+	private final BasicService<?> service;
+	private final RateSampler handledRate = new RateSampler();
+	
+	public ServiceManagement(BasicService<?> service) {
+		this.service = service;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getServiceClass()
+	 */
+	public String getServiceClass() {
+		return this.service.getClass().getName();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getChannelName()
+	 */
+	public String getChannelName() {
+		return this.service.getChannelName();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getActorName()
+	 */
+	public String getActorName() {
+		return this.service.getActorName();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#isRunning()
+	 */
+	public boolean isRunning() {
+		return this.service.isRunning();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getQueueDepth()
+	 */
+	public int getQueueDepth() {
+		return this.service.getQueueDepth();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getHandledCount()
+	 */
+	public long getHandledCount() {
+		return this.service.getHandledCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getHandledRate()
+	 */
+	public double getHandledRate() {
+		return this.handledRate.sample(this.service.getHandledCount());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getTotalHandlerNanos()
+	 */
+	public long getTotalHandlerNanos() {
+		return this.service.getTotalHandlerNanos();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getMeanHandlerNanos()
+	 */
+	public long getMeanHandlerNanos() {
+		final long handled = this.service.getHandledCount();
+		return handled > 0L ? this.service.getTotalHandlerNanos() / handled : 0L;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.googlecode.acpj.internal.management.ServiceMXBean#getMaxHandlerNanos()
+	 */
+	public long getMaxHandlerNanos() {
+		return this.service.getMaxHandlerNanos();
+	}
+}
@@ -8,7 +8,21 @@
  */
 package com.googlecode.acpj.tests;
 
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.googlecode.acpj.Arguments;
 import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.channels.BufferedChannel;
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelFactory;
+import com.googlecode.acpj.channels.ChannelRegistry;
+import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.internal.actors.ActorPoolExecutor;
+import com.googlecode.acpj.services.BasicService;
 import com.googlecode.acpj.services.LogService;
 import com.googlecode.acpj.services.WatchdogService;
 
@@ -43,6 +57,12 @@ public class ServiceTests extends TestCase {
 		}
 	}
 	
+	class Counting extends BasicService<Integer> {
+		public boolean handleRequest(Integer request) {
+			return request.intValue() >= 0;
+		}
+	}
+	
 	public void test001_WatchdogTests() throws Exception {
 		System.out.println(String.format("===== %s =====", getName()));
 		new WatchdogService().start();
@@ -63,4 +83,56 @@ public class ServiceTests extends TestCase {
 		ActorFactory.getInstance().createActor(new Works(), "works");		
 		Thread.sleep(500);
 	}
+
+	public void test003_ManagementTests() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+		System.setProperty(Arguments.CFG_JMX_ENABLED, "true");
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			
+			final ActorPoolExecutor pool = ActorPoolExecutor.createPool(1);
+			assertTrue(server.isRegistered(new ObjectName("com.googlecode.acpj:type=ActorPool")));
+			pool.shutdown();
+			
+			final BufferedChannel<Integer> channel = ChannelFactory.getInstance().createOneToOneChannel("managed", 4);
+			final Set<ObjectName> channels = server.queryNames(new ObjectName("com.googlecode.acpj:type=Channel,*"), null);
+			assertTrue(channels.contains(new ObjectName("com.googlecode.acpj:type=Channel,name=" + ObjectName.quote(channel.getName()))));
+			
+			final Counting service = new Counting();
+			service.start();
+			final ObjectName serviceName = new ObjectName("com.googlecode.acpj:type=Service,name=" + ObjectName.quote(service.getChannelName()));
+			assertTrue(server.isRegistered(serviceName));
+			
+			final Channel<Integer> requests = ChannelRegistry.getInstance().lookup(service.getChannelName());
+			final WritePort<Integer> port = requests.getWritePort(true);
+			for (int i = 0; i < 10; i++) {
+				port.write(Integer.valueOf(i));
+			}
+			port.close();
+			final long deadline = System.currentTimeMillis() + 5000;
+			while (service.getHandledCount() < 10 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(Long.valueOf(10), server.getAttribute(serviceName, "HandledCount"));
+			
+			service.stop();
+			assertFalse(server.isRegistered(serviceName));
+			
+			/*
+			 * A service that ends its own run-loop also removes its MXBean.
+			 */
+			service.start();
+			assertTrue(server.isRegistered(serviceName));
+			final WritePort<Integer> last = ChannelRegistry.getInstance().<Integer>lookup(service.getChannelName()).getWritePort(true);
+			last.write(Integer.valueOf(-1));
+			last.close();
+			final long stopped = System.currentTimeMillis() + 5000;
+			while (server.isRegistered(serviceName) && System.currentTimeMillis() < stopped) {
+				Thread.sleep(10);
+			}
+			assertFalse(server.isRegistered(serviceName));
+		} finally {
+			System.clearProperty(Arguments.CFG_JMX_ENABLED);
+		}
+	}
 }
@@ -9,9 +9,16 @@
 package com.googlecode.acpj.tests;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.googlecode.acpj.actors.Actor;
 import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.actors.MessageHandler;
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelFactory;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.WritePort;
 import com.googlecode.acpj.patterns.ActorJoinPool;
 import com.googlecode.acpj.patterns.BasicActorJoinPool;
 
@@ -48,6 +55,20 @@ public class SimpleActorTests extends TestCase {
 		}
 	}
 	
+	public class RelayHandler implements MessageHandler<Integer> {
+		private Channel<Integer> out = null;
+		private WritePort<Integer> writePort = null;
+		public RelayHandler(Channel<Integer> out) {
+			this.out = out;
+		}
+		public void onMessage(Integer message) {
+			if (this.writePort == null) {
+				this.writePort = this.out.getWritePort(true);
+			}
+			this.writePort.write(Integer.valueOf(message.intValue() + 1));
+		}
+	}
+	
 	public void test001_CreateBadActor() throws Exception {
 		System.out.println(String.format("===== %s =====", getName()));
 		
@@ -125,4 +146,43 @@ public class SimpleActorTests extends TestCase {
 		pool.joinAny();
 		System.out.println("Completed join");
 	}
+
+	public void test006_CreateMessageDrivenActors() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+		
+		/*
+		 * Far more actors than threads, each only runs when the value reaches
+		 * its channel.
+		 */
+		final int actors = 1000;
+		final int values = 10;
+		List<Channel<Integer>> channels = new ArrayList<Channel<Integer>>();
+		List<Actor> relays = new ArrayList<Actor>();
+		Channel<Integer> head = ChannelFactory.getInstance().createOneToOneChannel();
+		Channel<Integer> in = head;
+		for (int i = 0; i < actors; i++) {
+			Channel<Integer> out = ChannelFactory.getInstance().createOneToOneChannel(1);
+			relays.add(ActorFactory.getInstance().createActor(in.getReadPort(false), new RelayHandler(out), "relay"));
+			channels.add(in);
+			in = out;
+		}
+		WritePort<Integer> writePort = head.getWritePort(true);
+		ReadPort<Integer> readPort = in.getReadPort(true);
+		for (int i = 0; i < values; i++) {
+			writePort.write(Integer.valueOf(i));
+			assertEquals(i + actors, readPort.read().intValue());
+		}
+		/*
+		 * Poisoning the channels finishes the actors.
+		 */
+		for (Channel<Integer> channel : channels) {
+			channel.poison();
+		}
+		for (Actor relay : relays) {
+			for (int wait = 0; relay.isRunning() && wait < 100; wait++) {
+				Thread.sleep(10);
+			}
+			assertFalse(relay.isRunning());
+		}
+	}
 }
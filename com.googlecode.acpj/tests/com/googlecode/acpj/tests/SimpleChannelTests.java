@@ -8,20 +8,49 @@
  */
 package com.googlecode.acpj.tests;
 
+import java.io.File;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.googlecode.acpj.Arguments;
 import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.channels.Alternative;
+import com.googlecode.acpj.channels.BufferedChannel;
+import com.googlecode.acpj.channels.ByteBufferChannel;
+import com.googlecode.acpj.channels.ByteBufferReadPort;
+import com.googlecode.acpj.channels.ByteBufferWritePort;
 import com.googlecode.acpj.channels.Channel;
 import com.googlecode.acpj.channels.ChannelException;
 import com.googlecode.acpj.channels.ChannelFactory;
 import com.googlecode.acpj.channels.ChannelMonitorOutput;
 import com.googlecode.acpj.channels.ChannelPoisonedException;
 import com.googlecode.acpj.channels.ChannelRegistry;
+import com.googlecode.acpj.channels.DoubleChannel;
+import com.googlecode.acpj.channels.DoubleReadPort;
+import com.googlecode.acpj.channels.DoubleWritePort;
+import com.googlecode.acpj.channels.IntChannel;
+import com.googlecode.acpj.channels.IntReadPort;
+import com.googlecode.acpj.channels.IntWritePort;
+import com.googlecode.acpj.channels.LatencyHistogram;
+import com.googlecode.acpj.channels.LongChannel;
+import com.googlecode.acpj.channels.LongReadPort;
+import com.googlecode.acpj.channels.LongWritePort;
+import com.googlecode.acpj.channels.MonitoredChannel;
 import com.googlecode.acpj.channels.PortArity;
 import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.WaitStrategy;
 import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.internal.channels.SimpleChannel;
+import com.googlecode.acpj.internal.channels.SimplePort;
 import com.googlecode.acpj.patterns.ChannelFilter;
 import com.googlecode.acpj.patterns.ChannelOperation;
 import com.googlecode.acpj.patterns.Request;
@@ -42,6 +71,22 @@ import junit.framework.TestCase;
  */
 public class SimpleChannelTests extends TestCase {
 	
+	/*
+	 * Poisoned by the writer once a value has been stored, as if another actor
+	 * had poisoned it at that moment.
+	 */
+	public class PoisoningChannel<T> extends SimpleChannel<T> {
+		public PoisoningChannel(String name, int writePortLimit, int capacity) {
+			super(name, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, writePortLimit, capacity);
+		}
+		@Override
+		public boolean writeValue(T value, long timeout, TimeUnit unit) {
+			final boolean written = super.writeValue(value, timeout, unit);
+			poison();
+			return written;
+		}
+	}
+	
 	public class UuidServer implements Runnable {		
 		public void run() {
 			Channel<Request<UUID>> channel = ChannelFactory.getInstance().createAnyToOneChannel();
@@ -146,6 +191,71 @@ public class SimpleChannelTests extends TestCase {
 		}
 	}
 	
+	public class BatchConsumer implements Runnable {
+		private Channel<String> channel = null;
+		private List<String> received = null;
+		public BatchConsumer(Channel<String> channel, List<String> received) {
+			this.channel = channel;
+			this.received = received;
+		}
+		public void run() {
+			try {
+				ReadPort<String> readPort = this.channel.getReadPort(true);
+				while (true) {
+					try {
+						List<String> batch = new ArrayList<String>();
+						int count = readPort.readBatch(batch, 16);
+						System.out.println("BatchConsumer, read " + count + " messages.");
+						this.received.addAll(batch);
+					} catch (ChannelPoisonedException e) {
+						break;
+					}
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	public class BatchProducer implements Runnable {
+		private Channel<String> channel = null;
+		private int count;
+		public BatchProducer(Channel<String> channel, int count) {
+			this.channel = channel;
+			this.count = count;
+		}
+		public void run() {
+			try {
+				WritePort<String> writePort = this.channel.getWritePort(true);
+				List<String> batch = new ArrayList<String>();
+				for (int i = 0; i < this.count; i++) {
+					batch.add(String.valueOf(i));
+				}
+				writePort.writeAll(batch);
+				System.out.println("BatchProducer, wrote " + this.count + " messages.");
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	public class ChannelPoisoner implements Runnable {
+		private Channel<?> channel = null;
+		private long delay = 0;
+		public ChannelPoisoner(Channel<?> channel, long delay) {
+			this.channel = channel;
+			this.delay = delay;
+		}
+		public void run() {
+			try {
+				Thread.sleep(this.delay);
+				this.channel.poison();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
 	public class RandomNumberGenerator implements Runnable {
 		private WritePort<Integer> writePort = null;
 		private int count = 0;
@@ -442,6 +552,685 @@ public class SimpleChannelTests extends TestCase {
 		channel.getWritePort(false);
 	}
 
+	public void test015_BufferedAnyToAnyConsumer() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		final BufferedChannel<String> channel = ChannelFactory.getInstance().createAnyToAnyChannel(2);
+		Assert.assertNotNull(channel);
+		
+		final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+		for (int i = 0; i < 3; i++) {
+			ActorFactory.getInstance().createActor(new Runnable() {
+				public void run() {
+					ReadPort<String> readPort = channel.getReadPort(true);
+					while (true) {
+						try {
+							received.add(readPort.read());
+						} catch (ChannelPoisonedException e) {
+							break;
+						}
+					}
+				}
+			});
+		}
+		final List<String> expected = new ArrayList<String>();
+		for (int p = 0; p < 2; p++) {
+			final String producer = "producer-" + p;
+			for (int i = 0; i < 10; i++) {
+				expected.add(producer + "/" + i);
+			}
+			ActorFactory.getInstance().createActor(new Runnable() {
+				public void run() {
+					WritePort<String> writePort = channel.getWritePort(true);
+					for (int i = 0; i < 10; i++) {
+						writePort.write(producer + "/" + i);
+					}
+				}
+			});
+		}
+		
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (received.size() < expected.size() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		channel.poison();
+		assertTrue(channel.isPoisoned());
+		final List<String> actual = new ArrayList<String>(received);
+		Collections.sort(actual);
+		Collections.sort(expected);
+		assertEquals(expected, actual);
+	}
+
+	public void test016_SpinningOneToOneConsumer() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		Channel<String> channel = ChannelFactory.getInstance().createChannel(
+				"spinning", PortArity.ONE, 1, PortArity.ONE, 1, 1, WaitStrategy.SPIN_PARK);
+		Assert.assertNotNull(channel);
+		
+		ActorFactory.getInstance().createActor(new ChannelConsumer(channel));
+		Thread.sleep(500);
+		ActorFactory.getInstance().createActor(new ChannelProducer(channel, 10));
+		
+		Thread.sleep(1000);
+		channel.poison();
+	}
+
+	public void test017_BatchReadWrite() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		Channel<String> channel = ChannelFactory.getInstance().createOneToOneChannel(10);
+		Assert.assertNotNull(channel);
+		List<String> received = Collections.synchronizedList(new ArrayList<String>());
+		
+		ActorFactory.getInstance().createActor(new BatchConsumer(channel, received));
+		ActorFactory.getInstance().createActor(new BatchProducer(channel, 100));
+		
+		Thread.sleep(1000);
+		channel.poison();
+		
+		assertEquals(100, received.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(String.valueOf(i), received.get(i));
+		}
+	}
+
+	public void test018_TimedReadWrite() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		Channel<String> buffered = ChannelFactory.getInstance().createOneToOneChannel(1);
+		ReadPort<String> readPort = buffered.getReadPort(true);
+		WritePort<String> writePort = buffered.getWritePort(true);
+		
+		assertNull(readPort.tryRead());
+		assertNull(readPort.read(100, TimeUnit.MILLISECONDS));
+		assertTrue(writePort.tryWrite("first"));
+		assertFalse(writePort.tryWrite("second"));
+		assertFalse(writePort.write("second", 100, TimeUnit.MILLISECONDS));
+		assertEquals("first", readPort.read(100, TimeUnit.MILLISECONDS));
+		assertTrue(writePort.write("second", 100, TimeUnit.MILLISECONDS));
+		assertEquals("second", readPort.tryRead());
+		
+		buffered.poison();
+		try {
+			readPort.tryRead();
+			fail("Read from poisoned channel.");
+		} catch (ChannelPoisonedException e) {
+			;
+		}
+		
+		Channel<String> unbuffered = ChannelFactory.getInstance().createOneToOneChannel();
+		readPort = unbuffered.getReadPort(true);
+		
+		assertNull(readPort.tryRead());
+		assertNull(readPort.read(100, TimeUnit.MILLISECONDS));
+		ActorFactory.getInstance().createActor(new ChannelWriter<String>(unbuffered, "third"));
+		assertEquals("third", readPort.read(5, TimeUnit.SECONDS));
+	}
+
+	public void test019_Alternative() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		Channel<String> first = ChannelFactory.getInstance().createOneToOneChannel(10);
+		Channel<String> second = ChannelFactory.getInstance().createOneToOneChannel(10);
+		Channel<String> unbuffered = ChannelFactory.getInstance().createOneToOneChannel();
+		WritePort<String> firstWriter = first.getWritePort(true);
+		WritePort<String> secondWriter = second.getWritePort(true);
+		
+		Alternative alternative = ChannelFactory.getInstance().createAlternative(Alternative.Policy.PRIORITY, 
+				first.getReadPort(true), second.getReadPort(true), unbuffered.getReadPort(true));
+		assertEquals(3, alternative.size());
+		assertEquals(Alternative.NONE_SELECTED, alternative.trySelect());
+		assertEquals(Alternative.NONE_SELECTED, alternative.select(100, TimeUnit.MILLISECONDS));
+		
+		secondWriter.write("second");
+		assertEquals(1, alternative.trySelect());
+		firstWriter.write("first");
+		assertEquals(0, alternative.select());
+		assertEquals("first", alternative.getPort(0).read());
+		assertEquals(1, alternative.select());
+		assertEquals("second", alternative.getPort(1).read());
+		
+		/*
+		 * A writer blocked on the unbuffered channel wakes the selecting actor.
+		 */
+		ActorFactory.getInstance().createActor(new ChannelWriter<String>(unbuffered, "unbuffered"));
+		assertEquals(2, alternative.select(5, TimeUnit.SECONDS));
+		assertEquals("unbuffered", alternative.getPort(2).read());
+		
+		/*
+		 * Poisoning a channel makes it ready.
+		 */
+		ActorFactory.getInstance().createActor(new ChannelPoisoner(second, 500));
+		assertEquals(1, alternative.select(5, TimeUnit.SECONDS));
+		try {
+			alternative.getPort(1).read();
+			fail("Read from poisoned channel.");
+		} catch (ChannelPoisonedException e) {
+			;
+		}
+	}
+
+	public void test020_FairAlternative() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		Channel<String> first = ChannelFactory.getInstance().createOneToOneChannel(10);
+		Channel<String> second = ChannelFactory.getInstance().createOneToOneChannel(10);
+		WritePort<String> firstWriter = first.getWritePort(true);
+		WritePort<String> secondWriter = second.getWritePort(true);
+		for (int i = 0; i < 3; i++) {
+			firstWriter.write("first");
+			secondWriter.write("second");
+		}
+		
+		Alternative alternative = ChannelFactory.getInstance().createAlternative(Alternative.Policy.FAIR, 
+				first.getReadPort(true), second.getReadPort(true));
+		for (int i = 0; i < 6; i++) {
+			final int selected = alternative.select();
+			assertEquals(i % 2, selected);
+			alternative.getPort(selected).read();
+		}
+		assertEquals(Alternative.NONE_SELECTED, alternative.trySelect());
+	}
+
+	public void test021_ConcurrentPorts() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		/*
+		 * Only one of many concurrent callers may create the write port.
+		 */
+		final Channel<String> channel = ChannelFactory.getInstance().createOneToOneChannel();
+		final List<WritePort<String>> created = Collections.synchronizedList(new ArrayList<WritePort<String>>());
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 16; i++) {
+			threads.add(new Thread() {
+				public void run() {
+					try {
+						created.add(channel.getWritePort(false));
+					} catch (ChannelException e) {
+						;
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, created.size());
+		/*
+		 * Once closed a new write port may be created.
+		 */
+		created.get(0).close();
+		assertNotNull(channel.getWritePort(false));
+
+		/*
+		 * Many callers creating and closing ports on the same channel.
+		 */
+		final Channel<String> shared = ChannelFactory.getInstance().createAnyToOneChannel();
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		threads.clear();
+		for (int i = 0; i < 16; i++) {
+			threads.add(new Thread() {
+				public void run() {
+					try {
+						for (int j = 0; j < 1000; j++) {
+							shared.getWritePort(false).close();
+						}
+					} catch (Throwable t) {
+						errors.add(t);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(errors.isEmpty());
+	}
+
+	public void test022_PortLimits() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		/*
+		 * Only operations that complete count against the limit.
+		 */
+		BufferedChannel<String> channel = ChannelFactory.getInstance().createOneToOneChannel("limits", 3, 2, 1);
+		WritePort<String> writePort = channel.getWritePort(true);
+		ReadPort<String> readPort = channel.getReadPort(true);
+		assertNull(readPort.tryRead());
+		assertTrue(writePort.tryWrite("one"));
+		assertFalse(writePort.tryWrite("full"));
+		assertEquals("one", readPort.read());
+		assertTrue(writePort.tryWrite("two"));
+		try {
+			writePort.write("three");
+			fail("Write port limit check failed.");
+		} catch (IllegalStateException e) {
+			;
+		}
+		List<String> values = new ArrayList<String>();
+		assertEquals(1, readPort.readBatch(values, 10));
+		assertNull(readPort.tryRead());
+	}
+
+	public void test023_PrimitiveChannels() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		/*
+		 * Primitive and boxed operations share the same buffer.
+		 */
+		IntChannel ints = ChannelFactory.getInstance().createIntChannel("ints", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 3);
+		IntWritePort intWriter = ints.getWritePort(true);
+		IntReadPort intReader = ints.getReadPort(true);
+		intWriter.writeInt(-7);
+		intWriter.write(Integer.valueOf(42));
+		assertEquals(2, ints.size());
+		assertEquals(Integer.valueOf(-7), intReader.read());
+		assertEquals(42, intReader.readInt());
+		assertNull(intReader.tryRead());
+
+		/*
+		 * As for object channels, buffered values are not read once poisoned.
+		 */
+		intWriter.writeInt(1);
+		ints.poison();
+		try {
+			intReader.readInt();
+			fail("Read from poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+			;
+		}
+
+		DoubleChannel doubles = ChannelFactory.getInstance().createDoubleChannel("doubles", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 2);
+		DoubleWritePort doubleWriter = doubles.getWritePort(true);
+		DoubleReadPort doubleReader = doubles.getReadPort(true);
+		doubleWriter.writeDouble(Math.PI);
+		doubleWriter.writeDouble(Double.NaN);
+		assertFalse(doubleWriter.tryWrite(Double.valueOf(1.0)));
+		assertEquals(Math.PI, doubleReader.readDouble());
+		assertTrue(Double.isNaN(doubleReader.readDouble()));
+
+		/*
+		 * Many writers and readers blocking on a small buffer.
+		 */
+		final LongChannel longs = ChannelFactory.getInstance().createLongChannel("longs", PortArity.ANY, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ANY, ChannelFactory.PORT_LIMIT_UNLIMITED, 5);
+		final AtomicLong total = new AtomicLong(0);
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread() {
+				public void run() {
+					LongWritePort writePort = longs.getWritePort(true);
+					for (long j = 1; j <= 10000; j++) {
+						writePort.writeLong(j);
+					}
+				}
+			});
+			threads.add(new Thread() {
+				public void run() {
+					LongReadPort readPort = longs.getReadPort(true);
+					long sum = 0;
+					for (int j = 0; j < 10000; j++) {
+						sum += readPort.readLong();
+					}
+					total.addAndGet(sum);
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(4L * 10000L * 10001L / 2L, total.get());
+
+		LongReadPort readPort = longs.getReadPort(true);
+		longs.poison();
+		try {
+			readPort.readLong();
+			fail("Read from poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+			;
+		}
+		try {
+			ChannelFactory.getInstance().createLongChannel("unbuffered", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 0);
+			fail("Unbuffered primitive channel created.");
+		} catch (IllegalArgumentException e) {
+			;
+		}
+	}
+
+	public void test024_ByteBufferChannels() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		/*
+		 * Payloads written and read in place.
+		 */
+		ByteBufferChannel direct = ChannelFactory.getInstance().createByteBufferChannel("direct", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 2, 64, null);
+		assertEquals(64, direct.getSlotSize());
+		ByteBufferWritePort writePort = direct.getWritePort(true);
+		ByteBufferReadPort readPort = direct.getReadPort(true);
+		ByteBuffer slot = writePort.reserve();
+		assertEquals(64, slot.remaining());
+		slot.putLong(42L).putInt(7);
+		writePort.publish(slot);
+		ByteBuffer view = readPort.readView();
+		assertTrue(view.isReadOnly());
+		assertEquals(12, view.remaining());
+		assertEquals(42L, view.getLong());
+		assertEquals(7, view.getInt());
+		readPort.releaseView(view);
+		try {
+			readPort.releaseView(ByteBuffer.allocate(64));
+			fail("Released a buffer that is not a view.");
+		} catch (IllegalArgumentException e) {
+			;
+		}
+
+		/*
+		 * The standard operations copy in and out.
+		 */
+		writePort.write(ByteBuffer.wrap("hello".getBytes("UTF-8")));
+		try {
+			writePort.tryWrite(ByteBuffer.wrap(new byte[65]));
+			fail("Wrote a value larger than the slot size.");
+		} catch (IllegalArgumentException e) {
+			;
+		}
+		ByteBuffer copy = readPort.read();
+		assertEquals("hello", new String(copy.array(), 0, copy.remaining(), "UTF-8"));
+		assertNull(readPort.tryRead());
+
+		/*
+		 * A mapped buffer with a writer blocking on a reader holding views.
+		 */
+		File file = File.createTempFile("acpj", ".ring");
+		file.deleteOnExit();
+		final ByteBufferChannel mapped = ChannelFactory.getInstance().createByteBufferChannel("mapped", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 3, 1024, file);
+		assertEquals(3 * 1024, file.length());
+		Thread writer = new Thread() {
+			public void run() {
+				ByteBufferWritePort port = mapped.getWritePort(true);
+				for (int i = 0; i < 1000; i++) {
+					ByteBuffer buffer = port.reserve();
+					buffer.putInt(i);
+					port.publish(buffer);
+				}
+			}
+		};
+		writer.start();
+		ByteBufferReadPort mappedReader = mapped.getReadPort(true);
+		for (int i = 0; i < 1000; i++) {
+			ByteBuffer buffer = mappedReader.readView();
+			assertEquals(i, buffer.getInt());
+			mappedReader.releaseView(buffer);
+		}
+		writer.join();
+		mapped.poison();
+		try {
+			mappedReader.readView();
+			fail("Read from poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+			;
+		}
+	}
+
+	public void test025_DurableChannels() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		File directory = File.createTempFile("acpj", ".log");
+		directory.delete();
+		System.setProperty(Arguments.CFG_DURABLE_SEGMENT_SIZE, "256");
+		try {
+			BufferedChannel<String> channel = ChannelFactory.getInstance().createDurableChannel("durable", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 100, directory, null);
+			WritePort<String> writePort = channel.getWritePort(true);
+			ReadPort<String> readPort = channel.getReadPort(true);
+			for (int i = 0; i < 50; i++) {
+				writePort.write("value-" + i);
+			}
+			final File first = new File(directory, "segment-0000000000000000.log");
+			assertTrue(first.exists());
+			int segments = directory.list().length;
+			assertTrue(segments > 3);
+			for (int i = 0; i < 20; i++) {
+				assertEquals("value-" + i, readPort.read());
+			}
+			/*
+			 * Segments holding only values already read are removed.
+			 */
+			assertFalse(first.exists());
+			assertTrue(directory.list().length < segments);
+			segments = directory.list().length;
+			channel.poison();
+
+			/*
+			 * A new channel over the same log replays the values not yet read.
+			 */
+			BufferedChannel<String> replayed = ChannelFactory.getInstance().createDurableChannel("durable", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 100, directory, null);
+			assertEquals(30, replayed.size());
+			readPort = replayed.getReadPort(true);
+			for (int i = 20; i < 50; i++) {
+				assertEquals("value-" + i, readPort.read());
+			}
+			assertNull(readPort.tryRead());
+			assertTrue(directory.list().length < segments);
+			replayed.poison();
+			try {
+				readPort.read();
+				fail("Read from poisoned channel succeeded.");
+			} catch (ChannelPoisonedException e) {
+				;
+			}
+		} finally {
+			System.clearProperty(Arguments.CFG_DURABLE_SEGMENT_SIZE);
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	public void test026_SpillingChannels() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		/*
+		 * Writers never block, values beyond the window are read back in order.
+		 */
+		BufferedChannel<Integer> channel = ChannelFactory.getInstance().createSpillingChannel("spilling", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 10, null);
+		assertEquals(BufferedChannel.BUFFER_CAPACITY_UNLIMITED, channel.getBufferCapacity());
+		WritePort<Integer> writePort = channel.getWritePort(true);
+		ReadPort<Integer> readPort = channel.getReadPort(true);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(writePort.tryWrite(Integer.valueOf(i)));
+		}
+		assertEquals(1000, channel.size());
+		for (int i = 0; i < 500; i++) {
+			assertEquals(Integer.valueOf(i), readPort.read());
+		}
+		for (int i = 1000; i < 1100; i++) {
+			writePort.write(Integer.valueOf(i));
+		}
+		for (int i = 500; i < 1100; i++) {
+			assertEquals(Integer.valueOf(i), readPort.read());
+		}
+		assertNull(readPort.tryRead());
+		writePort.write(Integer.valueOf(-1));
+		assertEquals(Integer.valueOf(-1), readPort.read());
+		channel.poison();
+		try {
+			readPort.read();
+			fail("Read from poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+			;
+		}
+	}
+
+	public void test027_ChannelStatistics() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		final BufferedChannel<Integer> channel = ChannelFactory.getInstance().createOneToOneChannel("statistics", 2);
+		MonitoredChannel monitored = null;
+		for (Iterator<MonitoredChannel> channels = ChannelFactory.getInstance().getChannelMonitor().getChannels(); channels.hasNext();) {
+			MonitoredChannel next = channels.next();
+			if (channel.getName().equals(next.getName())) {
+				monitored = next;
+			}
+		}
+		assertNotNull(monitored);
+		assertTrue(monitored.hasStatistics());
+
+		/*
+		 * Fill the buffer, then block a writer until a value is read.
+		 */
+		final WritePort<Integer> writePort = channel.getWritePort(false);
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				writePort.claim();
+				for (int i = 0; i < 3; i++) {
+					writePort.write(Integer.valueOf(i));
+				}
+			}
+		});
+		writer.start();
+		while (monitored.getValuesWritten() < 2) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(200);
+		ReadPort<Integer> readPort = channel.getReadPort(true);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(Integer.valueOf(i), readPort.read());
+		}
+		writer.join();
+		assertNull(readPort.read(50, TimeUnit.MILLISECONDS));
+
+		assertEquals(3L, monitored.getValuesWritten());
+		assertEquals(3L, monitored.getValuesRead());
+		assertEquals(2, monitored.getHighWaterMark());
+		assertTrue(monitored.getMaxWriterBlockedNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+		assertTrue(monitored.getWriterBlockedNanos() >= monitored.getMaxWriterBlockedNanos());
+		assertTrue(monitored.getReaderWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+		channel.poison();
+	}
+
+	public void test028_ChannelHistograms() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+		
+		assertEquals(LatencyHistogram.SUB_BUCKETS - 1, LatencyHistogram.getBucket(LatencyHistogram.SUB_BUCKETS - 1));
+		for (long nanos = 1L; nanos < (1L << 41); nanos = nanos * 3 + 1) {
+			final int bucket = LatencyHistogram.getBucket(nanos);
+			assertTrue(LatencyHistogram.getBucketLowerBound(bucket) <= nanos);
+			assertTrue(LatencyHistogram.getBucketUpperBound(bucket) >= nanos);
+		}
+
+		System.setProperty(Arguments.CFG_CHANNEL_HISTOGRAMS, "true");
+		final BufferedChannel<Integer> channel;
+		try {
+			channel = ChannelFactory.getInstance().createOneToOneChannel("histograms", 8);
+		} finally {
+			System.clearProperty(Arguments.CFG_CHANNEL_HISTOGRAMS);
+		}
+		MonitoredChannel monitored = null;
+		for (Iterator<MonitoredChannel> channels = ChannelFactory.getInstance().getChannelMonitor().getChannels(); channels.hasNext();) {
+			MonitoredChannel next = channels.next();
+			if (channel.getName().equals(next.getName())) {
+				monitored = next;
+			}
+		}
+		assertNotNull(monitored);
+		assertTrue(monitored.hasHistograms());
+
+		/*
+		 * Values sit in the buffer for at least 100ms, read singly and as a batch.
+		 */
+		WritePort<Integer> writePort = channel.getWritePort(true);
+		for (int i = 0; i < 4; i++) {
+			writePort.write(Integer.valueOf(i));
+		}
+		Thread.sleep(100);
+		ReadPort<Integer> readPort = channel.getReadPort(true);
+		assertEquals(Integer.valueOf(0), readPort.read());
+		List<Integer> batch = new ArrayList<Integer>();
+		assertEquals(3, readPort.readBatch(batch, 8));
+		assertEquals(Integer.valueOf(3), batch.get(2));
+		assertNull(readPort.read(20, TimeUnit.MILLISECONDS));
+
+		LatencyHistogram residency = monitored.getResidencyHistogram(true);
+		System.out.println(residency);
+		assertEquals(4L, residency.getCount());
+		assertTrue(residency.getPercentile(50.0) >= TimeUnit.MILLISECONDS.toNanos(100));
+		assertTrue(residency.getPercentile(100.0) <= residency.getMax());
+		assertEquals(0L, monitored.getResidencyHistogram(false).getCount());
+		assertEquals(1L, monitored.getReaderWaitHistogram(false).getCount());
+		
+		ChannelMonitorOutput.writeRDF(ChannelFactory.getInstance().getChannelMonitor());
+		channel.poison();
+	}
+
+	public void test029_WriteAllFailure() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		final BufferedChannel<Integer> channel = ChannelFactory.getInstance().createOneToOneChannel("writeAll", 3, 3, 8);
+		WritePort<Integer> writePort = channel.getWritePort(true);
+		try {
+			writePort.writeAll(Arrays.asList(Integer.valueOf(1), null, Integer.valueOf(2)));
+			fail("Null value accepted.");
+		} catch (IllegalArgumentException e) {
+		}
+		
+		/*
+		 * The failed batch must not have used any of the limit.
+		 */
+		writePort.writeAll(Arrays.asList(Integer.valueOf(1), Integer.valueOf(2), Integer.valueOf(3)));
+		ReadPort<Integer> readPort = channel.getReadPort(true);
+		for (int i = 1; i <= 3; i++) {
+			assertEquals(Integer.valueOf(i), readPort.read());
+		}
+		channel.poison();
+	}
+
+	public void test030_WriteFailure() throws Exception {
+		System.out.println(String.format("===== %s =====", getName()));
+
+		/*
+		 * A value that was never stored returns the limit, and a port written
+		 * is still owned by the writer.
+		 */
+		final BufferedChannel<ReadPort<Integer>> carrier = ChannelFactory.getInstance().createOneToOneChannel("carrier", 2, 2, 4);
+		final WritePort<ReadPort<Integer>> writePort = carrier.getWritePort(true);
+		final ReadPort<Integer> payload = ChannelFactory.getInstance().<Integer>createOneToOneChannel().getReadPort(true);
+		carrier.poison();
+		try {
+			writePort.write(payload);
+			fail("Write to poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+		}
+		try {
+			writePort.write(payload, 1, TimeUnit.SECONDS);
+			fail("Write to poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+		}
+		assertSame(ActorFactory.getInstance().getCurrentActor(), payload.getOwningActor());
+		assertEquals(2, ((SimplePort<?>)writePort).getLimit());
+		
+		/*
+		 * A value stored before the channel was poisoned still uses the limit.
+		 */
+		final PoisoningChannel<Integer> poisoning = new PoisoningChannel<Integer>("poisoning", 2, 4);
+		final WritePort<Integer> poisoningPort = poisoning.getWritePort(true);
+		try {
+			poisoningPort.write(Integer.valueOf(1), 1, TimeUnit.SECONDS);
+			fail("Write to poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+		}
+		assertEquals(1, ((SimplePort<?>)poisoningPort).getLimit());
+	}
+
 	public void test011_PortClosedRules() throws Exception {
 		System.out.println(String.format("===== %s =====", getName()));
 
@@ -0,0 +1,173 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.tests.internal;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.googlecode.acpj.Arguments;
+import com.googlecode.acpj.actors.Actor;
+import com.googlecode.acpj.actors.ActorException;
+import com.googlecode.acpj.actors.ActorFactory;
+import com.googlecode.acpj.actors.MessageHandler;
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelFactory;
+import com.googlecode.acpj.channels.ReadPort;
+import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.internal.actors.ForkJoinActorFactory;
+import com.googlecode.acpj.internal.actors.VirtualThreadActorFactory;
+import com.googlecode.acpj.patterns.ActorJoinPool;
+import com.googlecode.acpj.patterns.BasicActorJoinPool;
+
+import junit.framework.TestCase;
+
+/**
+ * <p>
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class ActorFactoryTests extends TestCase {
+
+	private static final int ACTORS = 1000;
+
+	class Relay implements Runnable {
+		private Channel<Integer> in = null;
+		private Channel<Integer> out = null;
+		private AtomicInteger count = null;
+		public Relay(Channel<Integer> in, Channel<Integer> out, AtomicInteger count) {
+			this.in = in;
+			this.out = out;
+			this.count = count;
+		}
+		public void run() {
+			Integer value = this.in.getReadPort(true).read();
+			this.count.incrementAndGet();
+			this.out.getWritePort(true).write(Integer.valueOf(value.intValue() + 1));
+		}
+	}
+
+	/*
+	 * A factory with no support of its own for event-driven actors.
+	 */
+	class PlainActorFactory extends ActorFactory {
+		private final ActorFactory delegate = ActorFactory.getInstance();
+		public Actor createActor(Runnable runnable) {
+			return this.delegate.createActor(runnable);
+		}
+		public Actor createActor(Runnable runnable, String name) {
+			return this.delegate.createActor(runnable, name);
+		}
+		public Actor getCurrentActor() {
+			return this.delegate.getCurrentActor();
+		}
+	}
+
+	public void testPlainMessageDrivenActors() throws Exception {
+		final ActorFactory factory = new PlainActorFactory();
+		final AtomicInteger total = new AtomicInteger(0);
+		final CountDownLatch handled = new CountDownLatch(10);
+		final Channel<Integer> channel = ChannelFactory.getInstance().createOneToOneChannel(4);
+		final ReadPort<Integer> readPort = channel.getReadPort(true);
+		factory.createActor(readPort, new MessageHandler<Integer>() {
+			public void onMessage(Integer message) {
+				total.addAndGet(message.intValue());
+				handled.countDown();
+			}
+		}, "plain");
+		final WritePort<Integer> writePort = channel.getWritePort(true);
+		for (int i = 1; i <= 10; i++) {
+			writePort.write(Integer.valueOf(i));
+		}
+		assertTrue(handled.await(10, TimeUnit.SECONDS));
+		assertEquals(55, total.get());
+		channel.poison();
+	}
+
+	public void testVirtualThreadActors() throws Exception {
+		if (!VirtualThreadActorFactory.isSupported()) {
+			try {
+				new VirtualThreadActorFactory();
+				fail("Virtual thread factory created on an unsupported runtime.");
+			} catch (ActorException e) {
+				;
+			}
+			return;
+		}
+		ActorFactory factory = new VirtualThreadActorFactory();
+		AtomicInteger count = new AtomicInteger(0);
+		
+		/*
+		 * A chain of actors, all blocked reading until the first value is 
+		 * written at the head of the chain.
+		 */
+		ActorJoinPool pool = new BasicActorJoinPool();
+		Channel<Integer> head = ChannelFactory.getInstance().createOneToOneChannel();
+		Channel<Integer> in = head;
+		for (int i = 0; i < ACTORS; i++) {
+			Channel<Integer> out = ChannelFactory.getInstance().createOneToOneChannel(1);
+			pool.createActor(new Relay(in, out, count), factory);
+			in = out;
+		}
+		head.getWritePort(true).write(Integer.valueOf(0));
+		assertEquals(ACTORS, in.getReadPort(true).read().intValue());
+		pool.joinAll();
+		assertEquals(ACTORS, count.get());
+	}
+
+	public void testForkJoinActors() throws Exception {
+		System.setProperty(Arguments.CFG_THREAD_POOL_SIZE, "1");
+		final ForkJoinActorFactory factory;
+		try {
+			factory = new ForkJoinActorFactory();
+		} finally {
+			System.clearProperty(Arguments.CFG_THREAD_POOL_SIZE);
+		}
+		AtomicInteger count = new AtomicInteger(0);
+		
+		/*
+		 * Hold the only pool thread so that no group is launched until all the
+		 * actors have been created.
+		 */
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch hold = new CountDownLatch(1);
+		factory.getPool().execute(new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					hold.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		
+		/*
+		 * The same chain as above, far more blocked actors than pool threads,
+		 * each pair of neighbours in the chain share the channel between them 
+		 * as their affinity hint and so are launched as one group.
+		 */
+		Channel<Integer> head = ChannelFactory.getInstance().createOneToOneChannel();
+		Channel<Integer> in = head;
+		for (int i = 0; i < ACTORS; i++) {
+			Channel<Integer> out = ChannelFactory.getInstance().createOneToOneChannel(1);
+			factory.createActor(new Relay(in, out, count), "relay", i % 2 == 0 ? out : in);
+			in = out;
+		}
+		hold.countDown();
+		head.getWritePort(true).write(Integer.valueOf(0));
+		assertEquals(ACTORS, in.getReadPort(true).read().intValue());
+		assertEquals(ACTORS, count.get());
+		assertTrue(factory.getPool().awaitQuiescence(10, TimeUnit.SECONDS));
+		assertEquals(ACTORS / 2, factory.getGroupCount());
+	}
+}
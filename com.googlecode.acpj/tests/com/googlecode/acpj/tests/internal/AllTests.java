@@ -26,6 +26,8 @@ public class AllTests {
 		//$JUnit-BEGIN$
 		suite.addTestSuite(ZBQTests.class);
 		suite.addTestSuite(ExecutorTests.class);
+		suite.addTestSuite(QueueTests.class);
+		suite.addTestSuite(ActorFactoryTests.class);
 		//$JUnit-END$
 		return suite;
 	}
@@ -10,7 +10,10 @@ package com.googlecode.acpj.tests.internal;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import com.googlecode.acpj.channels.Channel;
+import com.googlecode.acpj.channels.ChannelFactory;
 import com.googlecode.acpj.internal.actors.ActorPoolExecutor;
 
 import junit.framework.TestCase;
@@ -37,6 +40,19 @@ public class ExecutorTests extends TestCase {
 		}
 	}
 	
+	class Relay implements Runnable {
+		private Channel<Integer> in = null;
+		private Channel<Integer> out = null;
+		public Relay(Channel<Integer> in, Channel<Integer> out) {
+			this.in = in;
+			this.out = out;
+		}
+		public void run() {
+			Integer value = this.in.getReadPort(true).read();
+			this.out.getWritePort(true).write(Integer.valueOf(value.intValue() + 1));
+		}
+	}
+	
 	public void testExecutorThreadId() throws Exception {
 		ExecutorService threadExecutor = Executors.newFixedThreadPool(3);
 		for (int i = 0; i < 10; i++) {
@@ -53,4 +69,77 @@ public class ExecutorTests extends TestCase {
 		}
 		Thread.sleep(10000);
 	}
+
+	public void testElasticExecutor() throws Exception {
+		/*
+		 * Many more actors than threads, all blocked reading until the first
+		 * value is written, a fixed pool of this size would never start most
+		 * of them.
+		 */
+		final int actors = 50;
+		ActorPoolExecutor threadExecutor = new ActorPoolExecutor(2, 1000);
+		assertTrue(threadExecutor.isElastic());
+		Channel<Integer> head = ChannelFactory.getInstance().createOneToOneChannel();
+		Channel<Integer> in = head;
+		for (int i = 0; i < actors; i++) {
+			Channel<Integer> out = ChannelFactory.getInstance().createOneToOneChannel();
+			threadExecutor.execute(new Relay(in, out));
+			in = out;
+		}
+		head.getWritePort(true).write(Integer.valueOf(0));
+		assertEquals(actors, in.getReadPort(true).read().intValue());
+		threadExecutor.shutdown();
+		assertTrue(threadExecutor.awaitTermination(10, TimeUnit.SECONDS));
+		assertTrue(threadExecutor.getCompensationCount() > 0);
+		assertEquals(0, threadExecutor.getBlockedCount());
+		assertEquals(0, threadExecutor.getQueuedCount());
+	}
+
+	public void testElasticResize() throws Exception {
+		/*
+		 * A single blocked actor in a pool with idle threads needs no 
+		 * compensation.
+		 */
+		ActorPoolExecutor threadExecutor = new ActorPoolExecutor(4, 100);
+		Channel<Integer> in = ChannelFactory.getInstance().createOneToOneChannel();
+		Channel<Integer> out = ChannelFactory.getInstance().createOneToOneChannel();
+		threadExecutor.execute(new Relay(in, out));
+		Thread.sleep(100);
+		in.getWritePort(true).write(Integer.valueOf(0));
+		assertEquals(1, out.getReadPort(true).read().intValue());
+		assertEquals(0, threadExecutor.getCompensationCount());
+		threadExecutor.shutdown();
+		assertTrue(threadExecutor.awaitTermination(10, TimeUnit.SECONDS));
+		
+		/*
+		 * Once grown, the pool returns to its base size only after the 
+		 * keep-alive period.
+		 */
+		final int actors = 5;
+		threadExecutor = new ActorPoolExecutor(1, 100);
+		threadExecutor.setKeepAliveTime(50, TimeUnit.MILLISECONDS);
+		Channel<Integer> head = ChannelFactory.getInstance().createOneToOneChannel();
+		in = head;
+		for (int i = 0; i < actors; i++) {
+			out = ChannelFactory.getInstance().createOneToOneChannel();
+			threadExecutor.execute(new Relay(in, out));
+			in = out;
+		}
+		head.getWritePort(true).write(Integer.valueOf(0));
+		assertEquals(actors, in.getReadPort(true).read().intValue());
+		assertTrue(threadExecutor.getCompensationCount() > 0);
+		assertTrue(threadExecutor.getCorePoolSize() > 1);
+		Thread.sleep(100);
+		threadExecutor.execute(new Runnable() {
+			public void run() {
+			}
+		});
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (threadExecutor.getCorePoolSize() > 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, threadExecutor.getCorePoolSize());
+		threadExecutor.shutdown();
+		assertTrue(threadExecutor.awaitTermination(10, TimeUnit.SECONDS));
+	}
 }
@@ -0,0 +1,383 @@
+/*
+ * Licensed Materials - Property of Simon Johnston (simon@johnstonshome.org)
+ * (c) Copyright Simon Johnston 2009. All rights reserved.
+ * 
+ * For full license details, see the file LICENSE included in the
+ * distribution of this code.
+ * 
+ */
+package com.googlecode.acpj.tests.internal;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.googlecode.acpj.channels.BufferedChannel;
+import com.googlecode.acpj.channels.ChannelFactory;
+import com.googlecode.acpj.channels.ChannelPoisonedException;
+import com.googlecode.acpj.channels.PortArity;
+import com.googlecode.acpj.channels.WaitStrategy;
+import com.googlecode.acpj.channels.WritePort;
+import com.googlecode.acpj.internal.channels.JavaValueSerializer;
+import com.googlecode.acpj.internal.channels.MpmcArrayBlockingQueue;
+import com.googlecode.acpj.internal.channels.MpscLinkedBlockingQueue;
+import com.googlecode.acpj.internal.channels.RendezvousQueue;
+import com.googlecode.acpj.internal.channels.SimpleChannel;
+import com.googlecode.acpj.internal.channels.SpillingBlockingQueue;
+import com.googlecode.acpj.internal.channels.SpscArrayBlockingQueue;
+
+import junit.framework.TestCase;
+
+/**
+ * <p>
+ * </p>
+ * 
+ * @author Simon Johnston (simon@johnstonshome.org)
+ * @since 0.1.0
+ * 
+ */
+public class QueueTests extends TestCase {
+
+	private static final int MESSAGES = 100000;
+
+	class Producer implements Runnable {
+		private BlockingQueue<Integer> queue = null;
+		private int first = 0;
+		private int count = 0;
+		public Producer(BlockingQueue<Integer> queue, int first, int count) {
+			this.queue = queue;
+			this.first = first;
+			this.count = count;
+		}
+		public void run() {
+			try {
+				for (int i = this.first; i < this.first + this.count; i++) {
+					this.queue.put(Integer.valueOf(i));
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	class Consumer implements Runnable {
+		private BlockingQueue<Integer> queue = null;
+		private int count = 0;
+		private AtomicLong total = null;
+		public Consumer(BlockingQueue<Integer> queue, int count, AtomicLong total) {
+			this.queue = queue;
+			this.count = count;
+			this.total = total;
+		}
+		public void run() {
+			try {
+				long sum = 0L;
+				for (int i = 0; i < this.count; i++) {
+					sum += this.queue.take().intValue();
+				}
+				this.total.addAndGet(sum);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	public void testSpscOrdering() throws Exception {
+		testSpscOrdering(new SpscArrayBlockingQueue<Integer>(10), MESSAGES);
+	}
+
+	private void testSpscOrdering(BlockingQueue<Integer> queue, int messages) throws Exception {
+		Thread producer = new Thread(new Producer(queue, 0, messages));
+		producer.start();
+		for (int i = 0; i < messages; i++) {
+			assertEquals(i, queue.take().intValue());
+		}
+		producer.join();
+		assertEquals(0, queue.size());
+	}
+
+	public void testSpscCapacity() throws Exception {
+		BlockingQueue<Integer> queue = new SpscArrayBlockingQueue<Integer>(3);
+
+		assertTrue(queue.offer(Integer.valueOf(1)));
+		assertTrue(queue.offer(Integer.valueOf(2)));
+		assertTrue(queue.offer(Integer.valueOf(3)));
+		assertFalse(queue.offer(Integer.valueOf(4)));
+		assertFalse(queue.offer(Integer.valueOf(4), 100, TimeUnit.MILLISECONDS));
+		assertEquals(3, queue.size());
+		assertEquals(0, queue.remainingCapacity());
+		assertEquals(1, queue.poll().intValue());
+		assertTrue(queue.offer(Integer.valueOf(4)));
+		assertEquals(2, queue.take().intValue());
+		assertEquals(3, queue.take().intValue());
+		assertEquals(4, queue.take().intValue());
+		assertNull(queue.poll());
+		assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	public void testMpscOrdering() throws Exception {
+		testMpscOrdering(new MpscLinkedBlockingQueue<Integer>(10));
+		testMpscOrdering(new MpscLinkedBlockingQueue<Integer>(BufferedChannel.BUFFER_CAPACITY_UNLIMITED));
+	}
+
+	private void testMpscOrdering(BlockingQueue<Integer> queue) throws Exception {
+		final int producers = 4;
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			threads[p] = new Thread(new Producer(queue, p * MESSAGES, MESSAGES));
+			threads[p].start();
+		}
+		/*
+		 * Values from each producer must arrive in the order that producer
+		 * wrote them, although they may be interleaved with the others.
+		 */
+		int[] next = new int[producers];
+		for (int i = 0; i < producers * MESSAGES; i++) {
+			int value = queue.take().intValue();
+			int p = value / MESSAGES;
+			assertEquals(next[p], value % MESSAGES);
+			next[p]++;
+		}
+		for (int p = 0; p < producers; p++) {
+			threads[p].join();
+			assertEquals(MESSAGES, next[p]);
+		}
+		assertEquals(0, queue.size());
+	}
+
+	public void testMpscCapacity() throws Exception {
+		BlockingQueue<Integer> queue = new MpscLinkedBlockingQueue<Integer>(2);
+
+		assertTrue(queue.offer(Integer.valueOf(1)));
+		assertTrue(queue.offer(Integer.valueOf(2)));
+		assertFalse(queue.offer(Integer.valueOf(3)));
+		assertFalse(queue.offer(Integer.valueOf(3), 100, TimeUnit.MILLISECONDS));
+		assertEquals(2, queue.size());
+		assertEquals(1, queue.take().intValue());
+		assertTrue(queue.offer(Integer.valueOf(3)));
+		assertEquals(2, queue.take().intValue());
+		assertEquals(3, queue.take().intValue());
+		assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	public void testMpmcDelivery() throws Exception {
+		testMpmcDelivery(new MpmcArrayBlockingQueue<Integer>(16));
+		testMpmcDelivery(new MpmcArrayBlockingQueue<Integer>(10));
+	}
+
+	private void testMpmcDelivery(BlockingQueue<Integer> queue) throws Exception {
+		final int threads = 4;
+		final AtomicLong total = new AtomicLong(0L);
+		Thread[] consumers = new Thread[threads];
+		Thread[] producers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			consumers[t] = new Thread(new Consumer(queue, MESSAGES, total));
+			consumers[t].start();
+			producers[t] = new Thread(new Producer(queue, t * MESSAGES, MESSAGES));
+			producers[t].start();
+		}
+		for (int t = 0; t < threads; t++) {
+			producers[t].join();
+			consumers[t].join();
+		}
+		/*
+		 * Every value must be consumed exactly once.
+		 */
+		final long count = (long)threads * MESSAGES;
+		assertEquals(count * (count - 1) / 2, total.get());
+		assertEquals(0, queue.size());
+	}
+
+	public void testMpmcCapacity() throws Exception {
+		BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<Integer>(3);
+
+		assertTrue(queue.offer(Integer.valueOf(1)));
+		assertTrue(queue.offer(Integer.valueOf(2)));
+		assertTrue(queue.offer(Integer.valueOf(3)));
+		assertFalse(queue.offer(Integer.valueOf(4)));
+		assertFalse(queue.offer(Integer.valueOf(4), 100, TimeUnit.MILLISECONDS));
+		assertEquals(3, queue.size());
+		assertEquals(1, queue.take().intValue());
+		assertTrue(queue.offer(Integer.valueOf(4)));
+		assertEquals(2, queue.take().intValue());
+		assertEquals(3, queue.take().intValue());
+		assertEquals(4, queue.take().intValue());
+		assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	public void testWaitStrategies() throws Exception {
+		for (WaitStrategy strategy : WaitStrategy.values()) {
+			testSpscOrdering(new SpscArrayBlockingQueue<Integer>(100, strategy), MESSAGES / 10);
+			testSpscOrdering(new MpscLinkedBlockingQueue<Integer>(100, strategy), MESSAGES / 10);
+			testSpscOrdering(new MpmcArrayBlockingQueue<Integer>(100, strategy), MESSAGES / 10);
+
+			SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<Integer>(1, strategy);
+			assertEquals(strategy, queue.getWaitStrategy());
+			assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+			assertTrue(queue.offer(Integer.valueOf(1)));
+			assertFalse(queue.offer(Integer.valueOf(2), 100, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	public void testPoisonWakesSpinningReader() throws Exception {
+		final MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<Integer>(10, WaitStrategy.BUSY_SPIN);
+		final Integer sentinel = Integer.valueOf(-1);
+		final AtomicLong result = new AtomicLong(0L);
+
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					result.set(queue.take().intValue());
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		reader.start();
+		Thread.sleep(100);
+		queue.poison(sentinel);
+		reader.join(5000);
+		assertFalse(reader.isAlive());
+		assertEquals(-1L, result.get());
+		assertFalse(queue.offer(Integer.valueOf(1)));
+	}
+
+	public void testRendezvousDelivery() throws Exception {
+		testSpscOrdering(new RendezvousQueue<Integer>(false), MESSAGES);
+		testSpscOrdering(new RendezvousQueue<Integer>(true), MESSAGES);
+		testMpscOrdering(new RendezvousQueue<Integer>(true));
+		testMpmcDelivery(new RendezvousQueue<Integer>(false));
+		testMpmcDelivery(new RendezvousQueue<Integer>(true));
+	}
+
+	public void testRendezvousHandOff() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			final RendezvousQueue<Integer> queue = new RendezvousQueue<Integer>(i == 0);
+			/*
+			 * With nobody waiting on the other side nothing completes.
+			 */
+			assertFalse(queue.offer(Integer.valueOf(1)));
+			assertFalse(queue.offer(Integer.valueOf(1), 100, TimeUnit.MILLISECONDS));
+			assertNull(queue.poll());
+			assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+			assertFalse(queue.hasWaitingProducer());
+			assertFalse(queue.hasWaitingConsumer());
+
+			Thread producer = new Thread(new Producer(queue, 42, 1));
+			producer.start();
+			while (!queue.hasWaitingProducer()) {
+				Thread.sleep(1);
+			}
+			assertFalse(queue.hasWaitingConsumer());
+			assertEquals(0, queue.size());
+			assertEquals(42, queue.poll().intValue());
+			producer.join(5000);
+			assertFalse(producer.isAlive());
+			assertFalse(queue.hasWaitingProducer());
+		}
+	}
+
+	public void testRendezvousPoison() throws Exception {
+		final RendezvousQueue<Integer> readers = new RendezvousQueue<Integer>(true);
+		final RendezvousQueue<Integer> writers = new RendezvousQueue<Integer>(false);
+		final Integer sentinel = Integer.valueOf(-1);
+		final AtomicLong result = new AtomicLong(0L);
+
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					result.set(readers.take().intValue());
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		Thread writer = new Thread(new Producer(writers, 1, 1));
+		reader.start();
+		writer.start();
+		while (!readers.hasWaitingConsumer() || !writers.hasWaitingProducer()) {
+			Thread.sleep(1);
+		}
+		readers.poison(sentinel);
+		writers.poison(sentinel);
+		reader.join(5000);
+		writer.join(5000);
+		assertFalse(reader.isAlive());
+		assertFalse(writer.isAlive());
+		assertEquals(-1L, result.get());
+		assertFalse(readers.offer(Integer.valueOf(1)));
+		assertEquals(sentinel, writers.poll());
+		assertEquals(sentinel, writers.take());
+	}
+
+	public void testRendezvousSelection() throws Exception {
+		final SimpleChannel<Integer> oneToOne = (SimpleChannel<Integer>) ChannelFactory.getInstance().<Integer>createOneToOneChannel();
+		assertTrue(oneToOne.getBuffer() instanceof RendezvousQueue<?>);
+		assertFalse(((RendezvousQueue<?>)oneToOne.getBuffer()).isFair());
+		final SimpleChannel<Integer> anyToOne = (SimpleChannel<Integer>) ChannelFactory.getInstance().<Integer>createAnyToOneChannel("selection");
+		assertTrue(anyToOne.getBuffer() instanceof RendezvousQueue<?>);
+		assertTrue(((RendezvousQueue<?>)anyToOne.getBuffer()).isFair());
+		oneToOne.poison();
+		anyToOne.poison();
+	}
+
+	public void testSpillingPoison() throws Exception {
+		final SpillingBlockingQueue queue = new SpillingBlockingQueue(2, new JavaValueSerializer<Object>());
+		final Object sentinel = new Object();
+		for (int i = 0; i < 10; i++) {
+			assertTrue(queue.offer(Integer.valueOf(i)));
+		}
+		/*
+		 * Larger than the spill buffers.
+		 */
+		final byte[] large = new byte[100 * 1024];
+		large[large.length - 1] = 42;
+		assertTrue(queue.offer(large));
+		assertTrue(queue.offer(Integer.valueOf(10)));
+		assertEquals(10, queue.getSpilledCount());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Integer.valueOf(i), queue.poll());
+		}
+		assertEquals(42, ((byte[])queue.poll())[large.length - 1]);
+		assertEquals(Integer.valueOf(10), queue.poll());
+		assertEquals(0, queue.getSpilledCount());
+
+		/*
+		 * Poison drops the values on disk along with the file.
+		 */
+		for (int i = 0; i < 10; i++) {
+			assertTrue(queue.offer(Integer.valueOf(i)));
+		}
+		final File file = queue.getSpillFile();
+		assertTrue(file.exists());
+		queue.poison(sentinel);
+		assertFalse(queue.offer(Integer.valueOf(11)));
+		assertEquals(0, queue.getSpilledCount());
+		assertNull(queue.getSpillFile());
+		assertFalse(file.exists());
+		assertEquals(Integer.valueOf(0), queue.poll());
+		assertEquals(Integer.valueOf(1), queue.poll());
+		assertEquals(sentinel, queue.poll());
+		assertEquals(sentinel, queue.take());
+	}
+
+	public void testSpillingChannelPoison() throws Exception {
+		final BufferedChannel<Integer> channel = ChannelFactory.getInstance().createSpillingChannel("spilling", PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, PortArity.ONE, ChannelFactory.PORT_LIMIT_UNLIMITED, 2, null);
+		final SpillingBlockingQueue buffer = (SpillingBlockingQueue)((SimpleChannel<Integer>)channel).getBuffer();
+		final WritePort<Integer> writePort = channel.getWritePort(true);
+		for (int i = 0; i < 10; i++) {
+			writePort.write(Integer.valueOf(i));
+		}
+		final File file = buffer.getSpillFile();
+		assertTrue(file.exists());
+		channel.poison();
+		assertFalse(file.exists());
+		try {
+			channel.getReadPort(true).read();
+			fail("Read from poisoned channel succeeded.");
+		} catch (ChannelPoisonedException e) {
+			;
+		}
+	}
+}
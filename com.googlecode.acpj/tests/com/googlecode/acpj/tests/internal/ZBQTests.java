@@ -10,6 +10,7 @@ package com.googlecode.acpj.tests.internal;
 
 import java.util.Random;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import com.googlecode.acpj.internal.channels.ZeroBlockingQueue;
 
@@ -85,4 +86,45 @@ public class ZBQTests extends TestCase {
 		producer.join();
 		consumer.join();
 	}
+
+	public void testZeroBlockingQueueTimed() throws Exception {
+		final BlockingQueue<String> queue = new ZeroBlockingQueue<String>();
+
+		/*
+		 * With no one on the other side nothing can be exchanged.
+		 */
+		assertNull(queue.poll());
+		assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+		assertFalse(queue.offer("value"));
+		assertFalse(queue.offer("value", 100, TimeUnit.MILLISECONDS));
+		assertNull(queue.poll());
+
+		Thread producer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					queue.put("put value");
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		producer.start();
+		assertEquals("put value", queue.poll(5, TimeUnit.SECONDS));
+		producer.join();
+
+		final String[] taken = new String[1];
+		Thread consumer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					taken[0] = queue.take();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		consumer.start();
+		assertTrue(queue.offer("offered value", 5, TimeUnit.SECONDS));
+		consumer.join();
+		assertEquals("offered value", taken[0]);
+	}
 }